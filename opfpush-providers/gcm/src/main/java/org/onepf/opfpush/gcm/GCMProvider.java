@@ -67,6 +67,8 @@ public class GCMProvider extends BasePushProvider implements SenderPushProvider
 
     private final String senderID;
 
+    private final boolean isPayloadCompression;
+
     @Nullable
     private ExecutorService registrationExecutor;
 
@@ -74,9 +76,20 @@ public class GCMProvider extends BasePushProvider implements SenderPushProvider
     private final PreferencesProvider preferencesProvider;
 
     public GCMProvider(@NonNull final Context context, @NonNull final String senderID) {
+        this(context, senderID, false);
+    }
+
+    /**
+     * @param isPayloadCompression If {@code true}, the large values of the sent messages are compressed
+     *                             by the {@link org.onepf.opfpush.codec.PayloadCompressor}.
+     */
+    public GCMProvider(@NonNull final Context context,
+                       @NonNull final String senderID,
+                       final boolean isPayloadCompression) {
         super(context, PROVIDER_NAME, GOOGLE_PLAY_APP_PACKAGE);
 
         this.senderID = senderID;
+        this.isPayloadCompression = isPayloadCompression;
         preferencesProvider = PreferencesProvider.getInstance(context);
     }
 
@@ -189,6 +202,7 @@ public class GCMProvider extends BasePushProvider implements SenderPushProvider
         final Intent intent = new Intent(getContext(), SendMessageService.class);
         intent.putExtra(SendMessageService.EXTRA_MESSAGE, message);
         intent.putExtra(SendMessageService.EXTRA_MESSAGES_TO, senderID + MESSAGES_TO_SUFFIX);
+        intent.putExtra(SendMessageService.EXTRA_COMPRESS, isPayloadCompression);
         getContext().startService(intent);
     }
 
@@ -21,6 +21,7 @@ import android.content.Intent;
 
 import com.google.android.gms.gcm.GoogleCloudMessaging;
 
+import org.onepf.opfpush.codec.PayloadCompressor;
 import org.onepf.opfpush.model.Message;
 import org.onepf.opfutils.OPFLog;
 import org.onepf.opfutils.OPFUtils;
@@ -37,6 +38,12 @@ public class SendMessageService extends IntentService {
     public static final String ACTION_SEND_MESSAGE = "org.onepf.opfpush.gcm.SEND_MSG";
     public static final String EXTRA_MESSAGE = "msg";
     public static final String EXTRA_MESSAGES_TO = "to";
+    public static final String EXTRA_COMPRESS = "compress";
+
+    /**
+     * The service handles intents on a single thread, so the compressor is shared by all of them.
+     */
+    private static final PayloadCompressor PAYLOAD_COMPRESSOR = new PayloadCompressor();
 
     public SendMessageService() {
         super("SendMessageService");
@@ -47,7 +54,10 @@ public class SendMessageService extends IntentService {
         OPFLog.logMethod(OPFUtils.toString(intent));
 
         if (ACTION_SEND_MESSAGE.equals(intent.getAction())) {
-            final Message message = intent.getParcelableExtra(EXTRA_MESSAGE);
+            final Message originalMessage = intent.getParcelableExtra(EXTRA_MESSAGE);
+            final Message message = intent.getBooleanExtra(EXTRA_COMPRESS, false)
+                    ? PAYLOAD_COMPRESSOR.compress(originalMessage)
+                    : originalMessage;
             final String messageTo = intent.getStringExtra(EXTRA_MESSAGES_TO);
 
             try {
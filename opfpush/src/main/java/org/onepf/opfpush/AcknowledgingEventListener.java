@@ -0,0 +1,103 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.onepf.opfpush.listener.BatchEventListener;
+import org.onepf.opfpush.listener.EventListener;
+import org.onepf.opfpush.model.UnrecoverablePushError;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Acknowledges the messages in the {@link MessageJournal} when the wrapped listener returns from
+ * {@code onMessage} or {@code onMessages}. If the listener throws, the message stays unacknowledged
+ * and is delivered again after the restart.
+ *
+ * @since 18.10.2026
+ */
+final class AcknowledgingEventListener implements BatchEventListener {
+
+    @NonNull
+    private final EventListener eventListener;
+
+    @NonNull
+    private final MessageJournal messageJournal;
+
+    AcknowledgingEventListener(@NonNull final EventListener eventListener,
+                               @NonNull final MessageJournal messageJournal) {
+        this.eventListener = eventListener;
+        this.messageJournal = messageJournal;
+    }
+
+    @Override
+    public void onMessage(@NonNull final Context context,
+                          @NonNull final String providerName,
+                          @Nullable final Bundle extras) {
+        eventListener.onMessage(context, providerName, extras);
+        messageJournal.acknowledge(extras);
+    }
+
+    @Override
+    public void onMessages(@NonNull final Context context,
+                           @NonNull final String providerName,
+                           @NonNull final List<Bundle> messages) {
+        if (eventListener instanceof BatchEventListener) {
+            ((BatchEventListener) eventListener).onMessages(context, providerName, messages);
+        } else {
+            for (Bundle extras : messages) {
+                eventListener.onMessage(context, providerName, extras);
+            }
+        }
+
+        for (Bundle extras : messages) {
+            messageJournal.acknowledge(extras);
+        }
+    }
+
+    @Override
+    public void onDeletedMessages(@NonNull final Context context,
+                                  @NonNull final String providerName,
+                                  final int messagesCount) {
+        eventListener.onDeletedMessages(context, providerName, messagesCount);
+    }
+
+    @Override
+    public void onRegistered(@NonNull final Context context,
+                             @NonNull final String providerName,
+                             @NonNull final String registrationId) {
+        eventListener.onRegistered(context, providerName, registrationId);
+    }
+
+    @Override
+    public void onUnregistered(@NonNull final Context context,
+                               @NonNull final String providerName,
+                               @Nullable final String registrationId) {
+        eventListener.onUnregistered(context, providerName, registrationId);
+    }
+
+    @Override
+    public void onNoAvailableProvider(@NonNull final Context context,
+                                      @NonNull final Map<String, UnrecoverablePushError> pushErrors) {
+        eventListener.onNoAvailableProvider(context, pushErrors);
+    }
+}
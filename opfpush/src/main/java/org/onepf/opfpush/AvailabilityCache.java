@@ -0,0 +1,124 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+
+import org.onepf.opfpush.model.AvailabilityResult;
+import org.onepf.opfpush.pushprovider.PushProvider;
+import org.onepf.opfutils.OPFLog;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the results of {@link PushProvider#getAvailabilityResult()} for the configured time.
+ * <p/>
+ * The result of a provider is invalidated explicitly when the host application of the provider
+ * is installed, updated or removed. See {@link PackageChangeReceiver}.
+ * The cache is disabled if the time to live is {@code 0}.
+ *
+ * @since 18.10.2026
+ */
+final class AvailabilityCache {
+
+    private final long ttlMillis;
+
+    @NonNull
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    @NonNull
+    private final AtomicLong hitsCount = new AtomicLong();
+
+    @NonNull
+    private final AtomicLong missesCount = new AtomicLong();
+
+    AvailabilityCache(final long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Returns the cached availability of the provider if it hasn't expired yet.
+     * Otherwise asks the provider and caches the result.
+     *
+     * @param provider The provider which availability is requested.
+     * @return The availability result of the provider.
+     */
+    @NonNull
+    AvailabilityResult getAvailabilityResult(@NonNull final PushProvider provider) {
+        if (ttlMillis <= 0) {
+            return provider.getAvailabilityResult();
+        }
+
+        final String providerName = provider.getName();
+        final long now = SystemClock.elapsedRealtime();
+        final Entry entry = entries.get(providerName);
+        if (entry != null && now - entry.time < ttlMillis) {
+            hitsCount.incrementAndGet();
+            return entry.result;
+        }
+
+        missesCount.incrementAndGet();
+        final AvailabilityResult result = provider.getAvailabilityResult();
+        entries.put(providerName, new Entry(result, now));
+        return result;
+    }
+
+    void invalidate(@NonNull final String providerName) {
+        OPFLog.logMethod(providerName);
+        entries.remove(providerName);
+    }
+
+    void invalidateAll() {
+        OPFLog.logMethod();
+        entries.clear();
+    }
+
+    /**
+     * Returns the count of the availability requests that have been served from the cache.
+     *
+     * @return The count of the cache hits.
+     */
+    long getHitsCount() {
+        return hitsCount.get();
+    }
+
+    /**
+     * Returns the count of the availability requests that have been passed to the providers.
+     * The requests aren't counted if the cache is disabled.
+     *
+     * @return The count of the cache misses.
+     */
+    long getMissesCount() {
+        return missesCount.get();
+    }
+
+    private static final class Entry {
+
+        @NonNull
+        private final AvailabilityResult result;
+
+        private final long time;
+
+        Entry(@NonNull final AvailabilityResult result, final long time) {
+            this.result = result;
+            this.time = time;
+        }
+    }
+}
@@ -21,6 +21,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.support.annotation.NonNull;
 
+import org.onepf.opfpush.backoff.RetryManager;
 import org.onepf.opfutils.OPFLog;
 
 import static android.provider.Settings.Secure;
@@ -38,6 +39,11 @@ public final class BootCompleteReceiver extends BroadcastReceiver {
         OPFLog.logMethod(context, intent);
 
         final OPFPushHelper helper = OPFPush.getHelper();
+        if (helper.isInitDone()) {
+            OPFLog.d("Rearm scheduled tasks after reboot");
+            RetryManager.getInstance().getAlarmScheduler().rearm();
+        }
+
         if (helper.isRegistered()) {
             OPFLog.i("Helper is registered");
             if (isAndroidIDChanged(context)) {
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush;
+
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.onepf.opfpush.codec.PayloadChunker;
+import org.onepf.opfpush.metrics.PushMetrics;
+import org.onepf.opfutils.OPFLog;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The table of the partially received data split by the {@link PayloadChunker}.
+ * <p/>
+ * The table holds at most {@code maxGroups} incomplete groups of chunks. A group is evicted
+ * when it's older than {@code ttlMillis} or when the table is full and a chunk of a new group arrives.
+ * The evicted groups are reported as dropped messages. The table lives in memory only,
+ * so the chunks received before the process death are lost.
+ *
+ * @since 18.10.2026
+ */
+final class ChunkReassembler {
+
+    private final int maxGroups;
+
+    private final long ttlMillis;
+
+    @NonNull
+    private final PushMetrics pushMetrics;
+
+    /**
+     * The incomplete groups in the order of their first chunks.
+     */
+    @NonNull
+    private final Map<String, Group> groups = new LinkedHashMap<>();
+
+    ChunkReassembler(final int maxGroups, final long ttlMillis, @NonNull final PushMetrics pushMetrics) {
+        this.maxGroups = maxGroups;
+        this.ttlMillis = ttlMillis;
+        this.pushMetrics = pushMetrics;
+    }
+
+    /**
+     * Adds the chunk to its group.
+     *
+     * @param providerName The name of the provider which has received the chunk.
+     * @param chunk        The extras of the chunk message.
+     * @return The reassembled data if the chunk completes its group, {@code null} otherwise.
+     */
+    @Nullable
+    synchronized Bundle onChunk(@NonNull final String providerName, @NonNull final Bundle chunk) {
+        final long now = SystemClock.elapsedRealtime();
+        evictExpiredGroups(now);
+
+        final String groupId = chunk.getString(PayloadChunker.CHUNK_GROUP_KEY);
+        final String chunkData = chunk.getString(PayloadChunker.CHUNK_DATA_KEY);
+        final int index = parseInt(chunk.getString(PayloadChunker.CHUNK_INDEX_KEY));
+        final int count = parseInt(chunk.getString(PayloadChunker.CHUNK_COUNT_KEY));
+        if (groupId == null || chunkData == null || count <= 0 || count > PayloadChunker.MAX_CHUNK_COUNT
+                || index < 0 || index >= count) {
+            OPFLog.w("Ignore malformed chunk " + groupId);
+            pushMetrics.onMessageDropped(providerName);
+            return null;
+        }
+
+        Group group = groups.get(groupId);
+        if (group == null) {
+            if (groups.size() >= maxGroups) {
+                final Iterator<Group> iterator = groups.values().iterator();
+                evict(iterator.next());
+                iterator.remove();
+            }
+            group = new Group(providerName, count, now);
+            groups.put(groupId, group);
+        } else if (group.chunksData.length != count) {
+            OPFLog.w("Ignore chunk with wrong count of group " + groupId);
+            return null;
+        }
+
+        if (group.chunksData[index] == null) {
+            group.chunksData[index] = chunkData;
+            group.receivedCount++;
+        }
+        OPFLog.d("Chunk %d of %d of group %s", index, count, groupId);
+        if (group.receivedCount < count) {
+            return null;
+        }
+
+        groups.remove(groupId);
+        try {
+            return PayloadChunker.join(group.chunksData);
+        } catch (IllegalArgumentException e) {
+            OPFLog.w("Can't join chunks of group " + groupId, e);
+            pushMetrics.onMessageDropped(providerName);
+            return null;
+        }
+    }
+
+    synchronized int getPendingGroupsCount() {
+        return groups.size();
+    }
+
+    private void evictExpiredGroups(final long now) {
+        final Iterator<Group> iterator = groups.values().iterator();
+        while (iterator.hasNext()) {
+            final Group group = iterator.next();
+            if (now - group.createdAt <= ttlMillis) {
+                return;
+            }
+            evict(group);
+            iterator.remove();
+        }
+    }
+
+    private void evict(@NonNull final Group group) {
+        OPFLog.w("Evict incomplete group with %d of %d chunks", group.receivedCount, group.chunksData.length);
+        pushMetrics.onMessageDropped(group.providerName);
+    }
+
+    private static int parseInt(@Nullable final String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static final class Group {
+
+        @NonNull
+        private final String providerName;
+
+        @NonNull
+        private final String[] chunksData;
+
+        private final long createdAt;
+
+        private int receivedCount;
+
+        Group(@NonNull final String providerName, final int count, final long createdAt) {
+            this.providerName = providerName;
+            this.chunksData = new String[count];
+            this.createdAt = createdAt;
+        }
+    }
+}
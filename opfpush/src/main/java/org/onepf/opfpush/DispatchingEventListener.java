@@ -0,0 +1,320 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.onepf.opfpush.listener.BatchEventListener;
+import org.onepf.opfpush.listener.EventListener;
+import org.onepf.opfpush.model.UnrecoverablePushError;
+import org.onepf.opfutils.OPFLog;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Delivers the events to the {@link EventListener} via the {@link Executor}.
+ * <p/>
+ * Every event is wrapped into a pooled {@link Event} which is recycled after the delivery,
+ * so the dispatch doesn't allocate a new {@link Runnable} per event.
+ * If there is no executor, the events are delivered on the calling thread.
+ * The batches of messages are passed to the {@link BatchEventListener} as is and are split into single messages
+ * for a plain {@link EventListener}.
+ * <p/>
+ * If the {@link InboundMessageQueue} is set, the messages wait in it instead of the queue of the executor,
+ * and the executor runs a single drain task which delivers all pending messages.
+ *
+ * @since 18.10.2026
+ */
+final class DispatchingEventListener implements BatchEventListener {
+
+    private static final int MAX_POOL_SIZE = 16;
+
+    private static final int EVENT_MESSAGE = 0;
+    private static final int EVENT_DELETED_MESSAGES = 1;
+    private static final int EVENT_REGISTERED = 2;
+    private static final int EVENT_UNREGISTERED = 3;
+    private static final int EVENT_NO_AVAILABLE_PROVIDER = 4;
+    private static final int EVENT_MESSAGES = 5;
+
+    @NonNull
+    private final EventListener eventListener;
+
+    @Nullable
+    private final Executor executor;
+
+    @Nullable
+    private final InboundMessageQueue inboundMessageQueue;
+
+    @NonNull
+    private final Runnable drainRunnable = new Runnable() {
+        @Override
+        public void run() {
+            //noinspection ConstantConditions
+            InboundMessageQueue.Item item = inboundMessageQueue.poll();
+            while (item != null) {
+                item.run();
+                item = inboundMessageQueue.poll();
+            }
+        }
+    };
+
+    @NonNull
+    private final Object poolLock = new Object();
+
+    @Nullable
+    private Event pool;
+
+    private int poolSize;
+
+    DispatchingEventListener(@NonNull final EventListener eventListener, @Nullable final Executor executor) {
+        this(eventListener, executor, null);
+    }
+
+    DispatchingEventListener(@NonNull final EventListener eventListener,
+                             @Nullable final Executor executor,
+                             @Nullable final InboundMessageQueue inboundMessageQueue) {
+        this.eventListener = eventListener;
+        this.executor = executor;
+        this.inboundMessageQueue = inboundMessageQueue;
+    }
+
+    @Override
+    public void onMessage(@NonNull final Context context,
+                          @NonNull final String providerName,
+                          @Nullable final Bundle extras) {
+        if (executor == null) {
+            eventListener.onMessage(context, providerName, extras);
+        } else {
+            final Event event = obtain(EVENT_MESSAGE, context, providerName);
+            event.extras = extras;
+            enqueueMessage(executor, event);
+        }
+    }
+
+    @Override
+    public void onMessages(@NonNull final Context context,
+                           @NonNull final String providerName,
+                           @NonNull final List<Bundle> messages) {
+        if (!(eventListener instanceof BatchEventListener)) {
+            for (Bundle extras : messages) {
+                onMessage(context, providerName, extras);
+            }
+        } else if (executor == null) {
+            ((BatchEventListener) eventListener).onMessages(context, providerName, messages);
+        } else {
+            final Event event = obtain(EVENT_MESSAGES, context, providerName);
+            event.messages = messages;
+            enqueueMessage(executor, event);
+        }
+    }
+
+    @Override
+    public void onDeletedMessages(@NonNull final Context context,
+                                  @NonNull final String providerName,
+                                  final int messagesCount) {
+        if (executor == null) {
+            eventListener.onDeletedMessages(context, providerName, messagesCount);
+        } else {
+            final Event event = obtain(EVENT_DELETED_MESSAGES, context, providerName);
+            event.messagesCount = messagesCount;
+            executor.execute(event);
+        }
+    }
+
+    @Override
+    public void onRegistered(@NonNull final Context context,
+                             @NonNull final String providerName,
+                             @NonNull final String registrationId) {
+        if (executor == null) {
+            eventListener.onRegistered(context, providerName, registrationId);
+        } else {
+            final Event event = obtain(EVENT_REGISTERED, context, providerName);
+            event.registrationId = registrationId;
+            executor.execute(event);
+        }
+    }
+
+    @Override
+    public void onUnregistered(@NonNull final Context context,
+                               @NonNull final String providerName,
+                               @Nullable final String registrationId) {
+        if (executor == null) {
+            eventListener.onUnregistered(context, providerName, registrationId);
+        } else {
+            final Event event = obtain(EVENT_UNREGISTERED, context, providerName);
+            event.registrationId = registrationId;
+            executor.execute(event);
+        }
+    }
+
+    @Override
+    public void onNoAvailableProvider(@NonNull final Context context,
+                                      @NonNull final Map<String, UnrecoverablePushError> pushErrors) {
+        if (executor == null) {
+            eventListener.onNoAvailableProvider(context, pushErrors);
+        } else {
+            final Event event = obtain(EVENT_NO_AVAILABLE_PROVIDER, context, null);
+            event.pushErrors = pushErrors;
+            executor.execute(event);
+        }
+    }
+
+    private void enqueueMessage(@NonNull final Executor executor, @NonNull final Event event) {
+        if (inboundMessageQueue == null) {
+            executor.execute(event);
+        } else if (inboundMessageQueue.offer(event)) {
+            executor.execute(drainRunnable);
+        }
+    }
+
+    @NonNull
+    private Event obtain(final int type, @NonNull final Context context, @Nullable final String providerName) {
+        Event event = null;
+        synchronized (poolLock) {
+            if (pool != null) {
+                event = pool;
+                pool = event.next;
+                event.next = null;
+                poolSize--;
+            }
+        }
+
+        if (event == null) {
+            event = new Event();
+        }
+        event.type = type;
+        event.context = context;
+        event.providerName = providerName;
+        return event;
+    }
+
+    private void recycle(@NonNull final Event event) {
+        event.context = null;
+        event.providerName = null;
+        event.extras = null;
+        event.registrationId = null;
+        event.pushErrors = null;
+        event.messages = null;
+        event.messagesCount = 0;
+        synchronized (poolLock) {
+            if (poolSize < MAX_POOL_SIZE) {
+                event.next = pool;
+                pool = event;
+                poolSize++;
+            }
+        }
+    }
+
+    /**
+     * The reusable event. Is returned to the pool after the delivery.
+     */
+    private final class Event implements InboundMessageQueue.Item {
+
+        private int type;
+
+        @Nullable
+        private Context context;
+
+        @Nullable
+        private String providerName;
+
+        @Nullable
+        private Bundle extras;
+
+        @Nullable
+        private String registrationId;
+
+        @Nullable
+        private Map<String, UnrecoverablePushError> pushErrors;
+
+        @Nullable
+        private List<Bundle> messages;
+
+        private int messagesCount;
+
+        @Nullable
+        private Event next;
+
+        @NonNull
+        @Override
+        @SuppressWarnings("ConstantConditions")
+        public String getProviderName() {
+            return providerName;
+        }
+
+        @Nullable
+        @Override
+        public Bundle getExtras() {
+            return type == EVENT_MESSAGE ? extras : null;
+        }
+
+        @Override
+        public void swapWith(@NonNull final InboundMessageQueue.Item newerItem) {
+            final Event newerEvent = (Event) newerItem;
+            final Bundle olderExtras = extras;
+            extras = newerEvent.extras;
+            newerEvent.extras = olderExtras;
+        }
+
+        @Override
+        public void discard() {
+            recycle(this);
+        }
+
+        @Override
+        @SuppressWarnings("ConstantConditions")
+        public void run() {
+            try {
+                switch (type) {
+                    case EVENT_MESSAGE:
+                        OPFLog.d("Dispatch onMessage(%1$s, %2$s)", providerName, extras);
+                        eventListener.onMessage(context, providerName, extras);
+                        break;
+                    case EVENT_MESSAGES:
+                        OPFLog.d("Dispatch onMessages(%1$s, %2$s)", providerName, messages.size());
+                        ((BatchEventListener) eventListener).onMessages(context, providerName, messages);
+                        break;
+                    case EVENT_DELETED_MESSAGES:
+                        OPFLog.d("Dispatch onDeletedMessages(%1$s, %2$s)", providerName, messagesCount);
+                        eventListener.onDeletedMessages(context, providerName, messagesCount);
+                        break;
+                    case EVENT_REGISTERED:
+                        OPFLog.d("Dispatch onRegistered(%1$s, %2$s)", providerName, registrationId);
+                        eventListener.onRegistered(context, providerName, registrationId);
+                        break;
+                    case EVENT_UNREGISTERED:
+                        OPFLog.d("Dispatch onUnregistered(%1$s, %2$s)", providerName, registrationId);
+                        eventListener.onUnregistered(context, providerName, registrationId);
+                        break;
+                    case EVENT_NO_AVAILABLE_PROVIDER:
+                        OPFLog.d("Dispatch onNoAvailableProvider()");
+                        eventListener.onNoAvailableProvider(context, pushErrors);
+                        break;
+                    default:
+                        throw new IllegalStateException("Unknown event type " + type);
+                }
+            } finally {
+                recycle(this);
+            }
+        }
+    }
+}
@@ -24,6 +24,8 @@ import android.os.Looper;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import org.onepf.opfpush.configuration.Configuration;
+import org.onepf.opfpush.listener.BatchEventListener;
 import org.onepf.opfpush.listener.EventListener;
 import org.onepf.opfpush.model.UnrecoverablePushError;
 import org.onepf.opfutils.OPFLog;
@@ -31,6 +33,10 @@ import org.onepf.opfutils.OPFUtils;
 
 import java.io.Serializable;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import static org.onepf.opfpush.OPFConstants.ACTION_NO_AVAILABLE_PROVIDER;
 import static org.onepf.opfpush.OPFConstants.ACTION_RECEIVE;
@@ -51,111 +57,78 @@ import static org.onepf.opfpush.model.MessageType.MESSAGE_TYPE_MESSAGE;
 @SuppressWarnings({"PMD.StdCyclomaticComplexity", "PMD.ModifiedCyclomaticComplexity"})
 final class EventListenerWrapperCreator {
 
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
     private EventListenerWrapperCreator() {
         throw new UnsupportedOperationException();
     }
 
     @NonNull
     static EventListener getEventListenerWrapper(
-            @Nullable final EventListener eventListener
+            @Nullable final EventListener eventListener,
+            @NonNull final Configuration configuration,
+            @Nullable final InboundMessageQueue inboundMessageQueue,
+            @Nullable final MessageJournal messageJournal
     ) {
-        OPFLog.logMethod(eventListener);
+        OPFLog.logMethod(eventListener, configuration);
 
         if (eventListener != null) {
-            return createMainLooperWrapper(eventListener);
+            final Executor dispatchExecutor = getDispatchExecutor(configuration);
+            final DispatchingEventListener dispatchingEventListener = new DispatchingEventListener(
+                    messageJournal == null ? eventListener : new AcknowledgingEventListener(eventListener, messageJournal),
+                    dispatchExecutor,
+                    inboundMessageQueue
+            );
+            final long messageBatchWindowMillis = configuration.getMessageBatchWindowMillis();
+            if (eventListener instanceof BatchEventListener && messageBatchWindowMillis > 0) {
+                // The expired window of the CALLER dispatch is flushed in the background instead of the main thread.
+                return new MessageBatcher(
+                        dispatchingEventListener,
+                        messageBatchWindowMillis,
+                        configuration.getMaxMessageBatchSize(),
+                        dispatchExecutor == null ? createBackgroundExecutor() : dispatchExecutor
+                );
+            }
+            return dispatchingEventListener;
+        } else if (messageJournal != null) {
+            return new AcknowledgingEventListener(createBroadcastSender(), messageJournal);
         } else {
             return createBroadcastSender();
         }
     }
 
-    @NonNull
-    private static EventListener createMainLooperWrapper(@NonNull final EventListener eventListener) {
-        OPFLog.logMethod(eventListener);
-        return new EventListener() {
-
-            private final Handler handler = new Handler(Looper.getMainLooper());
-
-            @Override
-            public void onMessage(
-                    @NonNull final Context context,
-                    @NonNull final String providerName,
-                    @Nullable final Bundle extras
-            ) {
-                post(new Runnable() {
-                    @Override
-                    public void run() {
-                        OPFLog.d("Post onMessage(%1$s, %2$s)", providerName, extras);
-                        eventListener.onMessage(context, providerName, extras);
-                    }
-                });
-            }
-
-            @Override
-            public void onDeletedMessages(
-                    @NonNull final Context context,
-                    @NonNull final String providerName,
-                    final int messagesCount
-            ) {
-                post(new Runnable() {
-                    @Override
-                    public void run() {
-                        OPFLog.d("Post onDeletedMessages(%1$s, %2$s)", providerName, messagesCount);
-                        eventListener.onDeletedMessages(context, providerName, messagesCount);
-                    }
-                });
-            }
-
-            @Override
-            public void onRegistered(
-                    @NonNull final Context context,
-                    @NonNull final String providerName,
-                    @NonNull final String registrationId
-            ) {
-                post(new Runnable() {
-                    @Override
-                    public void run() {
-                        OPFLog.d("Post onRegistered(%1$s, %2$s)", providerName, registrationId);
-                        eventListener.onRegistered(context, providerName, registrationId);
-                    }
-                });
-            }
-
-            @Override
-            public void onUnregistered(
-                    @NonNull final Context context,
-                    @NonNull final String providerName,
-                    @Nullable final String registrationId
-            ) {
-                post(new Runnable() {
-                    @Override
-                    public void run() {
-                        OPFLog.d("Post onUnregistered(%1$s, %2$s)", providerName, registrationId);
-                        eventListener.onUnregistered(context, providerName, registrationId);
-                    }
-                });
-            }
+    /**
+     * Returns the executor which delivers the events according to the {@link Configuration}
+     * or {@code null} if the events must be delivered on the calling thread.
+     */
+    @Nullable
+    private static Executor getDispatchExecutor(@NonNull final Configuration configuration) {
+        final Executor dispatchExecutor = configuration.getDispatchExecutor();
+        if (dispatchExecutor != null) {
+            return dispatchExecutor;
+        }
 
-            @Override
-            public void onNoAvailableProvider(
-                    @NonNull final Context context,
-                    @NonNull final Map<String, UnrecoverablePushError> pushErrors) {
-                post(new Runnable() {
-                    @Override
-                    public void run() {
-                        OPFLog.d("Post onNoAvailableProvider()");
-                        eventListener.onNoAvailableProvider(context, pushErrors);
-                    }
-                });
-            }
+        switch (configuration.getDispatchThread()) {
+            case BACKGROUND:
+                return createBackgroundExecutor();
+            case CALLER:
+                return null;
+            default:
+                return new MainThreadExecutor();
+        }
+    }
 
-            private void post(@NonNull final Runnable runnable) {
-                if (OPFUtils.isMainThread()) {
-                    runnable.run();
-                } else {
-                    handler.post(runnable);
-                }
-            }
-        };
+    @NonNull
+    private static Executor createBackgroundExecutor() {
+        final ThreadPoolExecutor backgroundExecutor = new ThreadPoolExecutor(
+                1,
+                1,
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>()
+        );
+        backgroundExecutor.allowCoreThreadTimeOut(true);
+        return backgroundExecutor;
     }
 
     @NonNull
@@ -234,4 +207,23 @@ final class EventListenerWrapperCreator {
             }
         };
     }
+
+    /**
+     * Runs the tasks on the main thread. The tasks which are passed on the main thread are run immediately.
+     * The tasks are posted via the {@link Handler}, which takes the messages from the pool.
+     */
+    private static final class MainThreadExecutor implements Executor {
+
+        @NonNull
+        private final Handler handler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void execute(@NonNull final Runnable command) {
+            if (OPFUtils.isMainThread()) {
+                command.run();
+            } else {
+                handler.post(command);
+            }
+        }
+    }
 }
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush;
+
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.onepf.opfpush.configuration.OverflowPolicy;
+import org.onepf.opfpush.metrics.PushMetrics;
+import org.onepf.opfutils.OPFLog;
+import org.onepf.opfutils.OPFUtils;
+
+import java.util.ArrayDeque;
+
+/**
+ * The bounded queue of the received messages which haven't been delivered to the listener yet.
+ * <p/>
+ * The queue keeps track of whether its consumer is scheduled: {@link #offer(Item)} returns {@code true}
+ * only for the item which has to start a new drain, and {@link #poll()} marks the drain as finished when
+ * the queue becomes empty. The collapse key of a message is the string extra with the configured name.
+ *
+ * @since 18.10.2026
+ */
+final class InboundMessageQueue {
+
+    private final int capacity;
+
+    @NonNull
+    private final OverflowPolicy overflowPolicy;
+
+    @NonNull
+    private final String collapseKeyName;
+
+    @NonNull
+    private final PushMetrics pushMetrics;
+
+    @Nullable
+    private final MessageJournal messageJournal;
+
+    @NonNull
+    private final ArrayDeque<Item> items;
+
+    private boolean isDrainScheduled;
+
+    private long droppedCount;
+
+    InboundMessageQueue(final int capacity,
+                        @NonNull final OverflowPolicy overflowPolicy,
+                        @NonNull final String collapseKeyName,
+                        @NonNull final PushMetrics pushMetrics,
+                        @Nullable final MessageJournal messageJournal) {
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.collapseKeyName = collapseKeyName;
+        this.pushMetrics = pushMetrics;
+        this.messageJournal = messageJournal;
+        this.items = new ArrayDeque<>(capacity);
+    }
+
+    /**
+     * Adds the item to the queue according to the {@link OverflowPolicy}.
+     *
+     * @param item The added item.
+     * @return {@code true} if the caller must schedule the drain of the queue, {@code false} otherwise.
+     */
+    synchronized boolean offer(@NonNull final Item item) {
+        if (overflowPolicy == OverflowPolicy.COLLAPSE_BY_KEY && replace(item)) {
+            return false;
+        }
+
+        if (items.size() >= capacity && overflowPolicy == OverflowPolicy.BLOCK && !OPFUtils.isMainThread()) {
+            while (items.size() >= capacity) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+
+        if (items.size() >= capacity) {
+            drop(items.pollFirst());
+        }
+
+        items.addLast(item);
+        if (isDrainScheduled) {
+            return false;
+        }
+
+        isDrainScheduled = true;
+        return true;
+    }
+
+    /**
+     * Takes the oldest item from the queue.
+     *
+     * @return The item or {@code null} if the queue is empty. In the last case the drain is considered finished.
+     */
+    @Nullable
+    synchronized Item poll() {
+        final Item item = items.pollFirst();
+        if (item == null) {
+            isDrainScheduled = false;
+        } else {
+            notifyAll();
+        }
+        return item;
+    }
+
+    synchronized int getDepth() {
+        return items.size();
+    }
+
+    synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    private boolean replace(@NonNull final Item item) {
+        final String collapseKey = getCollapseKey(item);
+        if (collapseKey == null) {
+            return false;
+        }
+
+        for (Item queuedItem : items) {
+            if (collapseKey.equals(getCollapseKey(queuedItem))
+                    && item.getProviderName().equals(queuedItem.getProviderName())) {
+                queuedItem.swapWith(item);
+                drop(item);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Nullable
+    private String getCollapseKey(@NonNull final Item item) {
+        final Bundle extras = item.getExtras();
+        return extras == null ? null : extras.getString(collapseKeyName);
+    }
+
+    private void drop(@Nullable final Item item) {
+        if (item != null) {
+            droppedCount++;
+            OPFLog.d("Drop message of provider %s, dropped count : %d", item.getProviderName(), droppedCount);
+            pushMetrics.onMessageDropped(item.getProviderName());
+            if (messageJournal != null) {
+                messageJournal.acknowledge(item.getExtras());
+            }
+            item.discard();
+        }
+    }
+
+    /**
+     * The queued message. Is delivered to the listener when it's run.
+     */
+    interface Item extends Runnable {
+
+        @NonNull
+        String getProviderName();
+
+        /**
+         * @return The extras of the message or {@code null} if the item can't be collapsed.
+         */
+        @Nullable
+        Bundle getExtras();
+
+        /**
+         * Exchanges the content with the newer message with the same collapse key.
+         * The item keeps its position in the queue, and the newer item gets the older content to be dropped.
+         */
+        void swapWith(@NonNull Item newerItem);
+
+        /**
+         * Releases the item which won't be delivered.
+         */
+        void discard();
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush;
+
+import android.content.Context;
+import android.content.Intent;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.onepf.opfpush.configuration.Configuration;
+import org.onepf.opfpush.listener.CheckManifestHandler;
+import org.onepf.opfpush.pushprovider.PushProvider;
+import org.onepf.opfpush.utils.ManifestSnapshot;
+import org.onepf.opfutils.OPFLog;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.onepf.opfpush.OPFConstants.ACTION_NO_AVAILABLE_PROVIDER;
+import static org.onepf.opfpush.OPFConstants.ACTION_RECEIVE;
+import static org.onepf.opfpush.OPFConstants.ACTION_REGISTRATION;
+import static org.onepf.opfpush.OPFConstants.ACTION_UNREGISTRATION;
+
+/**
+ * Checks that the AndroidManifest.xml file contains everything the configured push providers need.
+ * <p/>
+ * In the deferred mode the checks are performed on a background thread once per application version,
+ * and the errors are reported only via the {@link CheckManifestHandler}.
+ * An exception thrown by a check is reported the same way and fails the check.
+ * The verdict is stored in the {@link Settings}, so the next starts of the same version skip the checks.
+ *
+ * @since 18.10.2026
+ */
+final class ManifestCheckController {
+
+    private static final String RECEIVER_AND_LISTENER_ERROR = "You can't register OPFReceiver and set event listener";
+    private static final String NO_RECEIVER_AND_LISTENER_ERROR = "You must register OPFReceiver or set event listener";
+
+    private ManifestCheckController() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Performs all checks on the calling thread.
+     *
+     * @throws java.lang.IllegalStateException If both or none of OPFReceiver and event listener are set.
+     */
+    static void checkManifest(@NonNull final Context context,
+                              @NonNull final Configuration configuration) {
+        OPFLog.logMethod(context, configuration);
+        for (PushProvider provider : configuration.getProviders()) {
+            provider.checkManifest(configuration.getCheckManifestHandler());
+        }
+
+        final String error = checkEventListener(context, configuration);
+        if (error != null) {
+            throw new IllegalStateException(error);
+        }
+    }
+
+    /**
+     * Starts the checks on a background thread unless they have already been passed by the current
+     * version of the application.
+     *
+     * @return The {@link Future} of the started checks or {@code null} if the checks have been skipped.
+     */
+    @Nullable
+    static Future<?> checkManifestDeferred(@NonNull final Context context,
+                                           @NonNull final Settings settings,
+                                           @NonNull final Configuration configuration) {
+        OPFLog.logMethod(context, configuration);
+        final String versionStamp = getVersionStamp(context);
+        if (versionStamp.equals(settings.getManifestCheckStamp()) && settings.isManifestCheckPassed()) {
+            OPFLog.d("Manifest has already been checked for version " + versionStamp);
+            return null;
+        }
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final Future<?> future = executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                final ReportingCheckManifestHandler handler =
+                        new ReportingCheckManifestHandler(configuration.getCheckManifestHandler());
+                try {
+                    for (PushProvider provider : configuration.getProviders()) {
+                        provider.checkManifest(handler);
+                    }
+
+                    final String error = checkEventListener(context, configuration);
+                    if (error != null) {
+                        handler.onCheckManifestError(error);
+                    }
+                } catch (RuntimeException e) {
+                    OPFLog.e("Manifest check has failed", e);
+                    handler.onCheckManifestError("Manifest check has failed : " + e);
+                }
+
+                OPFLog.d("Manifest check for version %s is passed : %s", versionStamp, !handler.hasErrors);
+                settings.edit().saveManifestCheckResult(versionStamp, !handler.hasErrors).commit();
+            }
+        });
+        executor.shutdown();
+        return future;
+    }
+
+    /**
+     * Checks that exactly one of OPFReceiver and event listener is set.
+     *
+     * @return The error message or {@code null} if there is no error.
+     */
+    @Nullable
+    private static String checkEventListener(@NonNull final Context context,
+                                             @NonNull final Configuration configuration) {
+        final boolean isOPFReceiverRegistered = isOPFReceiverRegistered(context);
+        final boolean hasEventListener = configuration.getEventListener() != null;
+
+        OPFLog.d("isOPFReceiverRegistered == " + isOPFReceiverRegistered
+                + "; hasEventListener == " + hasEventListener);
+        if (isOPFReceiverRegistered && hasEventListener) {
+            return RECEIVER_AND_LISTENER_ERROR;
+        } else if (!isOPFReceiverRegistered && !hasEventListener) {
+            return NO_RECEIVER_AND_LISTENER_ERROR;
+        }
+        return null;
+    }
+
+    private static boolean isOPFReceiverRegistered(@NonNull final Context context) {
+        OPFLog.logMethod();
+        final ManifestSnapshot manifestSnapshot = ManifestSnapshot.getInstance(context);
+        return manifestSnapshot.hasReceiver(null, new Intent(ACTION_RECEIVE), null)
+                && manifestSnapshot.hasReceiver(null, new Intent(ACTION_REGISTRATION), null)
+                && manifestSnapshot.hasReceiver(null, new Intent(ACTION_UNREGISTRATION), null)
+                && manifestSnapshot.hasReceiver(null, new Intent(ACTION_NO_AVAILABLE_PROVIDER), null);
+    }
+
+    /**
+     * Returns the string which changes with every installation of the application.
+     * It's based on the application package file, so it doesn't require a call of the package manager.
+     */
+    @NonNull
+    private static String getVersionStamp(@NonNull final Context context) {
+        final String sourceDir = context.getApplicationInfo().sourceDir;
+        final long lastModified = sourceDir == null ? 0 : new File(sourceDir).lastModified();
+        return sourceDir + '@' + lastModified;
+    }
+
+    /**
+     * Remembers whether there were errors and passes them to the wrapped handler.
+     */
+    private static final class ReportingCheckManifestHandler implements CheckManifestHandler {
+
+        @Nullable
+        private final CheckManifestHandler handler;
+
+        private volatile boolean hasErrors;
+
+        ReportingCheckManifestHandler(@Nullable final CheckManifestHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void onCheckManifestError(@NonNull final String reportMessage) {
+            hasErrors = true;
+            if (handler == null) {
+                OPFLog.e(reportMessage);
+            } else {
+                handler.onCheckManifestError(reportMessage);
+            }
+        }
+    }
+}
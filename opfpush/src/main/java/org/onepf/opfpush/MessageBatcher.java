@@ -0,0 +1,211 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.onepf.opfpush.listener.BatchEventListener;
+import org.onepf.opfpush.listener.EventListener;
+import org.onepf.opfpush.model.UnrecoverablePushError;
+import org.onepf.opfutils.OPFLog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Coalesces the messages which arrive within the batching window into one
+ * {@link BatchEventListener#onMessages(Context, String, List)} call.
+ * <p/>
+ * The batch is delivered when the window since its first message expires, when it reaches the maximum size,
+ * when a message of another provider arrives or before any other event, so the order of the events is kept.
+ * The window is tracked with a single reusable {@link Runnable} posted to the main looper. If the flush executor
+ * is set, the expired window is flushed on it, so the main thread isn't used when the events mustn't go there.
+ * The batch is taken under the lock and is passed to the listener after the lock is released.
+ *
+ * @since 18.10.2026
+ */
+final class MessageBatcher implements EventListener {
+
+    @NonNull
+    private final BatchEventListener eventListener;
+
+    private final long windowMillis;
+
+    private final int maxBatchSize;
+
+    @Nullable
+    private final Executor flushExecutor;
+
+    @NonNull
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    @NonNull
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    @NonNull
+    private final Runnable windowRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (flushExecutor == null) {
+                flush();
+            } else {
+                flushExecutor.execute(flushRunnable);
+            }
+        }
+    };
+
+    @Nullable
+    private Context batchContext;
+
+    @Nullable
+    private String batchProviderName;
+
+    @Nullable
+    private List<Bundle> batch;
+
+    MessageBatcher(@NonNull final BatchEventListener eventListener,
+                   final long windowMillis,
+                   final int maxBatchSize,
+                   @Nullable final Executor flushExecutor) {
+        this.eventListener = eventListener;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.flushExecutor = flushExecutor;
+    }
+
+    @Override
+    public void onMessage(@NonNull final Context context,
+                          @NonNull final String providerName,
+                          @Nullable final Bundle extras) {
+        Batch previousBatch = null;
+        Batch fullBatch = null;
+        synchronized (this) {
+            if (batch != null && !providerName.equals(batchProviderName)) {
+                previousBatch = takeBatch();
+            }
+
+            if (batch == null) {
+                batch = new ArrayList<>(Math.min(maxBatchSize, 16));
+                batchContext = context;
+                batchProviderName = providerName;
+                handler.postDelayed(windowRunnable, windowMillis);
+            }
+            batch.add(extras == null ? Bundle.EMPTY : extras);
+            if (batch.size() >= maxBatchSize) {
+                fullBatch = takeBatch();
+            }
+        }
+
+        deliver(previousBatch);
+        deliver(fullBatch);
+    }
+
+    @Override
+    public void onDeletedMessages(@NonNull final Context context,
+                                  @NonNull final String providerName,
+                                  final int messagesCount) {
+        flush();
+        eventListener.onDeletedMessages(context, providerName, messagesCount);
+    }
+
+    @Override
+    public void onRegistered(@NonNull final Context context,
+                             @NonNull final String providerName,
+                             @NonNull final String registrationId) {
+        flush();
+        eventListener.onRegistered(context, providerName, registrationId);
+    }
+
+    @Override
+    public void onUnregistered(@NonNull final Context context,
+                               @NonNull final String providerName,
+                               @Nullable final String registrationId) {
+        flush();
+        eventListener.onUnregistered(context, providerName, registrationId);
+    }
+
+    @Override
+    public void onNoAvailableProvider(@NonNull final Context context,
+                                      @NonNull final Map<String, UnrecoverablePushError> pushErrors) {
+        flush();
+        eventListener.onNoAvailableProvider(context, pushErrors);
+    }
+
+    /**
+     * Delivers the pending batch if there is one.
+     */
+    void flush() {
+        final Batch pendingBatch;
+        synchronized (this) {
+            pendingBatch = takeBatch();
+        }
+        deliver(pendingBatch);
+    }
+
+    @Nullable
+    private Batch takeBatch() {
+        if (batch == null || batchContext == null || batchProviderName == null) {
+            return null;
+        }
+
+        handler.removeCallbacks(windowRunnable);
+        final Batch pendingBatch = new Batch(batchContext, batchProviderName, batch);
+        batch = null;
+        batchContext = null;
+        batchProviderName = null;
+        return pendingBatch;
+    }
+
+    private void deliver(@Nullable final Batch pendingBatch) {
+        if (pendingBatch != null) {
+            OPFLog.d("Flush %d messages of provider %s", pendingBatch.messages.size(), pendingBatch.providerName);
+            eventListener.onMessages(pendingBatch.context, pendingBatch.providerName, pendingBatch.messages);
+        }
+    }
+
+    private static final class Batch {
+
+        @NonNull
+        private final Context context;
+
+        @NonNull
+        private final String providerName;
+
+        @NonNull
+        private final List<Bundle> messages;
+
+        private Batch(@NonNull final Context context,
+                      @NonNull final String providerName,
+                      @NonNull final List<Bundle> messages) {
+            this.context = context;
+            this.providerName = providerName;
+            this.messages = messages;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.onepf.opfpush.utils.RecordsStorage;
+import org.onepf.opfutils.OPFLog;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Remembers the IDs of the last received messages and recognizes the duplicates.
+ * <p/>
+ * The IDs are kept in an LRU set of a fixed capacity. A bloom filter sized for this capacity answers
+ * the common "new message" case without touching the set; it's rebuilt from the set when it becomes
+ * too full because of the evicted IDs. The set is persisted asynchronously in the {@link RecordsStorage},
+ * so the duplicates are recognized after a restart too.
+ * <p/>
+ * An ID is remembered in two steps. {@link #isDuplicate(String)} reserves it in memory, so the concurrent
+ * copies of the message are recognized. {@link #markSeen(String)} adds it to the persisted set after
+ * the message has been journaled, so a message lost by a process death isn't ignored when it's redelivered.
+ *
+ * @since 18.10.2026
+ */
+final class MessageDeduplicator {
+
+    private static final String KEY_MESSAGE_IDS = "message_ids";
+    private static final int VERSION = 1;
+
+    private static final int BITS_PER_ID = 10;
+    private static final int HASH_FUNCTIONS_COUNT = 3;
+
+    private final int capacity;
+
+    @NonNull
+    private final RecordsStorage recordsStorage;
+
+    @NonNull
+    private final LinkedHashMap<String, Boolean> messageIds;
+
+    @NonNull
+    private final Set<String> reservedIds = new HashSet<>();
+
+    @NonNull
+    private final long[] bloomBits;
+
+    private final int bloomBitsCount;
+
+    private int bloomInsertionsCount;
+
+    @NonNull
+    private final ExecutorService persistExecutor = Executors.newSingleThreadExecutor();
+
+    @Nullable
+    private Future<?> pendingPersist;
+
+    MessageDeduplicator(@NonNull final Context context, final int capacity) {
+        this.capacity = capacity;
+        this.recordsStorage = new RecordsStorage(context);
+        this.messageIds = new LinkedHashMap<String, Boolean>(capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Boolean> eldest) {
+                return size() > MessageDeduplicator.this.capacity;
+            }
+        };
+        this.bloomBitsCount = Math.max(Long.SIZE, capacity * BITS_PER_ID);
+        this.bloomBits = new long[(bloomBitsCount + Long.SIZE - 1) / Long.SIZE];
+        restore();
+    }
+
+    /**
+     * Returns {@code true} if a message with the same ID has been received recently.
+     * Reserves the ID otherwise. The reserved ID must be passed to {@link #markSeen(String)}.
+     *
+     * @param messageId The ID of the received message.
+     * @return {@code true} if the message is a duplicate, {@code false} otherwise.
+     */
+    synchronized boolean isDuplicate(@NonNull final String messageId) {
+        if (mightContain(messageId) && messageIds.get(messageId) != null || !reservedIds.add(messageId)) {
+            OPFLog.d("Duplicate message " + messageId);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Remembers the reserved ID and schedules its persisting.
+     *
+     * @param messageId The ID which has been reserved by {@link #isDuplicate(String)}.
+     */
+    synchronized void markSeen(@NonNull final String messageId) {
+        reservedIds.remove(messageId);
+        messageIds.put(messageId, Boolean.TRUE);
+        addToBloomFilter(messageId);
+        schedulePersist();
+    }
+
+    private boolean mightContain(@NonNull final String messageId) {
+        final int hash = messageId.hashCode();
+        final int secondHash = mix(hash);
+        for (int i = 0; i < HASH_FUNCTIONS_COUNT; i++) {
+            final int bit = getBitIndex(hash, secondHash, i);
+            if ((bloomBits[bit / Long.SIZE] & (1L << (bit % Long.SIZE))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void addToBloomFilter(@NonNull final String messageId) {
+        // The evicted IDs stay in the filter, so it's rebuilt before the false positives become frequent.
+        if (++bloomInsertionsCount > capacity * 2) {
+            rebuildBloomFilter();
+            return;
+        }
+
+        setBits(messageId);
+    }
+
+    private void rebuildBloomFilter() {
+        for (int i = 0; i < bloomBits.length; i++) {
+            bloomBits[i] = 0;
+        }
+        for (String messageId : messageIds.keySet()) {
+            setBits(messageId);
+        }
+        bloomInsertionsCount = messageIds.size();
+    }
+
+    private void setBits(@NonNull final String messageId) {
+        final int hash = messageId.hashCode();
+        final int secondHash = mix(hash);
+        for (int i = 0; i < HASH_FUNCTIONS_COUNT; i++) {
+            final int bit = getBitIndex(hash, secondHash, i);
+            bloomBits[bit / Long.SIZE] |= 1L << (bit % Long.SIZE);
+        }
+    }
+
+    private int getBitIndex(final int hash, final int secondHash, final int index) {
+        return ((hash + index * secondHash) & Integer.MAX_VALUE) % bloomBitsCount;
+    }
+
+    private static int mix(final int hash) {
+        int mixed = hash * 0x9E3779B9;
+        mixed ^= mixed >>> 16;
+        return mixed | 1;
+    }
+
+    private void restore() {
+        final List<String[]> records = recordsStorage.load(KEY_MESSAGE_IDS, VERSION, 1);
+        if (records.isEmpty()) {
+            return;
+        }
+
+        for (String[] fields : records) {
+            messageIds.put(fields[0], Boolean.TRUE);
+        }
+        rebuildBloomFilter();
+        OPFLog.d("Restored %d message IDs", messageIds.size());
+    }
+
+    /**
+     * Writes the snapshot on the background thread. The IDs which are received while the write is pending
+     * get into the same snapshot.
+     */
+    private void schedulePersist() {
+        if (pendingPersist != null && !pendingPersist.isDone()) {
+            return;
+        }
+
+        pendingPersist = persistExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                final List<String[]> snapshot;
+                synchronized (MessageDeduplicator.this) {
+                    pendingPersist = null;
+                    snapshot = createSnapshot();
+                }
+                recordsStorage.save(KEY_MESSAGE_IDS, VERSION, snapshot);
+            }
+        });
+    }
+
+    @NonNull
+    private List<String[]> createSnapshot() {
+        final List<String[]> records = new ArrayList<>(messageIds.size());
+        for (String messageId : messageIds.keySet()) {
+            records.add(new String[]{messageId});
+        }
+        return records;
+    }
+
+    /**
+     * Blocks the calling thread until the pending snapshot is written.
+     */
+    void flush() {
+        try {
+            persistExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    //barrier, all previous tasks are already completed
+                }
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            OPFLog.e("Error while flushing message IDs", e);
+        }
+    }
+}
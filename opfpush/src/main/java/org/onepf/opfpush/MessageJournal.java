@@ -0,0 +1,596 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Pair;
+
+import org.onepf.opfpush.codec.MessageCodec;
+import org.onepf.opfutils.OPFLog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * The append-only file of the received messages which haven't been handled by the listener yet.
+ * <p/>
+ * A message is appended and synced to the disk before it's dispatched, and an acknowledgement record
+ * is appended after the listener has handled it. The messages without acknowledgement are replayed
+ * on the next initialization.
+ * <p/>
+ * The appends use group commit: the records of all concurrent appenders are written and synced by one of them,
+ * so a burst of messages costs one {@code fsync} instead of one per message. The acknowledgements aren't
+ * waited for, they're written with the next sync or in the background, because a lost acknowledgement
+ * only causes a repeated delivery. A torn record at the end of the file is detected by its checksum and ignored.
+ * <p/>
+ * The journal is restored and compacted in the background. The compaction rewrites the unacknowledged messages
+ * with their IDs to a new file and replaces the journal with it, so the journal stays valid if the replacement fails.
+ *
+ * @since 18.10.2026
+ */
+final class MessageJournal {
+
+    private static final String FILE_NAME = "opfpush_journal";
+
+    private static final byte RECORD_MESSAGE = 1;
+    private static final byte RECORD_ACK = 2;
+
+    /**
+     * The file is compacted when it has grown by this value since the previous compaction.
+     */
+    private static final long COMPACTION_THRESHOLD_BYTES = 64 * 1024;
+
+    @NonNull
+    private final File file;
+
+    @NonNull
+    private final ExecutorService ackExecutor = Executors.newSingleThreadExecutor();
+
+    @NonNull
+    private final Runnable ackSyncRunnable = new Runnable() {
+        @Override
+        public void run() {
+            final long sequence;
+            synchronized (MessageJournal.this) {
+                isAckSyncScheduled = false;
+                sequence = appendedSequence;
+            }
+            sync(sequence);
+        }
+    };
+
+    @NonNull
+    private final Runnable compactionRunnable = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (MessageJournal.this) {
+                isCompactionScheduled = false;
+                while (isSyncing) {
+                    waitForJournal();
+                }
+                isSyncing = true;
+            }
+
+            try {
+                compact();
+            } finally {
+                synchronized (MessageJournal.this) {
+                    isSyncing = false;
+                    notifyAll();
+                }
+            }
+        }
+    };
+
+    /**
+     * The records which have been appended, but haven't been written to the file yet.
+     */
+    @NonNull
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    @NonNull
+    private final DataOutputStream bufferOutput = new DataOutputStream(buffer);
+
+    /**
+     * The IDs of the dispatched messages by their extras.
+     */
+    @NonNull
+    private final Map<Bundle, Long> dispatchedMessages = new IdentityHashMap<>();
+
+    /**
+     * The messages which hadn't been acknowledged before the journal was opened,
+     * {@code null} until the journal is restored.
+     */
+    @Nullable
+    private List<Pair<String, Bundle>> unacknowledgedMessages;
+
+    @Nullable
+    private FileOutputStream output;
+
+    private long compactedLength;
+
+    private long nextId;
+
+    private long appendedSequence;
+
+    private long syncedSequence;
+
+    private boolean isSyncing;
+
+    private boolean isAckSyncScheduled;
+
+    private boolean isCompactionScheduled;
+
+    /**
+     * Opens the journal and starts its restoring in the background.
+     */
+    MessageJournal(@NonNull final Context context) {
+        file = new File(context.getFilesDir(), FILE_NAME);
+        ackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                restore();
+            }
+        });
+    }
+
+    /**
+     * Returns the messages which hadn't been acknowledged before the journal was opened.
+     * They are acknowledged the same way as the appended ones. Blocks until the journal is restored.
+     *
+     * @return The pairs of the provider name and the message extras in the order of receiving.
+     */
+    @NonNull
+    synchronized List<Pair<String, Bundle>> getUnacknowledgedMessages() {
+        while (unacknowledgedMessages == null) {
+            waitForJournal();
+        }
+        return unacknowledgedMessages;
+    }
+
+    /**
+     * Passes the unacknowledged messages to the listener on the journal thread when the journal is restored.
+     */
+    void whenRestored(@NonNull final RestoreListener listener) {
+        ackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                listener.onRestored(getUnacknowledgedMessages());
+            }
+        });
+    }
+
+    /**
+     * Appends the message to the journal. Returns when the message is synced to the disk.
+     * The messages which extras can't be encoded by the {@link MessageCodec} aren't journaled.
+     * If the file can't be written, the record is kept in memory and written with the next sync.
+     *
+     * @param providerName The name of the provider which has received the message.
+     * @param extras       The message extras. The same instance must be passed to {@link #acknowledge(Bundle)}.
+     * @return {@code true} if the message is synced to the disk, false otherwise.
+     */
+    boolean append(@NonNull final String providerName, @NonNull final Bundle extras) {
+        final byte[] payload;
+        try {
+            payload = encodeMessage(providerName, extras);
+        } catch (IllegalArgumentException e) {
+            OPFLog.w("Can't journal message of provider " + providerName, e);
+            return false;
+        }
+
+        final long sequence;
+        synchronized (this) {
+            while (unacknowledgedMessages == null) {
+                waitForJournal();
+            }
+
+            final long id = nextId++;
+            try {
+                writeMessageRecord(bufferOutput, id, payload);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            dispatchedMessages.put(extras, id);
+            sequence = ++appendedSequence;
+        }
+        return sync(sequence);
+    }
+
+    /**
+     * Marks the message as handled. Does nothing if the message isn't in the journal.
+     *
+     * @param extras The extras which have been passed to {@link #append(String, Bundle)}.
+     */
+    void acknowledge(@Nullable final Bundle extras) {
+        if (extras == null) {
+            return;
+        }
+
+        synchronized (this) {
+            final Long id = dispatchedMessages.remove(extras);
+            if (id == null) {
+                return;
+            }
+
+            try {
+                bufferOutput.writeByte(RECORD_ACK);
+                bufferOutput.writeLong(id);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            ++appendedSequence;
+            if (!isAckSyncScheduled) {
+                isAckSyncScheduled = true;
+                ackExecutor.execute(ackSyncRunnable);
+            }
+        }
+    }
+
+    /**
+     * Writes and syncs all records which have been appended before this call.
+     *
+     * @return {@code true} if the records are synced to the disk, false otherwise.
+     */
+    boolean flush() {
+        final long sequence;
+        synchronized (this) {
+            sequence = appendedSequence;
+        }
+        return sync(sequence);
+    }
+
+    synchronized int getPendingCount() {
+        return dispatchedMessages.size();
+    }
+
+    /**
+     * Blocks until the record with the {@code sequence} is synced. If nobody is syncing, the calling thread
+     * writes and syncs all buffered records, otherwise it waits for the current sync and repeats.
+     * If the write fails, the records are returned to the buffer, so they are written with the next sync.
+     * If the file has grown enough, the compaction is scheduled.
+     *
+     * @return {@code true} if the record is synced, false if the write has failed.
+     */
+    private boolean sync(final long sequence) {
+        byte[] records;
+        long targetSequence;
+        synchronized (this) {
+            while (true) {
+                if (syncedSequence >= sequence) {
+                    return true;
+                }
+                if (!isSyncing) {
+                    break;
+                }
+                waitForJournal();
+            }
+
+            isSyncing = true;
+            records = buffer.toByteArray();
+            buffer.reset();
+            targetSequence = appendedSequence;
+        }
+
+        boolean isWritten = false;
+        boolean isCompactionNeeded = false;
+        try {
+            isWritten = writeToFile(records);
+        } finally {
+            synchronized (this) {
+                if (isWritten) {
+                    syncedSequence = targetSequence;
+                    isCompactionNeeded = !isCompactionScheduled
+                            && file.length() - compactedLength > COMPACTION_THRESHOLD_BYTES;
+                    if (isCompactionNeeded) {
+                        isCompactionScheduled = true;
+                        ackExecutor.execute(compactionRunnable);
+                    }
+                } else {
+                    final byte[] laterRecords = buffer.toByteArray();
+                    buffer.reset();
+                    buffer.write(records, 0, records.length);
+                    buffer.write(laterRecords, 0, laterRecords.length);
+                }
+                isSyncing = false;
+                notifyAll();
+            }
+        }
+
+        if (isWritten) {
+            OPFLog.d("Journal is synced up to %d, compaction : %b", targetSequence, isCompactionNeeded);
+        }
+        return isWritten;
+    }
+
+    private void waitForJournal() {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the journal", e);
+        }
+    }
+
+    /**
+     * Appends the records to the file. On failure the file is truncated to its previous length,
+     * so a partially written record doesn't hide the records which are written after it.
+     *
+     * @return {@code true} if the records are written and synced, false otherwise.
+     */
+    private boolean writeToFile(@NonNull final byte[] records) {
+        if (records.length == 0) {
+            return true;
+        }
+
+        long length = -1;
+        try {
+            if (output == null) {
+                output = new FileOutputStream(file, true);
+            }
+            length = output.getChannel().size();
+            output.write(records);
+            output.getFD().sync();
+            return true;
+        } catch (IOException e) {
+            OPFLog.e("Can't write journal", e);
+            rollback(length);
+            return false;
+        }
+    }
+
+    private void rollback(final long length) {
+        final FileOutputStream failedOutput = output;
+        output = null;
+        if (failedOutput == null) {
+            return;
+        }
+
+        try {
+            if (length >= 0) {
+                failedOutput.getChannel().truncate(length);
+            }
+        } catch (IOException e) {
+            OPFLog.e("Can't roll back journal", e);
+        }
+        close(failedOutput);
+    }
+
+    private static void close(@NonNull final FileOutputStream output) {
+        try {
+            output.close();
+        } catch (IOException e) {
+            OPFLog.w("Can't close journal", e);
+        }
+    }
+
+    /**
+     * Reads the journal and rewrites it with the unacknowledged messages only.
+     * The messages keep their IDs, so the journal stays valid if it can't be rewritten.
+     */
+    private void restore() {
+        final Map<Long, Pair<String, Bundle>> messages = new LinkedHashMap<>();
+        if (file.exists()) {
+            long lastId;
+            try {
+                lastId = readRecords(messages);
+            } catch (IOException e) {
+                OPFLog.e("Can't read journal", e);
+                lastId = messages.isEmpty() ? -1 : Collections.max(messages.keySet());
+            }
+            synchronized (this) {
+                nextId = lastId + 1;
+                for (Map.Entry<Long, Pair<String, Bundle>> entry : messages.entrySet()) {
+                    dispatchedMessages.put(entry.getValue().second, entry.getKey());
+                }
+            }
+            rewrite(messages);
+        }
+
+        synchronized (this) {
+            unacknowledgedMessages = Collections.unmodifiableList(new ArrayList<>(messages.values()));
+            notifyAll();
+        }
+        OPFLog.d("Restored %d unacknowledged messages", messages.size());
+    }
+
+    /**
+     * Rewrites the journal with the messages which haven't been acknowledged yet.
+     * The records which are appended meanwhile are written to the compacted file with the next sync.
+     * Must be called by the syncing thread.
+     */
+    private void compact() {
+        final Map<Long, Pair<String, Bundle>> messages = new LinkedHashMap<>();
+        try {
+            readRecords(messages);
+        } catch (IOException e) {
+            OPFLog.e("Can't read journal for compaction", e);
+            return;
+        }
+        synchronized (this) {
+            messages.keySet().retainAll(new HashSet<>(dispatchedMessages.values()));
+        }
+        rewrite(messages);
+        OPFLog.d("Journal is compacted to %d messages", messages.size());
+    }
+
+    /**
+     * Writes the messages to a new file and replaces the journal with it.
+     * If the journal can't be replaced, the records are appended to the original file.
+     * Must be called by the syncing thread.
+     */
+    private void rewrite(@NonNull final Map<Long, Pair<String, Bundle>> messages) {
+        final File compactedFile = new File(file.getPath() + ".tmp");
+        try {
+            final FileOutputStream compactedOutput = new FileOutputStream(compactedFile);
+            try {
+                final DataOutputStream recordsOutput = new DataOutputStream(new BufferedOutputStream(compactedOutput));
+                for (Map.Entry<Long, Pair<String, Bundle>> entry : messages.entrySet()) {
+                    final Pair<String, Bundle> message = entry.getValue();
+                    writeMessageRecord(recordsOutput, entry.getKey(), encodeMessage(message.first, message.second));
+                }
+                recordsOutput.flush();
+                compactedOutput.getFD().sync();
+            } finally {
+                compactedOutput.close();
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            OPFLog.e("Can't compact journal", e);
+            //noinspection ResultOfMethodCallIgnored
+            compactedFile.delete();
+            return;
+        }
+
+        // The stream of the replaced file must not be appended to.
+        if (output != null) {
+            close(output);
+            output = null;
+        }
+        if (compactedFile.renameTo(file)) {
+            synchronized (this) {
+                compactedLength = file.length();
+            }
+        } else {
+            OPFLog.w("Can't replace journal, keep appending to it");
+            //noinspection ResultOfMethodCallIgnored
+            compactedFile.delete();
+        }
+    }
+
+    /**
+     * Reads the messages which haven't been acknowledged by their IDs. The reading stops at a broken record.
+     *
+     * @return The greatest ID in the journal or {@code -1} if the journal has no records.
+     * @throws IOException If the file can't be read.
+     */
+    private long readRecords(@NonNull final Map<Long, Pair<String, Bundle>> messages) throws IOException {
+        long lastId = -1;
+        try {
+            final DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                while (true) {
+                    final byte type = input.readByte();
+                    final long id = input.readLong();
+                    if (type == RECORD_ACK) {
+                        messages.remove(id);
+                    } else if (type == RECORD_MESSAGE) {
+                        final byte[] payload = new byte[input.readInt()];
+                        input.readFully(payload);
+                        if (input.readLong() != checksum(payload)) {
+                            OPFLog.w("Broken journal record " + id);
+                            break;
+                        }
+                        lastId = Math.max(lastId, id);
+                        final Pair<String, Bundle> message = decodeMessage(payload);
+                        if (message != null) {
+                            messages.put(id, message);
+                        }
+                    } else {
+                        OPFLog.w("Unknown journal record type " + type);
+                        break;
+                    }
+                }
+            } finally {
+                input.close();
+            }
+        } catch (EOFException e) {
+            OPFLog.d("End of journal");
+        } catch (RuntimeException e) {
+            OPFLog.w("Broken journal", e);
+        }
+        return lastId;
+    }
+
+    private static void writeMessageRecord(@NonNull final DataOutputStream output,
+                                           final long id,
+                                           @NonNull final byte[] payload) throws IOException {
+        output.writeByte(RECORD_MESSAGE);
+        output.writeLong(id);
+        output.writeInt(payload.length);
+        output.write(payload);
+        output.writeLong(checksum(payload));
+    }
+
+    private static long checksum(@NonNull final byte[] payload) {
+        final CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return crc.getValue();
+    }
+
+    /**
+     * Encodes the message as the provider name in the modified UTF-8 followed by the extras
+     * in the {@link MessageCodec} format.
+     */
+    @NonNull
+    private static byte[] encodeMessage(@NonNull final String providerName, @NonNull final Bundle extras) {
+        final byte[] encodedExtras = MessageCodec.encode(extras);
+        final ByteArrayOutputStream payload = new ByteArrayOutputStream(providerName.length() + encodedExtras.length + 2);
+        final DataOutputStream payloadOutput = new DataOutputStream(payload);
+        try {
+            payloadOutput.writeUTF(providerName);
+            payloadOutput.write(encodedExtras);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return payload.toByteArray();
+    }
+
+    @Nullable
+    private static Pair<String, Bundle> decodeMessage(@NonNull final byte[] payload) {
+        final ByteArrayInputStream payloadInput = new ByteArrayInputStream(payload);
+        try {
+            final String providerName = new DataInputStream(payloadInput).readUTF();
+            final byte[] encodedExtras = new byte[payloadInput.available()];
+            if (payloadInput.read(encodedExtras, 0, encodedExtras.length) != encodedExtras.length) {
+                return null;
+            }
+            return new Pair<>(providerName, MessageCodec.decodeBundle(encodedExtras));
+        } catch (IOException | IllegalArgumentException e) {
+            OPFLog.w("Can't decode journal record", e);
+            return null;
+        }
+    }
+
+    /**
+     * The listener of the journal restoring.
+     */
+    interface RestoreListener {
+
+        void onRestored(@NonNull List<Pair<String, Bundle>> messages);
+    }
+}
@@ -43,6 +43,7 @@ public final class OPFConstants {
 
     public static final String ACTION_RETRY_REGISTER = BuildConfig.APPLICATION_ID + "intent.RETRY_REGISTER";
     public static final String ACTION_RETRY_UNREGISTER = BuildConfig.APPLICATION_ID + "intent.RETRY_UNREGISTER";
+    public static final String ACTION_RUN_SCHEDULED_TASKS = BuildConfig.APPLICATION_ID + "intent.RUN_SCHEDULED_TASKS";
 
     static final String ACTION_CHECK_REGISTERING_TIMEOUT = BuildConfig.APPLICATION_ID + "intent.CHECK_REGISTERING_TIMEOUT";
 
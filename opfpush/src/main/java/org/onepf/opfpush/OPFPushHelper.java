@@ -117,6 +117,41 @@ public abstract class OPFPushHelper {
      */
     public abstract boolean isRegistering();
 
+    /**
+     * Returns the count of the received messages which wait for the delivery to the listener.
+     * Is always 0 if the inbound message queue isn't bounded.
+     *
+     * @return The depth of the inbound message queue.
+     * @see org.onepf.opfpush.configuration.Configuration.Builder#setInboundQueue
+     */
+    public abstract int getPendingMessagesCount();
+
+    /**
+     * Returns the count of the received messages which have been dropped or collapsed because
+     * the inbound message queue was full.
+     *
+     * @return The count of the dropped messages.
+     */
+    public abstract long getDroppedMessagesCount();
+
+    /**
+     * Returns the count of the provider availability checks which have been answered by the availability cache.
+     * Is always 0 if the cache is disabled.
+     *
+     * @return The count of the availability cache hits.
+     * @see org.onepf.opfpush.configuration.Configuration.Builder#setAvailabilityCacheTtlMillis(long)
+     */
+    public abstract long getAvailabilityCacheHitsCount();
+
+    /**
+     * Returns the count of the provider availability checks which have been performed by the provider
+     * because the availability cache had no actual value.
+     * Is always 0 if the cache is disabled.
+     *
+     * @return The count of the availability cache misses.
+     */
+    public abstract long getAvailabilityCacheMissesCount();
+
     abstract void init(@NonNull final Configuration initialConfiguration);
 
     abstract boolean isInitDone();
@@ -134,6 +169,10 @@ public abstract class OPFPushHelper {
     @Nullable
     abstract String getProviderNameByHostApp(@Nullable final String appPackage);
 
+    abstract void invalidateAvailability(@NonNull final String providerName);
+
+    abstract void onRegistrationTimeout(@NonNull final String providerName);
+
     /**
      * Handles messages that were received by a push provider receiver.
      */
@@ -17,14 +17,18 @@
 package org.onepf.opfpush;
 
 import android.content.Context;
-import android.content.Intent;
+import android.os.Build;
 import android.os.Bundle;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.text.TextUtils;
+import android.util.Pair;
 
+import org.onepf.opfpush.backoff.BackoffManager;
 import org.onepf.opfpush.backoff.InfinityExponentialBackoffManager;
 import org.onepf.opfpush.backoff.RetryManager;
+import org.onepf.opfpush.codec.PayloadChunker;
+import org.onepf.opfpush.codec.PayloadCompressor;
 import org.onepf.opfpush.configuration.Configuration;
 import org.onepf.opfpush.listener.EventListener;
 import org.onepf.opfpush.model.AvailabilityResult;
@@ -33,7 +37,6 @@ import org.onepf.opfpush.model.PushError;
 import org.onepf.opfpush.model.State;
 import org.onepf.opfpush.model.UnrecoverablePushError;
 import org.onepf.opfpush.pushprovider.PushProvider;
-import org.onepf.opfutils.OPFChecks;
 import org.onepf.opfutils.OPFLog;
 import org.onepf.opfutils.OPFUtils;
 import org.onepf.opfutils.exception.InitException;
@@ -50,16 +53,13 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import static android.provider.Settings.Secure;
 import static android.provider.Settings.Secure.ANDROID_ID;
-import static org.onepf.opfpush.OPFConstants.ACTION_NO_AVAILABLE_PROVIDER;
-import static org.onepf.opfpush.OPFConstants.ACTION_RECEIVE;
-import static org.onepf.opfpush.OPFConstants.ACTION_REGISTRATION;
-import static org.onepf.opfpush.OPFConstants.ACTION_UNREGISTRATION;
 import static org.onepf.opfpush.model.Operation.REGISTER;
 import static org.onepf.opfpush.model.Operation.UNREGISTER;
 import static org.onepf.opfpush.model.State.REGISTERED;
 import static org.onepf.opfpush.model.State.REGISTERING;
 import static org.onepf.opfpush.model.State.UNREGISTERED;
 import static org.onepf.opfpush.model.UnrecoverablePushError.Type.AVAILABILITY_ERROR;
+import static org.onepf.opfpush.model.UnrecoverablePushError.Type.RETRIES_EXHAUSTED;
 
 /**
  * The helper class to manage push providers.
@@ -88,6 +88,12 @@ final class OPFPushHelperImpl extends OPFPushHelper {
     @Nullable
     private PushProvider currentProvider;
 
+    /**
+     * The provider which is registered in the background in the hot standby mode.
+     */
+    @Nullable
+    private PushProvider standbyProvider;
+
     @SuppressWarnings("NullableProblems")
     @NonNull
     private List<PushProvider> sortedProvidersList;
@@ -95,8 +101,9 @@ final class OPFPushHelperImpl extends OPFPushHelper {
     @NonNull
     private final Map<String, UnrecoverablePushError> registerProviderErrors = new HashMap<>();
 
+    @SuppressWarnings("NullableProblems")
     @NonNull
-    private final Map<String, String> providersByHostApps = new HashMap<>();
+    private ProvidersIndex providersIndex;
 
     private volatile Configuration configuration;
 
@@ -110,6 +117,37 @@ final class OPFPushHelperImpl extends OPFPushHelper {
     @NonNull
     private RetryManager retryManager;
 
+    @SuppressWarnings("NullableProblems")
+    @NonNull
+    private volatile AvailabilityCache availabilityCache;
+
+    @SuppressWarnings("NullableProblems")
+    @NonNull
+    private ProvidersAvailabilityChecker availabilityChecker;
+
+    @SuppressWarnings("NullableProblems")
+    @NonNull
+    private ProviderStatsTracker statsTracker;
+
+    @SuppressWarnings("NullableProblems")
+    @NonNull
+    private RegisteringTimeoutController registeringTimeoutController;
+
+    @Nullable
+    private volatile InboundMessageQueue inboundMessageQueue;
+
+    @Nullable
+    private volatile MessageDeduplicator messageDeduplicator;
+
+    @Nullable
+    private volatile MessageJournal messageJournal;
+
+    @Nullable
+    private volatile PayloadCompressor payloadCompressor;
+
+    @Nullable
+    private volatile ChunkReassembler chunkReassembler;
+
     @NonNull
     private final Object registrationLock = new Object();
 
@@ -186,6 +224,7 @@ final class OPFPushHelperImpl extends OPFPushHelper {
 
                 final String oldRegistrationId = currentProvider.getRegistrationId();
                 unregister(currentProvider.getName());
+                unregisterStandbyProvider();
                 fakeOnUnregistered(providerName, oldRegistrationId);
             } else {
                 OPFLog.w("Unregistration wasn't performed because already unregistered.");
@@ -277,6 +316,30 @@ final class OPFPushHelperImpl extends OPFPushHelper {
         return settings.getState() == REGISTERING;
     }
 
+    @Override
+    public int getPendingMessagesCount() {
+        final InboundMessageQueue queue = inboundMessageQueue;
+        return queue == null ? 0 : queue.getDepth();
+    }
+
+    @Override
+    public long getDroppedMessagesCount() {
+        final InboundMessageQueue queue = inboundMessageQueue;
+        return queue == null ? 0 : queue.getDroppedCount();
+    }
+
+    @Override
+    public long getAvailabilityCacheHitsCount() {
+        final AvailabilityCache cache = availabilityCache;
+        return cache == null ? 0 : cache.getHitsCount();
+    }
+
+    @Override
+    public long getAvailabilityCacheMissesCount() {
+        final AvailabilityCache cache = availabilityCache;
+        return cache == null ? 0 : cache.getMissesCount();
+    }
+
     @NonNull
     @Override
     public String toString() {
@@ -305,29 +368,62 @@ final class OPFPushHelperImpl extends OPFPushHelper {
             }
         }
 
-        final List<PushProvider> providers = configuration.getProviders();
-        for (PushProvider provider : providers) {
-            provider.checkManifest(configuration.getCheckManifestHandler());
-            providersByHostApps.put(provider.getHostAppPackage(), provider.getName());
+        if (configuration.isDeferredManifestCheck()) {
+            ManifestCheckController.checkManifestDeferred(appContext, settings, configuration);
+        } else {
+            ManifestCheckController.checkManifest(appContext, configuration);
         }
+        providersIndex = new ProvidersIndex(configuration.getProviders());
 
-        retryManager = RetryManager.init(appContext, InfinityExponentialBackoffManager.getInstance());
+        final BackoffManager backoffManager = configuration.getBackoffManager();
+        retryManager = RetryManager.init(
+                appContext,
+                backoffManager == null ? InfinityExponentialBackoffManager.getInstance() : backoffManager,
+                configuration.getPushMetrics()
+        );
 
         final EventListener eventListener = configuration.getEventListener();
-        final boolean isOPFReceiverRegistered = isOPFReceiverRegistered();
-
-        OPFLog.d("isOPFReceiverRegistered == " + isOPFReceiverRegistered
-                + "; eventListenerWrapper == " + eventListener);
-        if (isOPFReceiverRegistered && eventListener != null) {
-            throw new IllegalStateException("You can't register OPFReceiver and set event listener");
-        } else if (!isOPFReceiverRegistered && eventListener == null) {
-            throw new IllegalStateException("You must register OPFReceiver or set event listener");
-        }
 
+        statsTracker = new ProviderStatsTracker(settings);
+        registeringTimeoutController = new RegisteringTimeoutController(
+                appContext, configuration, retryManager.getAlarmScheduler()
+        );
         initSortedProviderList();
+        availabilityCache = new AvailabilityCache(configuration.getAvailabilityCacheTtlMillis());
+        availabilityChecker = new ProvidersAvailabilityChecker(
+                availabilityCache,
+                configuration.isParallelAvailabilityCheck(),
+                sortedProvidersList.size()
+        );
+        if (configuration.getDeduplicationKeyName() != null) {
+            messageDeduplicator = new MessageDeduplicator(appContext, configuration.getDeduplicationCapacity());
+        }
+        if (configuration.isMessageJournal()) {
+            messageJournal = new MessageJournal(appContext);
+        }
+        if (configuration.isPayloadCompression()) {
+            payloadCompressor = new PayloadCompressor();
+        }
+        if (configuration.getChunkReassemblyGroups() > 0) {
+            chunkReassembler = new ChunkReassembler(
+                    configuration.getChunkReassemblyGroups(),
+                    configuration.getChunkReassemblyTtlMillis(),
+                    configuration.getPushMetrics()
+            );
+        }
+        if (configuration.getInboundQueueCapacity() > 0) {
+            inboundMessageQueue = new InboundMessageQueue(
+                    configuration.getInboundQueueCapacity(),
+                    configuration.getOverflowPolicy(),
+                    configuration.getCollapseKeyName(),
+                    configuration.getPushMetrics(),
+                    messageJournal
+            );
+        }
         this.eventListenerWrapper = EventListenerWrapperCreator
-                .getEventListenerWrapper(eventListener);
+                .getEventListenerWrapper(eventListener, configuration, inboundMessageQueue, messageJournal);
         restoreLastProvider();
+        replayJournal();
         OPFLog.i("Init done.");
     }
 
@@ -366,6 +462,11 @@ final class OPFPushHelperImpl extends OPFPushHelper {
         OPFLog.logMethod();
         OPFLog.d("Current provider : " + currentProvider);
         settings.clear();
+        availabilityCache.invalidateAll();
+        if (standbyProvider != null) {
+            standbyProvider.onRegistrationInvalid();
+            standbyProvider = null;
+        }
         if (currentProvider != null) {
             currentProvider.onRegistrationInvalid();
             currentProvider = null;
@@ -379,50 +480,215 @@ final class OPFPushHelperImpl extends OPFPushHelper {
         synchronized (registrationLock) {
             OPFLog.logMethod(prevProviderName);
 
+            if (prevProviderName != null && promoteStandbyProvider(prevProviderName)) {
+                return;
+            }
+
             final int providersCount = sortedProvidersList.size();
             final int prevProviderPosition = getProviderPosition(sortedProvidersList, prevProviderName);
 
+            final List<PushProvider> candidates = new ArrayList<>(providersCount);
             for (int i = (prevProviderPosition + 1) % providersCount, j = 0;
                  j < providersCount;
                  i = (i + 1) % providersCount, j++) {
+                candidates.add(sortedProvidersList.get(i));
+            }
 
-                final PushProvider provider = sortedProvidersList.get(i);
-                final String providerName = provider.getName();
-                OPFLog.d("Provider name : " + providerName);
-
-                final AvailabilityResult providerAvailability = provider.getAvailabilityResult();
-                if (!providerAvailability.isAvailable()) {
-                    final Integer availabilityErrorCode = providerAvailability.getErrorCode();
-                    OPFLog.d("Provider isn't available. Error code : " + availabilityErrorCode);
-                    if (availabilityErrorCode != null) {
-                        registerProviderErrors.put(
-                                providerName,
-                                new UnrecoverablePushError(
-                                        AVAILABILITY_ERROR,
-                                        providerName,
-                                        availabilityErrorCode
-                                )
-                        );
-                    }
-                } else if (!registerProviderErrors.containsKey(providerName)) {
-                    OPFLog.d("Provider is available.");
-                    retryManager.cancelRetryRegister(providerName);
-                    register(provider);
-                    return;
+            final ProvidersAvailabilityChecker.Probe probe = availabilityChecker.check(candidates);
+            final String nextProviderName;
+            try {
+                nextProviderName = registerFirstAvailableCandidate(candidates, probe);
+            } finally {
+                probe.cancel();
+            }
+
+            if (nextProviderName != null) {
+                if (prevProviderName != null) {
+                    configuration.getPushMetrics().onFailover(prevProviderName, nextProviderName);
                 }
+                return;
             }
 
+            configuration.getPushMetrics().onNoAvailableProvider();
             settings.saveState(UNREGISTERED);
             OPFLog.w("No more available providers.");
             eventListenerWrapper.onNoAvailableProvider(appContext, registerProviderErrors);
         }
     }
 
+    /**
+     * Starts the registration of the first available candidate.
+     *
+     * @param candidates The candidates in the priority order.
+     * @param probe      The availability results of the candidates.
+     * @return The name of the provider which registration has been started or {@code null} if there is no one.
+     */
+    @Nullable
+    private String registerFirstAvailableCandidate(@NonNull final List<PushProvider> candidates,
+                                                    @NonNull final ProvidersAvailabilityChecker.Probe probe) {
+        final int candidatesCount = candidates.size();
+        for (int i = 0; i < candidatesCount; i++) {
+            final PushProvider provider = candidates.get(i);
+            final String providerName = provider.getName();
+            OPFLog.d("Provider name : " + providerName);
+
+            final AvailabilityResult providerAvailability = probe.get(i);
+            if (!providerAvailability.isAvailable()) {
+                final Integer availabilityErrorCode = providerAvailability.getErrorCode();
+                OPFLog.d("Provider isn't available. Error code : " + availabilityErrorCode);
+                if (availabilityErrorCode != null) {
+                    registerProviderErrors.put(
+                            providerName,
+                            new UnrecoverablePushError(
+                                    AVAILABILITY_ERROR,
+                                    providerName,
+                                    availabilityErrorCode
+                            )
+                    );
+                }
+            } else if (!registerProviderErrors.containsKey(providerName)) {
+                OPFLog.d("Provider is available.");
+                retryManager.cancelRetryRegister(providerName);
+                register(provider);
+                return providerName;
+            }
+        }
+        return null;
+    }
+
     @Nullable
     @Override
     String getProviderNameByHostApp(@Nullable final String appPackage) {
         OPFLog.logMethod(appPackage);
-        return providersByHostApps.get(appPackage);
+        final PushProvider provider = providersIndex.getProviderByHostApp(appPackage);
+        return provider == null ? null : provider.getName();
+    }
+
+    @Override
+    void invalidateAvailability(@NonNull final String providerName) {
+        OPFLog.logMethod(providerName);
+        availabilityCache.invalidate(providerName);
+    }
+
+    @Override
+    void onRegistrationTimeout(@NonNull final String providerName) {
+        OPFLog.logMethod(providerName);
+        configuration.getPushMetrics().onRegistrationTimeout(providerName);
+        registeringTimeoutController.onTimeout(providerName);
+    }
+
+    @NonNull
+    AvailabilityCache getAvailabilityCache() {
+        return availabilityCache;
+    }
+
+    /**
+     * Starts the background registration of the provider which follows the primary one
+     * in the priority order. Does nothing if the hot standby mode is disabled or if there is
+     * a standby provider already.
+     *
+     * @param primaryProvider The current provider or the provider which is being registered.
+     */
+    private void updateStandbyProvider(@NonNull final PushProvider primaryProvider) {
+        if (!configuration.isHotStandby()) {
+            return;
+        }
+
+        final String primaryProviderName = primaryProvider.getName();
+        if (standbyProvider != null && !isStandbyProvider(primaryProviderName)) {
+            return;
+        }
+
+        final int providersCount = sortedProvidersList.size();
+        final int primaryProviderPosition = getProviderPosition(sortedProvidersList, primaryProviderName);
+        for (int i = 1; i < providersCount; i++) {
+            final PushProvider provider = sortedProvidersList.get((primaryProviderPosition + i) % providersCount);
+            final String providerName = provider.getName();
+            if (provider == currentProvider
+                    || registerProviderErrors.containsKey(providerName)
+                    || !availabilityCache.getAvailabilityResult(provider).isAvailable()) {
+                continue;
+            }
+
+            OPFLog.i("Standby provider : " + providerName);
+            standbyProvider = provider;
+            settings.saveStandbyProvider(provider);
+            if (!provider.isRegistered()) {
+                statsTracker.onRegistrationStarted(providerName);
+                provider.register();
+            }
+            return;
+        }
+
+        OPFLog.i("There is no provider for standby");
+        standbyProvider = null;
+        settings.saveStandbyProvider(null);
+    }
+
+    /**
+     * Makes the registered standby provider the current one without a new registration.
+     *
+     * @param failedProviderName The name of the provider which has failed.
+     * @return {@code true} if the standby provider has become the current one, {@code false} otherwise.
+     */
+    private boolean promoteStandbyProvider(@NonNull final String failedProviderName) {
+        final PushProvider provider = standbyProvider;
+        if (provider == null || isStandbyProvider(failedProviderName)) {
+            return false;
+        }
+
+        final String registrationId = provider.getRegistrationId();
+        if (!provider.isRegistered() || TextUtils.isEmpty(registrationId)
+                || !availabilityCache.getAvailabilityResult(provider).isAvailable()) {
+            OPFLog.i("Standby provider %s isn't ready", provider);
+            return false;
+        }
+
+        final String providerName = provider.getName();
+        OPFLog.i("Switch from provider '%s' to standby provider '%s'.", failedProviderName, providerName);
+        configuration.getPushMetrics().onFailover(failedProviderName, providerName);
+        standbyProvider = null;
+        currentProvider = provider;
+        settings.edit()
+                .removeRegisteringProvider(failedProviderName)
+                .saveState(REGISTERED)
+                .saveLastAndroidId(Secure.getString(appContext.getContentResolver(), ANDROID_ID))
+                .saveLastProvider(provider)
+                .saveStandbyProvider(null)
+                .commit();
+        registerProviderErrors.clear();
+
+        eventListenerWrapper.onRegistered(appContext, providerName, registrationId);
+        updateStandbyProvider(provider);
+        return true;
+    }
+
+    private void unregisterStandbyProvider() {
+        final PushProvider provider = standbyProvider;
+        if (provider == null) {
+            return;
+        }
+
+        standbyProvider = null;
+        settings.saveStandbyProvider(null);
+        if (provider.isRegistered()) {
+            unregister(provider.getName());
+        }
+    }
+
+    private void restoreStandbyProvider() {
+        if (!configuration.isHotStandby() || currentProvider == null) {
+            return;
+        }
+
+        final String standbyProviderName = settings.getStandbyProviderName();
+        if (standbyProviderName != null && !standbyProviderName.equals(currentProvider.getName())) {
+            standbyProvider = getProvider(standbyProviderName);
+        }
+    }
+
+    private boolean isStandbyProvider(@NonNull final String providerName) {
+        return standbyProvider != null && providerName.equals(standbyProvider.getName());
     }
 
     private void cancelAllOperationsForProvider(@NonNull final String providerName) {
@@ -438,12 +704,25 @@ final class OPFPushHelperImpl extends OPFPushHelper {
     }
 
     private void onProviderUnavailable(@NonNull final PushProvider provider) {
+        onProviderUnavailable(provider, settings.edit());
+    }
+
+    /**
+     * Handles the unavailable provider. The changes of the settings are committed together with
+     * the changes which have been already collected in the {@code editor}.
+     *
+     * @param provider The unavailable provider.
+     * @param editor   The editor of the current state transition.
+     */
+    private void onProviderUnavailable(@NonNull final PushProvider provider,
+                                       @NonNull final Settings.Editor editor) {
         OPFLog.logMethod(provider);
         final String providerName = provider.getName();
 
         cancelAllOperationsForProvider(providerName);
-        settings.removeRegisteringProvider(providerName);
-        settings.removeUnregisteringProvider(providerName);
+        editor.removeRegisteringProvider(providerName)
+                .removeUnregisteringProvider(providerName)
+                .commit();
         provider.onUnavailable();
     }
 
@@ -458,10 +737,11 @@ final class OPFPushHelperImpl extends OPFPushHelper {
 
         OPFLog.d("Try restore last provider '%s'.", lastProvider);
 
-        if (lastProvider.getAvailabilityResult().isAvailable() && lastProvider.isRegistered()) {
+        if (availabilityCache.getAvailabilityResult(lastProvider).isAvailable() && lastProvider.isRegistered()) {
             OPFLog.i("Last provider is available and registered");
             currentProvider = lastProvider;
             settings.saveState(REGISTERED);
+            restoreStandbyProvider();
         } else {
             OPFLog.i("Last provider is unavailable or unregistered");
             settings.clear();
@@ -504,6 +784,12 @@ final class OPFPushHelperImpl extends OPFPushHelper {
 
         final String regId = provider.getRegistrationId();
         final String providerName = provider.getName();
+        if (isStandbyProvider(providerName)) {
+            OPFLog.d("Standby provider %s becomes primary", provider);
+            standbyProvider = null;
+            settings.saveStandbyProvider(null);
+        }
+
         if (settings.isProviderUnregistrationPerforming(providerName)) {
             OPFLog.i("Unregistration is being performed for provider %s", provider);
 
@@ -517,19 +803,23 @@ final class OPFPushHelperImpl extends OPFPushHelper {
 
             settings.removePendingRegistrationProvider();
             receivedMessageHandler.onRegistered(provider.getName(), regId);
-        } else if (provider.getAvailabilityResult().isAvailable()) {
+        } else if (availabilityCache.getAvailabilityResult(provider).isAvailable()) {
             OPFLog.i("Provider %s is available", provider);
 
-            settings.saveState(REGISTERING);
-            settings.removePendingRegistrationProvider();
-            settings.saveRegisteringProvider(providerName);
-            RegisteringTimeoutController.setTimeout(appContext, providerName);
+            settings.edit()
+                    .saveState(REGISTERING)
+                    .removePendingRegistrationProvider()
+                    .saveRegisteringProvider(providerName)
+                    .commit();
+            registeringTimeoutController.setTimeout(providerName);
+            statsTracker.onRegistrationStarted(providerName);
+            configuration.getPushMetrics().onRegistrationStarted(providerName);
             provider.register();
+            updateStandbyProvider(provider);
         } else {
             OPFLog.i("Provider %s is no available", provider);
 
-            settings.removePendingRegistrationProvider();
-            onProviderUnavailable(provider);
+            onProviderUnavailable(provider, settings.edit().removePendingRegistrationProvider());
             register();
         }
     }
@@ -551,18 +841,19 @@ final class OPFPushHelperImpl extends OPFPushHelper {
 
             settings.removePendingUnregistrationProvider();
             receivedMessageHandler.onUnregistered(providerName, provider.getRegistrationId());
-        } else if (provider.getAvailabilityResult().isAvailable()) {
+        } else if (availabilityCache.getAvailabilityResult(provider).isAvailable()) {
             OPFLog.i("Provider %s is available", provider);
 
-            settings.removePendingUnregistrationProvider();
-            settings.saveUnregisteringProvider(providerName);
+            settings.edit()
+                    .removePendingUnregistrationProvider()
+                    .saveUnregisteringProvider(providerName)
+                    .commit();
             provider.unregister();
         } else {
             OPFLog.i("Provider %s is no available", provider);
 
             final String pendingRegistrationProvider = settings.getPendingRegistrationProvider();
-            settings.removePendingUnregistrationProvider();
-            onProviderUnavailable(provider);
+            onProviderUnavailable(provider, settings.edit().removePendingUnregistrationProvider());
             if (providerName.equals(pendingRegistrationProvider)) {
                 registerNextAvailableProvider(providerName);
             }
@@ -571,22 +862,15 @@ final class OPFPushHelperImpl extends OPFPushHelper {
 
     @Nullable
     private PushProvider getProvider(@NonNull final String providerName) {
-        OPFLog.logMethod(providerName);
-
-        for (PushProvider provider : sortedProvidersList) {
-            if (providerName.equals(provider.getName())) {
-                return provider;
-            }
+        final PushProvider provider = providersIndex.getProvider(providerName);
+        if (provider == null) {
+            OPFLog.w("There isn't provider with name \"" + providerName + "\"");
         }
-
-        OPFLog.w("There isn't provider with name \"" + providerName + "\"");
-        return null;
+        return provider;
     }
 
     @NonNull
     private PushProvider getProviderWithException(@NonNull final String providerName) {
-        OPFLog.logMethod(providerName);
-
         final PushProvider provider = getProvider(providerName);
         if (provider == null) {
             throw new IllegalStateException(String.format(
@@ -619,25 +903,29 @@ final class OPFPushHelperImpl extends OPFPushHelper {
     private void initSortedProviderList() {
         OPFLog.logMethod();
         sortedProvidersList = new ArrayList<>(configuration.getProviders());
-        if (!configuration.isSelectSystemPreferred()) {
+        if (configuration.isSelectSystemPreferred()) {
+            sortSystemPreferred();
+        } else {
             OPFLog.d("No system preferred");
-            return;
         }
 
+        if (configuration.isAdaptiveRanking()) {
+            statsTracker.sort(sortedProvidersList);
+        }
+    }
+
+    private void sortSystemPreferred() {
+        final Map<String, Boolean> systemApps = getSystemApps(sortedProvidersList);
         Collections.sort(sortedProvidersList, new Comparator<PushProvider>() {
             @Override
             public int compare(PushProvider leftProvider, PushProvider rightProvider) {
                 final String leftHostAppPackage = leftProvider.getHostAppPackage();
                 final String rightHostAppPackage = rightProvider.getHostAppPackage();
 
-                boolean isLeftProviderSystem = false;
-                boolean isRightProviderSystem = false;
-                if (leftHostAppPackage != null) {
-                    isLeftProviderSystem = OPFUtils.isSystemApp(appContext, leftHostAppPackage);
-                }
-                if (rightHostAppPackage != null) {
-                    isRightProviderSystem = OPFUtils.isSystemApp(appContext, rightHostAppPackage);
-                }
+                final boolean isLeftProviderSystem = leftHostAppPackage != null
+                        && systemApps.get(leftHostAppPackage);
+                final boolean isRightProviderSystem = rightHostAppPackage != null
+                        && systemApps.get(rightHostAppPackage);
 
                 if (isLeftProviderSystem == isRightProviderSystem) {
                     return 0;
@@ -650,33 +938,87 @@ final class OPFPushHelperImpl extends OPFPushHelper {
         });
     }
 
+    /**
+     * Determines once for every host application of the providers whether it is a system application.
+     * The results are stored in the {@link Settings} and reused while the system build is the same,
+     * because an application can become a system one only with a system update.
+     *
+     * @param providers The providers which host applications are checked.
+     * @return The map of the host application packages to the system application flags.
+     */
+    @NonNull
+    private Map<String, Boolean> getSystemApps(@NonNull final List<PushProvider> providers) {
+        OPFLog.logMethod(providers);
+
+        final String fingerprint = String.valueOf(Build.FINGERPRINT);
+        final boolean isSameBuild = fingerprint.equals(settings.getSystemAppsFingerprint());
+        final Settings.Editor editor = settings.edit().saveSystemAppsFingerprint(fingerprint);
+
+        final Map<String, Boolean> systemApps = new HashMap<>();
+        for (PushProvider provider : providers) {
+            final String hostAppPackage = provider.getHostAppPackage();
+            if (hostAppPackage == null || systemApps.containsKey(hostAppPackage)) {
+                continue;
+            }
+
+            Boolean isSystemApp = isSameBuild ? settings.getSystemAppFlag(hostAppPackage) : null;
+            if (isSystemApp == null) {
+                isSystemApp = OPFUtils.isSystemApp(appContext, hostAppPackage);
+                editor.saveSystemAppFlag(hostAppPackage, isSystemApp);
+            }
+            systemApps.put(hostAppPackage, isSystemApp);
+        }
+        editor.commit();
+
+        OPFLog.d("System apps : " + systemApps);
+        return systemApps;
+    }
+
     private void fakeOnUnregistered(@NonNull final String providerName,
                                     @Nullable final String registrationId) {
         OPFLog.logMethod(providerName, registrationId);
         currentProvider = null;
-        settings.saveState(UNREGISTERED);
-        settings.saveLastProvider(null);
+        settings.edit()
+                .saveState(UNREGISTERED)
+                .saveLastProvider(null)
+                .commit();
         registerProviderErrors.clear();
         eventListenerWrapper.onUnregistered(appContext, providerName, registrationId);
     }
 
-    @SuppressWarnings("PMD.AvoidCatchingGenericException")
-    private boolean isOPFReceiverRegistered() {
-        OPFLog.logMethod();
-        final Intent intentBroadcastReceive = new Intent(ACTION_RECEIVE);
-        final Intent intentBroadcastRegistration = new Intent(ACTION_REGISTRATION);
-        final Intent intentBroadcastUnregistration = new Intent(ACTION_UNREGISTRATION);
-        final Intent intentBroadcastNoAvailableProvider = new Intent(ACTION_NO_AVAILABLE_PROVIDER);
-
-        try {
-            OPFChecks.checkReceiver(appContext, intentBroadcastReceive);
-            OPFChecks.checkReceiver(appContext, intentBroadcastRegistration);
-            OPFChecks.checkReceiver(appContext, intentBroadcastUnregistration);
-            OPFChecks.checkReceiver(appContext, intentBroadcastNoAvailableProvider);
-        } catch (RuntimeException e) {
-            return false;
+    /**
+     * Delivers the messages which hadn't been handled by the listener before the previous process died.
+     * The messages are delivered on the journal thread when the journal is restored.
+     */
+    private void replayJournal() {
+        final MessageJournal journal = messageJournal;
+        if (journal == null) {
+            return;
         }
-        return true;
+
+        journal.whenRestored(new MessageJournal.RestoreListener() {
+            @Override
+            public void onRestored(@NonNull final List<Pair<String, Bundle>> messages) {
+                for (Pair<String, Bundle> message : messages) {
+                    OPFLog.i("Replay message of provider " + message.first);
+                    eventListenerWrapper.onMessage(appContext, message.first, message.second);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the ID of the message which is used for the de-duplication
+     * or {@code null} if the message isn't de-duplicated.
+     */
+    @Nullable
+    private String getDeduplicationId(@Nullable final Bundle extras) {
+        if (messageDeduplicator == null || extras == null) {
+            return null;
+        }
+
+        final Object messageId = extras.get(configuration.getDeduplicationKeyName());
+        return messageId == null ? null : messageId.toString();
     }
 
     /**
@@ -688,22 +1030,66 @@ final class OPFPushHelperImpl extends OPFPushHelper {
         /**
          * A push provider calls this method when a new message is received.
          *
-         * @param providerName The name of the provider which has received the message.
-         * @param extras       The message extras.
+         * @param providerName   The name of the provider which has received the message.
+         * @param receivedExtras The message extras.
          */
         @Override
         public void onMessage(@NonNull final String providerName,
-                              @Nullable final Bundle extras) {
+                              @Nullable final Bundle receivedExtras) {
             OPFLog.logMethod(providerName);
             if (currentProvider != null && providerName.equals(currentProvider.getName())) {
-                settings.saveState(REGISTERED);
-                eventListenerWrapper.onMessage(appContext, providerName, extras);
+                final ChunkReassembler reassembler = chunkReassembler;
+                if (reassembler != null && PayloadChunker.isChunk(receivedExtras)) {
+                    final Bundle reassembledExtras = reassembler.onChunk(providerName, receivedExtras);
+                    if (reassembledExtras != null) {
+                        handleMessage(providerName, reassembledExtras);
+                    }
+                } else {
+                    handleMessage(providerName, receivedExtras);
+                }
             } else {
                 OPFLog.w("Ignore onMessage from provider " + providerName
                         + ". Current provider is " + currentProvider);
             }
         }
 
+        /**
+         * Decompresses the complete message and passes it to the listener unless it's a duplicate.
+         */
+        private void handleMessage(@NonNull final String providerName,
+                                   @Nullable final Bundle receivedExtras) {
+            final PayloadCompressor compressor = payloadCompressor;
+            final Bundle extras = compressor == null ? receivedExtras : compressor.decompress(receivedExtras);
+            final String messageId = getDeduplicationId(extras);
+            final MessageDeduplicator deduplicator = messageDeduplicator;
+            if (messageId != null && deduplicator != null && deduplicator.isDuplicate(messageId)) {
+                OPFLog.i("Ignore duplicate message from provider " + providerName);
+                return;
+            }
+
+            statsTracker.onMessage(providerName);
+            configuration.getPushMetrics().onMessageReceived(providerName);
+            settings.saveState(REGISTERED);
+
+            final MessageJournal journal = messageJournal;
+            final Bundle dispatchedExtras;
+            if (journal == null) {
+                dispatchedExtras = extras;
+            } else {
+                dispatchedExtras = extras == null ? new Bundle() : extras;
+                if (!journal.append(providerName, dispatchedExtras)) {
+                    OPFLog.w("Message of provider '%s' isn't synced to the journal", providerName);
+                }
+            }
+
+            // The ID is persisted only after the message is journaled, so a redelivery isn't dropped
+            // if the process dies before that.
+            if (messageId != null && deduplicator != null) {
+                deduplicator.markSeen(messageId);
+            }
+            eventListenerWrapper.onMessage(appContext, providerName, dispatchedExtras);
+        }
+
         /**
          * A push provider calls this method when the server have deleted some pending messages
          * because they were collapsible.
@@ -737,27 +1123,37 @@ final class OPFPushHelperImpl extends OPFPushHelper {
                                  @NonNull final String registrationId) {
             synchronized (registrationLock) {
                 OPFLog.logMethod(providerName, registrationId);
+                final long durationMillis = statsTracker.onRegistered(providerName);
+                registeringTimeoutController.onRegistered(providerName, durationMillis);
+                if (isStandbyProvider(providerName)) {
+                    OPFLog.i("Standby provider '%s' has been registered.", providerName);
+                    return;
+                }
+
                 cancelAllOperationsForProvider(providerName);
-                settings.removeRegisteringProvider(providerName);
+                final Settings.Editor editor = settings.edit().removeRegisteringProvider(providerName);
 
                 if (isRegistered()) {
                     OPFLog.d("Registration state is REGISTERED");
+                    editor.commit();
                     return;
                 }
 
                 OPFLog.i("Successfully register provider '%s'.", providerName);
-                settings.saveState(REGISTERED);
-                settings.saveLastAndroidId(
-                        Secure.getString(appContext.getContentResolver(), ANDROID_ID)
-                );
+                configuration.getPushMetrics().onRegistrationSucceeded(providerName, durationMillis);
                 currentProvider = getProviderWithException(providerName);
-                settings.saveLastProvider(currentProvider);
+                editor.saveState(REGISTERED)
+                        .saveLastAndroidId(Secure.getString(appContext.getContentResolver(), ANDROID_ID))
+                        .saveLastProvider(currentProvider)
+                        .commit();
                 registerProviderErrors.clear();
 
                 eventListenerWrapper.onRegistered(appContext, providerName, registrationId);
 
                 if (providerName.equals(settings.getPendingUnregistrationProvider())) {
                     unregister(providerName);
+                } else {
+                    updateStandbyProvider(currentProvider);
                 }
             }
         }
@@ -792,6 +1188,15 @@ final class OPFPushHelperImpl extends OPFPushHelper {
                                         @NonNull final PushError error) {
             synchronized (registrationLock) {
                 OPFLog.logMethod(providerName, error);
+                final long durationMillis = statsTracker.onRegistrationError(providerName);
+                registeringTimeoutController.cancelTimeout(providerName);
+
+                if (isStandbyProvider(providerName)) {
+                    OPFLog.w("Registration error of standby provider '%s' : %s", providerName, error);
+                    standbyProvider = null;
+                    settings.saveStandbyProvider(null);
+                    return;
+                }
 
                 if (isRegistered()) {
                     OPFLog.d("Registration state is REGISTERED");
@@ -799,14 +1204,23 @@ final class OPFPushHelperImpl extends OPFPushHelper {
                 }
 
                 OPFLog.i("Registration error has been received : " + error);
-                settings.saveState(UNREGISTERED);
+                configuration.getPushMetrics().onRegistrationFailed(providerName, error, durationMillis);
+                if (error.isRecoverable() && promoteStandbyProvider(providerName)) {
+                    retryManager.reset(providerName, REGISTER);
+                    return;
+                }
+
+                final Settings.Editor editor = settings.edit().saveState(UNREGISTERED);
                 if (error.isRecoverable()
                         && retryManager.hasTries(providerName, REGISTER)) {
+                    editor.commit();
                     retryManager.postRetryRegister(providerName);
                 } else {
-                    registerProviderErrors.put(providerName, (UnrecoverablePushError) error);
+                    registerProviderErrors.put(providerName, error.isRecoverable()
+                            ? new UnrecoverablePushError(RETRIES_EXHAUSTED, providerName, error.getOriginalError())
+                            : (UnrecoverablePushError) error);
                     retryManager.reset(providerName, REGISTER);
-                    settings.removeRegisteringProvider(providerName);
+                    editor.removeRegisteringProvider(providerName).commit();
                     if (providerName.equals(settings.getPendingUnregistrationProvider())) {
                         unregister(providerName);
                     }
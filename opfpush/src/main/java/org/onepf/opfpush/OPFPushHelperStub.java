@@ -82,6 +82,26 @@ public class OPFPushHelperStub extends OPFPushHelper {
         return false;
     }
 
+    @Override
+    public int getPendingMessagesCount() {
+        return 0;
+    }
+
+    @Override
+    public long getDroppedMessagesCount() {
+        return 0;
+    }
+
+    @Override
+    public long getAvailabilityCacheHitsCount() {
+        return 0;
+    }
+
+    @Override
+    public long getAvailabilityCacheMissesCount() {
+        return 0;
+    }
+
     @Override
     void init(@NonNull final Configuration initialConfiguration) {
         OPFLog.logMethod(initialConfiguration);
@@ -125,6 +145,16 @@ public class OPFPushHelperStub extends OPFPushHelper {
         return null;
     }
 
+    @Override
+    void invalidateAvailability(@NonNull final String providerName) {
+        OPFLog.logMethod(providerName);
+    }
+
+    @Override
+    void onRegistrationTimeout(@NonNull final String providerName) {
+        OPFLog.logMethod(providerName);
+    }
+
     private final class ReceivedMessageHandlerStub implements ReceivedMessageHandler {
 
         @Override
@@ -41,8 +41,13 @@ public final class PackageChangeReceiver extends BroadcastReceiver {
 
         final OPFPushHelper helper = OPFPush.getHelper();
         final String action = intent.getAction();
+        final String providerName = helper.getProviderNameByHostApp(getAppPackage(intent));
+        if (providerName != null) {
+            OPFLog.d("Host app of provider '%s' has been changed.", providerName);
+            helper.invalidateAvailability(providerName);
+        }
+
         if (Intent.ACTION_PACKAGE_REMOVED.equals(action)) {
-            final String providerName = helper.getProviderNameByHostApp(getAppPackage(intent));
             if (providerName == null) {
                 return;
             }
@@ -73,9 +78,10 @@ public final class PackageChangeReceiver extends BroadcastReceiver {
 
     private void clearSettingsForProvider(@NonNull final Context context,
                                           @NonNull final String providerName) {
-        final Settings settings = Settings.getInstance(context);
-        settings.removeRegisteringProvider(providerName);
-        settings.removeUnregisteringProvider(providerName);
+        Settings.getInstance(context).edit()
+                .removeRegisteringProvider(providerName)
+                .removeUnregisteringProvider(providerName)
+                .commit();
     }
 
     @Nullable
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+
+import org.onepf.opfpush.pushprovider.PushProvider;
+import org.onepf.opfutils.OPFLog;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the registration latency, the registration error rate and the time to the first message
+ * of every push provider and ranks the providers by them.
+ * <p/>
+ * The statistics of a provider are persisted in the {@link Settings}, which keeps them on {@link Settings#clear()}.
+ * They are written only on registration results and on the first message after a registration.
+ * The providers without statistics get the mean score of the others, so they are tried before the providers
+ * which perform worse than average.
+ * <p/>
+ * The latencies are exponentially weighted moving averages. The attempt and error counters are halved when
+ * they exceed {@link #MAX_ATTEMPTS_COUNT}, so the error rate also follows the recent registrations.
+ *
+ * @since 18.10.2026
+ */
+final class ProviderStatsTracker {
+
+    /**
+     * The weight of a new sample in the exponentially weighted moving averages.
+     */
+    private static final double SMOOTHING_FACTOR = 0.3;
+
+    /**
+     * The count of the registration attempts after which the counters are decayed.
+     */
+    static final int MAX_ATTEMPTS_COUNT = 20;
+
+    @NonNull
+    private final Settings settings;
+
+    @NonNull
+    private final Map<String, Stats> statsByProvider = new ConcurrentHashMap<>();
+
+    @NonNull
+    private final Map<String, Long> registrationStartTimes = new ConcurrentHashMap<>();
+
+    @NonNull
+    private final Map<String, Long> registrationTimes = new ConcurrentHashMap<>();
+
+    ProviderStatsTracker(@NonNull final Settings settings) {
+        this.settings = settings;
+    }
+
+    void onRegistrationStarted(@NonNull final String providerName) {
+        registrationStartTimes.put(providerName, SystemClock.elapsedRealtime());
+    }
+
+    /**
+     * @return The registration latency in milliseconds or {@code -1} if the start of the registration is unknown.
+     */
+    long onRegistered(@NonNull final String providerName) {
+        final long now = SystemClock.elapsedRealtime();
+        final long latencyMillis = getElapsedMillis(providerName, now);
+        final Stats stats = getStats(providerName);
+        stats.addRegistration(latencyMillis);
+        registrationTimes.put(providerName, now);
+        saveStats(providerName, stats);
+        return latencyMillis;
+    }
+
+    /**
+     * @return The time from the start of the registration in milliseconds or {@code -1} if it's unknown.
+     */
+    long onRegistrationError(@NonNull final String providerName) {
+        final long elapsedMillis = getElapsedMillis(providerName, SystemClock.elapsedRealtime());
+        final Stats stats = getStats(providerName);
+        stats.addError();
+        saveStats(providerName, stats);
+        return elapsedMillis;
+    }
+
+    void onMessage(@NonNull final String providerName) {
+        if (registrationTimes.isEmpty()) {
+            return;
+        }
+
+        final Long registrationTime = registrationTimes.remove(providerName);
+        if (registrationTime != null) {
+            final Stats stats = getStats(providerName);
+            stats.addTimeToFirstMessage(SystemClock.elapsedRealtime() - registrationTime);
+            saveStats(providerName, stats);
+        }
+    }
+
+    /**
+     * Returns the expected time in milliseconds until the provider delivers the first message.
+     * The lower the better.
+     *
+     * @param providerName The name of the provider.
+     * @return The score of the provider or {@link Double#NaN} if there are no statistics of the provider.
+     */
+    double getScore(@NonNull final String providerName) {
+        return getStats(providerName).getScore();
+    }
+
+    /**
+     * Sorts the providers by the score. The providers without statistics get the mean score of the others.
+     * The order of the providers with equal scores is kept.
+     *
+     * @param providers The providers to sort.
+     */
+    void sort(@NonNull final List<PushProvider> providers) {
+        final Map<PushProvider, Double> scores = new HashMap<>(providers.size());
+        double scoresSum = 0;
+        int knownScoresCount = 0;
+        for (PushProvider provider : providers) {
+            final double score = getScore(provider.getName());
+            scores.put(provider, score);
+            if (!Double.isNaN(score)) {
+                scoresSum += score;
+                knownScoresCount++;
+            }
+        }
+
+        if (knownScoresCount == 0) {
+            return;
+        }
+
+        final double priorScore = scoresSum / knownScoresCount;
+        for (Map.Entry<PushProvider, Double> entry : scores.entrySet()) {
+            if (Double.isNaN(entry.getValue())) {
+                entry.setValue(priorScore);
+            }
+        }
+
+        Collections.sort(providers, new Comparator<PushProvider>() {
+            @Override
+            public int compare(final PushProvider leftProvider, final PushProvider rightProvider) {
+                return Double.compare(scores.get(leftProvider), scores.get(rightProvider));
+            }
+        });
+        OPFLog.d("Providers ranked by stats : " + providers);
+    }
+
+    private long getElapsedMillis(@NonNull final String providerName, final long now) {
+        final Long startTime = registrationStartTimes.remove(providerName);
+        return startTime == null ? -1 : now - startTime;
+    }
+
+    @NonNull
+    private Stats getStats(@NonNull final String providerName) {
+        Stats stats = statsByProvider.get(providerName);
+        if (stats == null) {
+            stats = Stats.load(settings, providerName);
+            statsByProvider.put(providerName, stats);
+        }
+        return stats;
+    }
+
+    private void saveStats(@NonNull final String providerName, @NonNull final Stats stats) {
+        OPFLog.d("Stats of provider %s : %s", providerName, stats);
+        stats.save(settings, providerName);
+    }
+
+    /**
+     * The statistics of a provider.
+     */
+    private static final class Stats {
+
+        private int attempts;
+        private int errors;
+        private long latencyMillis;
+        private long timeToFirstMessageMillis;
+
+        @NonNull
+        static Stats load(@NonNull final Settings settings, @NonNull final String providerName) {
+            final Stats stats = new Stats();
+            stats.attempts = settings.getProviderAttemptsCount(providerName);
+            stats.errors = settings.getProviderErrorsCount(providerName);
+            stats.latencyMillis = settings.getProviderLatencyMillis(providerName);
+            stats.timeToFirstMessageMillis = settings.getProviderTimeToFirstMessageMillis(providerName);
+            return stats;
+        }
+
+        synchronized void save(@NonNull final Settings settings, @NonNull final String providerName) {
+            settings.edit()
+                    .saveProviderStats(providerName, attempts, errors, latencyMillis, timeToFirstMessageMillis)
+                    .commit();
+        }
+
+        synchronized double getScore() {
+            if (attempts == 0) {
+                return Double.NaN;
+            }
+
+            final double successRate = (attempts - errors + 1.0) / (attempts + 2.0);
+            return (latencyMillis + timeToFirstMessageMillis + 1) / successRate;
+        }
+
+        synchronized void addRegistration(final long latencyMillis) {
+            if (latencyMillis >= 0) {
+                this.latencyMillis = average(this.latencyMillis, latencyMillis, this.latencyMillis == 0);
+            }
+            attempts++;
+            decay();
+        }
+
+        synchronized void addError() {
+            attempts++;
+            errors++;
+            decay();
+        }
+
+        private void decay() {
+            if (attempts > MAX_ATTEMPTS_COUNT) {
+                attempts = (attempts + 1) / 2;
+                errors = (errors + 1) / 2;
+            }
+        }
+
+        synchronized void addTimeToFirstMessage(final long timeToFirstMessageMillis) {
+            this.timeToFirstMessageMillis = average(
+                    this.timeToFirstMessageMillis,
+                    timeToFirstMessageMillis,
+                    this.timeToFirstMessageMillis == 0
+            );
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "Stats{"
+                    + "attempts=" + attempts
+                    + ", errors=" + errors
+                    + ", latencyMillis=" + latencyMillis
+                    + ", timeToFirstMessageMillis=" + timeToFirstMessageMillis
+                    + '}';
+        }
+
+        private static long average(final long average, final long sample, final boolean isFirstSample) {
+            return isFirstSample ? sample : Math.round(average + SMOOTHING_FACTOR * (sample - average));
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.onepf.opfpush.model.AvailabilityResult;
+import org.onepf.opfpush.pushprovider.PushProvider;
+import org.onepf.opfutils.OPFLog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks the availability of the push providers.
+ * <p/>
+ * In the parallel mode the checks of all candidates are started at once on a bounded thread pool,
+ * and the results are consumed in the priority order. Otherwise every provider is checked
+ * on the calling thread only when its result is requested.
+ *
+ * @since 18.10.2026
+ */
+final class ProvidersAvailabilityChecker {
+
+    private static final int MAX_THREADS_COUNT = 4;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    @NonNull
+    private final AvailabilityCache availabilityCache;
+
+    @Nullable
+    private final ThreadPoolExecutor executor;
+
+    ProvidersAvailabilityChecker(@NonNull final AvailabilityCache availabilityCache,
+                                 final boolean isParallel,
+                                 final int providersCount) {
+        this.availabilityCache = availabilityCache;
+        if (isParallel && providersCount > 1) {
+            final int threadsCount = Math.min(providersCount, MAX_THREADS_COUNT);
+            executor = new ThreadPoolExecutor(
+                    threadsCount,
+                    threadsCount,
+                    KEEP_ALIVE_SECONDS,
+                    TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>()
+            );
+            executor.allowCoreThreadTimeOut(true);
+        } else {
+            executor = null;
+        }
+    }
+
+    /**
+     * Starts checking the availability of the passed providers.
+     *
+     * @param providers The providers in the priority order.
+     * @return The {@link Probe} which returns the results in the same order.
+     */
+    @NonNull
+    Probe check(@NonNull final List<PushProvider> providers) {
+        OPFLog.logMethod(providers);
+        if (executor == null) {
+            return new Probe(availabilityCache, providers, null);
+        }
+
+        final List<Future<AvailabilityResult>> futures = new ArrayList<>(providers.size());
+        for (final PushProvider provider : providers) {
+            futures.add(executor.submit(new Callable<AvailabilityResult>() {
+                @Override
+                public AvailabilityResult call() {
+                    return availabilityCache.getAvailabilityResult(provider);
+                }
+            }));
+        }
+        return new Probe(availabilityCache, providers, futures);
+    }
+
+    /**
+     * The availability results of the providers which were passed to {@link #check(List)}.
+     */
+    static final class Probe {
+
+        @NonNull
+        private final AvailabilityCache availabilityCache;
+
+        @NonNull
+        private final List<PushProvider> providers;
+
+        @Nullable
+        private final List<Future<AvailabilityResult>> futures;
+
+        private Probe(@NonNull final AvailabilityCache availabilityCache,
+                      @NonNull final List<PushProvider> providers,
+                      @Nullable final List<Future<AvailabilityResult>> futures) {
+            this.availabilityCache = availabilityCache;
+            this.providers = providers;
+            this.futures = futures;
+        }
+
+        /**
+         * Returns the availability result of the provider with the passed position.
+         * Blocks until the result is ready.
+         *
+         * @param position The position of the provider.
+         * @return The availability result.
+         */
+        @NonNull
+        @SuppressWarnings("PMD.PreserveStackTrace")
+        AvailabilityResult get(final int position) {
+            final PushProvider provider = providers.get(position);
+            if (futures == null) {
+                return availabilityCache.getAvailabilityResult(provider);
+            }
+
+            try {
+                return futures.get(position).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                OPFLog.w("Interrupted while waiting for the availability of " + provider.getName());
+                return availabilityCache.getAvailabilityResult(provider);
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException("Can't check the availability of " + provider.getName(), cause);
+            }
+        }
+
+        /**
+         * Cancels the checks which haven't been started yet.
+         */
+        void cancel() {
+            if (futures != null) {
+                for (Future<AvailabilityResult> future : futures) {
+                    future.cancel(false);
+                }
+            }
+        }
+    }
+}
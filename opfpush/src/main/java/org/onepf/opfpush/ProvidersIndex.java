@@ -0,0 +1,94 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.onepf.opfpush.pushprovider.PushProvider;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable index of the configured push providers by name and by host application package.
+ * <p/>
+ * The names are matched exactly first and then ignoring case, the same way as the {@link Settings}
+ * stores the per-provider keys. The lookup by the exact name doesn't allocate.
+ *
+ * @since 18.10.2026
+ */
+final class ProvidersIndex {
+
+    @NonNull
+    private final Map<String, PushProvider> providersByName;
+
+    @NonNull
+    private final Map<String, PushProvider> providersByLowerCaseName;
+
+    @NonNull
+    private final Map<String, PushProvider> providersByHostApp;
+
+    /**
+     * @param providers The configured providers.
+     * @throws java.lang.IllegalArgumentException If the names of two providers differ only in case.
+     */
+    ProvidersIndex(@NonNull final Collection<PushProvider> providers) {
+        final int capacity = providers.size() * 2;
+        providersByName = new HashMap<>(capacity);
+        providersByLowerCaseName = new HashMap<>(capacity);
+        providersByHostApp = new HashMap<>(capacity);
+
+        for (PushProvider provider : providers) {
+            final String providerName = provider.getName();
+            providersByName.put(providerName, provider);
+
+            final PushProvider sameNameProvider = providersByLowerCaseName.put(toKey(providerName), provider);
+            if (sameNameProvider != null) {
+                throw new IllegalArgumentException(String.format(
+                        Locale.US,
+                        "Names of providers '%s' and '%s' differ only in case.",
+                        sameNameProvider.getName(),
+                        providerName
+                ));
+            }
+
+            final String hostAppPackage = provider.getHostAppPackage();
+            if (hostAppPackage != null) {
+                providersByHostApp.put(hostAppPackage, provider);
+            }
+        }
+    }
+
+    @Nullable
+    PushProvider getProvider(@NonNull final String providerName) {
+        final PushProvider provider = providersByName.get(providerName);
+        return provider == null ? providersByLowerCaseName.get(toKey(providerName)) : provider;
+    }
+
+    @Nullable
+    PushProvider getProviderByHostApp(@Nullable final String appPackage) {
+        return appPackage == null ? null : providersByHostApp.get(appPackage);
+    }
+
+    @NonNull
+    private static String toKey(@NonNull final String providerName) {
+        return providerName.toLowerCase(Locale.US);
+    }
+}
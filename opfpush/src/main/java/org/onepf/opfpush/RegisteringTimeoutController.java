@@ -16,56 +16,190 @@
 
 package org.onepf.opfpush;
 
-import android.app.AlarmManager;
-import android.app.PendingIntent;
 import android.content.Context;
-import android.content.Intent;
 import android.support.annotation.NonNull;
 
+import org.onepf.opfpush.backoff.AlarmScheduler;
+import org.onepf.opfpush.configuration.Configuration;
+import org.onepf.opfpush.utils.RecordsStorage;
 import org.onepf.opfutils.OPFLog;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static org.onepf.opfpush.OPFConstants.ACTION_CHECK_REGISTERING_TIMEOUT;
-import static org.onepf.opfpush.OPFConstants.EXTRA_PROVIDER_NAME;
 
 /**
+ * Schedules the registration timeouts via the {@link AlarmScheduler} and cancels them
+ * when the registration result is received.
+ * <p/>
+ * If the adaptive timeout is enabled in the {@link Configuration}, the last registration latencies of every
+ * provider are persisted and the timeout is derived from their 95th percentile. An expired timeout is recorded
+ * as a latency of twice the timeout, so the timeout grows back when the provider becomes slower.
+ *
  * @author Roman Savin
  * @since 18.02.2015
  */
 final class RegisteringTimeoutController {
 
-    private static final long TIMEOUT_MINUTES = 5;
+    /**
+     * The number of the latencies which are required for the adaptive timeout.
+     */
+    static final int MIN_SAMPLES_COUNT = 5;
+
+    /**
+     * The number of the last latencies of a provider which are kept.
+     */
+    static final int MAX_SAMPLES_COUNT = 20;
+
+    private static final double PERCENTILE = 0.95;
+
+    private static final String KEY_LATENCIES_PREFIX = "registration_latencies_";
+    private static final int VERSION = 1;
+
+    @NonNull
+    private final Configuration configuration;
+
+    @NonNull
+    private final AlarmScheduler alarmScheduler;
+
+    @NonNull
+    private final RecordsStorage recordsStorage;
+
+    @NonNull
+    private final ConcurrentMap<String, LinkedList<Long>> latenciesByProvider = new ConcurrentHashMap<>();
+
+    RegisteringTimeoutController(@NonNull final Context context,
+                                 @NonNull final Configuration configuration,
+                                 @NonNull final AlarmScheduler alarmScheduler) {
+        this.configuration = configuration;
+        this.alarmScheduler = alarmScheduler;
+        this.recordsStorage = new RecordsStorage(context);
+    }
+
+    void setTimeout(@NonNull final String providerName) {
+        OPFLog.logMethod(providerName);
+        final long when = System.currentTimeMillis() + getTimeoutMillis(providerName);
+        alarmScheduler.schedule(ACTION_CHECK_REGISTERING_TIMEOUT, providerName, when);
+    }
+
+    void cancelTimeout(@NonNull final String providerName) {
+        OPFLog.logMethod(providerName);
+        alarmScheduler.cancel(ACTION_CHECK_REGISTERING_TIMEOUT, providerName);
+    }
+
+    /**
+     * Cancels the timeout and records the latency of the registration.
+     *
+     * @param providerName  The name of the registered provider.
+     * @param latencyMillis The registration latency in milliseconds or {@code -1} if it's unknown.
+     */
+    void onRegistered(@NonNull final String providerName, final long latencyMillis) {
+        cancelTimeout(providerName);
+        if (latencyMillis >= 0) {
+            addLatency(providerName, latencyMillis);
+        }
+    }
+
+    /**
+     * Records the expired timeout. The real latency is unknown, but it's longer than the timeout.
+     *
+     * @param providerName The name of the provider which registration has timed out.
+     */
+    void onTimeout(@NonNull final String providerName) {
+        final long timeoutMillis = getTimeoutMillis(providerName);
+        addLatency(providerName, Math.min(timeoutMillis * 2, configuration.getRegistrationTimeoutMillis(providerName)));
+    }
+
+    private void addLatency(@NonNull final String providerName, final long latencyMillis) {
+        if (configuration.getAdaptiveTimeoutFactor() == 0) {
+            return;
+        }
+
+        final LinkedList<Long> latencies = getLatencies(providerName);
+        final List<String[]> records;
+        synchronized (latencies) {
+            latencies.addLast(latencyMillis);
+            if (latencies.size() > MAX_SAMPLES_COUNT) {
+                latencies.removeFirst();
+            }
+            records = new ArrayList<>(latencies.size());
+            for (long latency : latencies) {
+                records.add(new String[]{String.valueOf(latency)});
+            }
+        }
+        recordsStorage.save(getKey(providerName), VERSION, records);
+    }
+
+    /**
+     * Returns the registration timeout of the provider. It's the configured one until there are
+     * {@link #MIN_SAMPLES_COUNT} latencies of the provider if the adaptive timeout is enabled.
+     *
+     * @param providerName The name of the provider.
+     * @return The registration timeout in milliseconds.
+     */
+    long getTimeoutMillis(@NonNull final String providerName) {
+        final long maxTimeoutMillis = configuration.getRegistrationTimeoutMillis(providerName);
+        final double factor = configuration.getAdaptiveTimeoutFactor();
+        if (factor == 0) {
+            return maxTimeoutMillis;
+        }
+
+        final LinkedList<Long> latencies = getLatencies(providerName);
+        final long[] sortedLatencies;
+        synchronized (latencies) {
+            if (latencies.size() < MIN_SAMPLES_COUNT) {
+                return maxTimeoutMillis;
+            }
+
+            sortedLatencies = new long[latencies.size()];
+            int i = 0;
+            for (long latency : latencies) {
+                sortedLatencies[i++] = latency;
+            }
+        }
+        Arrays.sort(sortedLatencies);
+
+        final int percentileIndex = (int) Math.ceil(PERCENTILE * sortedLatencies.length) - 1;
+        final long timeoutMillis = Math.round(sortedLatencies[percentileIndex] * factor);
+        final long minTimeoutMillis = Math.min(configuration.getMinRegistrationTimeoutMillis(), maxTimeoutMillis);
+        return Math.max(minTimeoutMillis, Math.min(timeoutMillis, maxTimeoutMillis));
+    }
+
+    @NonNull
+    private LinkedList<Long> getLatencies(@NonNull final String providerName) {
+        LinkedList<Long> latencies = latenciesByProvider.get(providerName);
+        if (latencies == null) {
+            latencies = loadLatencies(providerName);
+            final LinkedList<Long> previousLatencies = latenciesByProvider.putIfAbsent(providerName, latencies);
+            if (previousLatencies != null) {
+                latencies = previousLatencies;
+            }
+        }
+        return latencies;
+    }
 
-    private RegisteringTimeoutController() {
-        throw new UnsupportedOperationException();
+    @NonNull
+    private LinkedList<Long> loadLatencies(@NonNull final String providerName) {
+        final LinkedList<Long> latencies = new LinkedList<>();
+        try {
+            for (String[] fields : recordsStorage.load(getKey(providerName), VERSION, 1)) {
+                latencies.add(Long.parseLong(fields[0]));
+            }
+        } catch (NumberFormatException e) {
+            OPFLog.w("Wrong registration latencies of provider " + providerName, e);
+            latencies.clear();
+        }
+        return latencies;
     }
 
-    static void setTimeout(@NonNull final Context context, @NonNull final String providerName) {
-        OPFLog.logMethod(context, providerName);
-        final long when = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(TIMEOUT_MINUTES);
-        OPFLog.d(
-                "Set registering timeout : %s",
-                SimpleDateFormat.getDateTimeInstance(
-                        DateFormat.DEFAULT, DateFormat.DEFAULT, Locale.US
-                ).format(new Date(when))
-        );
-
-        final AlarmManager alarmManager = (AlarmManager) context
-                .getSystemService(Context.ALARM_SERVICE);
-
-        final Intent intent = new Intent(context, RetryBroadcastReceiver.class);
-        intent.setAction(ACTION_CHECK_REGISTERING_TIMEOUT);
-        intent.putExtra(EXTRA_PROVIDER_NAME, providerName);
-
-        alarmManager.set(
-                AlarmManager.RTC,
-                when,
-                PendingIntent.getBroadcast(context, providerName.hashCode(), intent, 0)
-        );
+    @NonNull
+    private static String getKey(@NonNull final String providerName) {
+        return KEY_LATENCIES_PREFIX + providerName.toLowerCase(Locale.US);
     }
 }
@@ -21,6 +21,8 @@ import android.content.Context;
 import android.content.Intent;
 import android.support.annotation.NonNull;
 
+import org.onepf.opfpush.backoff.AlarmScheduler;
+import org.onepf.opfpush.backoff.RetryManager;
 import org.onepf.opfpush.model.State;
 import org.onepf.opfutils.OPFLog;
 import org.onepf.opfutils.OPFUtils;
@@ -30,6 +32,7 @@ import java.util.Locale;
 import static org.onepf.opfpush.OPFConstants.ACTION_CHECK_REGISTERING_TIMEOUT;
 import static org.onepf.opfpush.OPFConstants.ACTION_RETRY_REGISTER;
 import static org.onepf.opfpush.OPFConstants.ACTION_RETRY_UNREGISTER;
+import static org.onepf.opfpush.OPFConstants.ACTION_RUN_SCHEDULED_TASKS;
 import static org.onepf.opfpush.OPFConstants.EXTRA_PROVIDER_NAME;
 
 /**
@@ -48,30 +51,43 @@ public final class RetryBroadcastReceiver extends BroadcastReceiver {
             OPFLog.d("Initialisation is done");
 
             final String action = intent.getAction();
-            final String providerName = intent.getStringExtra(EXTRA_PROVIDER_NAME);
-            switch (action) {
-                case ACTION_RETRY_REGISTER:
-                    helper.register(providerName);
-                    break;
-                case ACTION_RETRY_UNREGISTER:
-                    helper.unregister(providerName);
-                    break;
-                case ACTION_CHECK_REGISTERING_TIMEOUT:
-                    checkRegistering(context, helper, providerName);
-                    break;
-                default:
-                    throw new IllegalStateException(String.format(Locale.US, "Unknown action '%s'.", action));
+            if (ACTION_RUN_SCHEDULED_TASKS.equals(action)) {
+                for (AlarmScheduler.Task task : RetryManager.getInstance().getAlarmScheduler().pollDueTasks()) {
+                    runTask(context, helper, task.getAction(), task.getProviderName());
+                }
+            } else {
+                runTask(context, helper, action, intent.getStringExtra(EXTRA_PROVIDER_NAME));
             }
         } else {
             OPFLog.w("OPFPush must be initialized");
         }
     }
 
+    private void runTask(@NonNull final Context context,
+                         @NonNull final OPFPushHelper helper,
+                         @NonNull final String action,
+                         @NonNull final String providerName) {
+        switch (action) {
+            case ACTION_RETRY_REGISTER:
+                helper.register(providerName);
+                break;
+            case ACTION_RETRY_UNREGISTER:
+                helper.unregister(providerName);
+                break;
+            case ACTION_CHECK_REGISTERING_TIMEOUT:
+                checkRegistering(context, helper, providerName);
+                break;
+            default:
+                throw new IllegalStateException(String.format(Locale.US, "Unknown action '%s'.", action));
+        }
+    }
+
     private void checkRegistering(@NonNull final Context context,
                                   @NonNull final OPFPushHelper helper,
                                   @NonNull final String providerName) {
         OPFLog.logMethod(context, helper, providerName);
         if (helper.isRegistering()) {
+            helper.onRegistrationTimeout(providerName);
             Settings.getInstance(context).saveState(State.UNREGISTERED);
             helper.registerNextAvailableProvider(providerName);
         }
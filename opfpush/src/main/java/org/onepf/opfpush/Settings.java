@@ -17,6 +17,7 @@
 package org.onepf.opfpush;
 
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
@@ -24,18 +25,38 @@ import org.onepf.opfpush.model.State;
 import org.onepf.opfpush.pushprovider.PushProvider;
 import org.onepf.opfutils.OPFChecks;
 import org.onepf.opfutils.OPFLog;
-import org.onepf.opfutils.OPFPreferences;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.onepf.opfpush.model.State.UNREGISTERED;
 
 /**
+ * Stores the state of the {@link org.onepf.opfpush.OPFPushHelper}.
+ * <p/>
+ * All keys are kept in an in-memory snapshot which is loaded once from the preferences file.
+ * Reads are served from the snapshot without taking the monitor. Writes update the snapshot first
+ * and then are persisted in the background in the same order as they were made.
+ * Use {@link #flush()} if you need to be sure that all previous writes have reached the disk.
+ * <p/>
+ * Use {@link #edit()} to change several keys at once. All changes of an {@link Editor} become visible
+ * and are written to the disk in a single atomic commit.
+ * <p/>
+ * The statistics of the push providers are kept by {@link #clear()}, because they describe the providers
+ * on the device rather than the current registration.
+ *
  * @author Kirill Rozov
  * @author Roman Savin
  * @since 01.10.14.
  */
-@SuppressWarnings("PMD.AvoidSynchronizedAtMethodLevel")
+@SuppressWarnings({"PMD.AvoidSynchronizedAtMethodLevel", "PMD.TooManyMethods"})
 final class Settings {
 
     private static final String KEY_LAST_PROVIDER_NAME = "last_provider_name";
@@ -45,16 +66,55 @@ final class Settings {
     private static final String KEY_REGISTERING_PROVIDER_PREFIX = "registering_provider_";
     private static final String KEY_PENDING_REGISTRATION_PROVIDER = "pending_registration_provider";
     private static final String KEY_PENDING_UNREGISTRATION_PROVIDER = "pending_unregistration_provider";
+    private static final String KEY_SYSTEM_APPS_FINGERPRINT = "system_apps_fingerprint";
+    private static final String KEY_SYSTEM_APP_PREFIX = "system_app_";
+    private static final String KEY_MANIFEST_CHECK_STAMP = "manifest_check_stamp";
+    private static final String KEY_MANIFEST_CHECK_PASSED = "manifest_check_passed";
+    private static final String KEY_STANDBY_PROVIDER = "standby_provider";
+    private static final String KEY_PROVIDER_STATS_PREFIX = "provider_stats_";
+    private static final String KEY_PROVIDER_ATTEMPTS_PREFIX = KEY_PROVIDER_STATS_PREFIX + "attempts_";
+    private static final String KEY_PROVIDER_ERRORS_PREFIX = KEY_PROVIDER_STATS_PREFIX + "errors_";
+    private static final String KEY_PROVIDER_LATENCY_PREFIX = KEY_PROVIDER_STATS_PREFIX + "latency_";
+    private static final String KEY_PROVIDER_FIRST_MESSAGE_PREFIX = KEY_PROVIDER_STATS_PREFIX + "first_message_";
 
     private static final String OPF_CORE_POSTFIX = "opfpush";
 
     private static volatile Settings instance;
 
     @NonNull
-    private final OPFPreferences preferences;
+    private final SharedPreferences preferences;
+
+    /**
+     * Immutable map which is replaced as a whole on every commit.
+     */
+    @NonNull
+    private volatile Map<String, Object> snapshot;
+
+    @NonNull
+    private final ExecutorService persistExecutor = Executors.newSingleThreadExecutor();
+
+    @NonNull
+    private final AtomicLong writesCount = new AtomicLong();
+
+    @NonNull
+    private final AtomicLong skippedWritesCount = new AtomicLong();
 
+    @SuppressWarnings("deprecation")
     private Settings(@NonNull final Context context) {
-        preferences = new OPFPreferences(context, OPF_CORE_POSTFIX);
+        final Context appContext = context.getApplicationContext();
+        preferences = appContext.getSharedPreferences(
+                appContext.getPackageName() + '.' + OPF_CORE_POSTFIX,
+                Context.MODE_MULTI_PROCESS
+        );
+
+        final Map<String, Object> storedValues = new HashMap<>();
+        for (Map.Entry<String, ?> entry : preferences.getAll().entrySet()) {
+            final Object value = entry.getValue();
+            if (value != null) {
+                storedValues.put(entry.getKey(), value);
+            }
+        }
+        snapshot = Collections.unmodifiableMap(storedValues);
     }
 
     @SuppressWarnings("PMD.NonThreadSafeSingleton")
@@ -67,11 +127,21 @@ final class Settings {
         return instance;
     }
 
+    /**
+     * Creates a new {@link Editor}. Nothing is changed until {@link Editor#commit()} is called.
+     *
+     * @return The new {@link Editor} instance.
+     */
+    @NonNull
+    public Editor edit() {
+        return new Editor();
+    }
+
     @NonNull
-    public synchronized State getState() {
+    public State getState() {
         OPFLog.logMethod();
 
-        final int stateValue = preferences.getInt(KEY_STATE, UNREGISTERED.getValue());
+        final int stateValue = getInt(KEY_STATE, UNREGISTERED.getValue());
         State state = State.fromValue(stateValue);
 
         OPFLog.d("State : " + state);
@@ -82,122 +152,475 @@ final class Settings {
         return state;
     }
 
-    public synchronized void saveState(@NonNull final State state) {
-        OPFLog.logMethod(state);
-        preferences.put(KEY_STATE, state.getValue());
+    /**
+     * Saves the state. It's called for every received message, so an unchanged state is skipped
+     * without creating an {@link Editor} and taking the monitor.
+     */
+    public void saveState(@NonNull final State state) {
+        final Object currentValue = snapshot.get(KEY_STATE);
+        if (currentValue instanceof Integer && (Integer) currentValue == state.getValue()) {
+            skippedWritesCount.incrementAndGet();
+            return;
+        }
+        edit().saveState(state).commit();
     }
 
+    /**
+     * Removes all keys except the statistics of the push providers.
+     */
     public synchronized void clear() {
         OPFLog.logMethod();
-        preferences.clear();
+        final Map<String, Object> retainedValues = new HashMap<>();
+        for (Map.Entry<String, Object> entry : snapshot.entrySet()) {
+            if (entry.getKey().startsWith(KEY_PROVIDER_STATS_PREFIX)) {
+                retainedValues.put(entry.getKey(), entry.getValue());
+            }
+        }
+        snapshot = Collections.unmodifiableMap(retainedValues);
+        persistExecutor.execute(new PersistTask(retainedValues, true));
     }
 
-    @Nullable
-    public synchronized String getLastProviderName() {
-        return preferences.getString(KEY_LAST_PROVIDER_NAME);
+    /**
+     * Blocks the calling thread until all writes made before this call are persisted.
+     * Must not be called from the main thread if a write can be in progress for a long time.
+     */
+    @SuppressWarnings("PMD.EmptyCatchBlock")
+    public void flush() {
+        OPFLog.logMethod();
+        try {
+            persistExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    //barrier, all previous tasks are already completed
+                }
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            OPFLog.e("Error while flushing settings", e);
+        }
     }
 
-    public synchronized void saveLastProvider(@Nullable final PushProvider provider) {
-        OPFLog.logMethod(provider);
+    /**
+     * Returns the count of writes that have been scheduled for persisting since the instance creation.
+     *
+     * @return The count of scheduled writes.
+     */
+    public long getWritesCount() {
+        return writesCount.get();
+    }
 
-        if (provider == null) {
-            preferences.remove(KEY_LAST_PROVIDER_NAME);
-        } else {
-            preferences.put(KEY_LAST_PROVIDER_NAME, provider.getName());
-        }
+    /**
+     * Returns the count of writes that have been skipped because the stored value hasn't changed.
+     *
+     * @return The count of skipped writes.
+     */
+    public long getSkippedWritesCount() {
+        return skippedWritesCount.get();
     }
 
     @Nullable
-    public synchronized String getLastAndroidId() {
-        return preferences.getString(KEY_LAST_ANDROID_ID);
+    public String getLastProviderName() {
+        return getString(KEY_LAST_PROVIDER_NAME);
     }
 
-    public synchronized void saveLastAndroidId(@Nullable final String androidId) {
-        OPFLog.logMethod(androidId);
+    public void saveLastProvider(@Nullable final PushProvider provider) {
+        edit().saveLastProvider(provider).commit();
+    }
 
-        if (androidId == null) {
-            preferences.remove(KEY_LAST_ANDROID_ID);
-        } else {
-            preferences.put(KEY_LAST_ANDROID_ID, androidId);
-        }
+    @Nullable
+    public String getLastAndroidId() {
+        return getString(KEY_LAST_ANDROID_ID);
     }
 
-    public synchronized void saveUnregisteringProvider(@NonNull final String providerName) {
-        OPFLog.logMethod(providerName);
-        preferences.put(
-                getProviderPreferenceKey(KEY_UNREGISTERING_PROVIDER_PREFIX, providerName),
-                true
-        );
+    public void saveLastAndroidId(@Nullable final String androidId) {
+        edit().saveLastAndroidId(androidId).commit();
     }
 
-    public synchronized void removeUnregisteringProvider(@NonNull final String providerName) {
-        OPFLog.logMethod(providerName);
-        preferences.remove(getProviderPreferenceKey(KEY_UNREGISTERING_PROVIDER_PREFIX, providerName));
+    public void saveUnregisteringProvider(@NonNull final String providerName) {
+        edit().saveUnregisteringProvider(providerName).commit();
     }
 
-    public synchronized boolean isProviderUnregistrationPerforming(@NonNull final String providerName) {
-        OPFLog.logMethod(providerName);
-        return preferences.getBoolean(
-                getProviderPreferenceKey(KEY_UNREGISTERING_PROVIDER_PREFIX, providerName),
-                false
-        );
+    public void removeUnregisteringProvider(@NonNull final String providerName) {
+        edit().removeUnregisteringProvider(providerName).commit();
     }
 
-    public synchronized void saveRegisteringProvider(@NonNull final String providerName) {
+    public boolean isProviderUnregistrationPerforming(@NonNull final String providerName) {
         OPFLog.logMethod(providerName);
-        preferences.put(
-                getProviderPreferenceKey(KEY_REGISTERING_PROVIDER_PREFIX, providerName),
-                true
-        );
+        return getBoolean(getProviderPreferenceKey(KEY_UNREGISTERING_PROVIDER_PREFIX, providerName));
     }
 
-    public synchronized void removeRegisteringProvider(@NonNull final String providerName) {
-        OPFLog.logMethod(providerName);
-        preferences.remove(getProviderPreferenceKey(KEY_REGISTERING_PROVIDER_PREFIX, providerName));
+    public void saveRegisteringProvider(@NonNull final String providerName) {
+        edit().saveRegisteringProvider(providerName).commit();
     }
 
-    public synchronized boolean isProviderRegistrationPerforming(@NonNull final String providerName) {
-        OPFLog.logMethod(providerName);
-        return preferences.getBoolean(
-                getProviderPreferenceKey(KEY_REGISTERING_PROVIDER_PREFIX, providerName),
-                false
-        );
+    public void removeRegisteringProvider(@NonNull final String providerName) {
+        edit().removeRegisteringProvider(providerName).commit();
     }
 
-    public synchronized void savePendingRegistrationProvider(@NonNull final String providerName) {
+    public boolean isProviderRegistrationPerforming(@NonNull final String providerName) {
         OPFLog.logMethod(providerName);
-        preferences.put(KEY_PENDING_REGISTRATION_PROVIDER, providerName);
+        return getBoolean(getProviderPreferenceKey(KEY_REGISTERING_PROVIDER_PREFIX, providerName));
     }
 
-    public synchronized void removePendingRegistrationProvider() {
-        OPFLog.logMethod();
-        preferences.remove(KEY_PENDING_REGISTRATION_PROVIDER);
+    public void savePendingRegistrationProvider(@NonNull final String providerName) {
+        edit().savePendingRegistrationProvider(providerName).commit();
+    }
+
+    public void removePendingRegistrationProvider() {
+        edit().removePendingRegistrationProvider().commit();
     }
 
     @Nullable
-    public synchronized String getPendingRegistrationProvider() {
+    public String getPendingRegistrationProvider() {
         OPFLog.logMethod();
-        return preferences.getString(KEY_PENDING_REGISTRATION_PROVIDER);
+        return getString(KEY_PENDING_REGISTRATION_PROVIDER);
     }
 
-    public synchronized void savePendingUnregistrationProvider(@NonNull final String providerName) {
-        OPFLog.logMethod(providerName);
-        preferences.put(KEY_PENDING_UNREGISTRATION_PROVIDER, providerName);
+    public void savePendingUnregistrationProvider(@NonNull final String providerName) {
+        edit().savePendingUnregistrationProvider(providerName).commit();
     }
 
-    public synchronized void removePendingUnregistrationProvider() {
-        OPFLog.logMethod();
-        preferences.remove(KEY_PENDING_UNREGISTRATION_PROVIDER);
+    public void removePendingUnregistrationProvider() {
+        edit().removePendingUnregistrationProvider().commit();
     }
 
     @Nullable
-    public synchronized String getPendingUnregistrationProvider() {
+    public String getPendingUnregistrationProvider() {
         OPFLog.logMethod();
-        return preferences.getString(KEY_PENDING_UNREGISTRATION_PROVIDER);
+        return getString(KEY_PENDING_UNREGISTRATION_PROVIDER);
+    }
+
+    /**
+     * Returns the fingerprint of the system build for which the system application flags have been saved.
+     *
+     * @return The fingerprint of the system build or {@code null} if there are no saved flags.
+     */
+    @Nullable
+    public String getSystemAppsFingerprint() {
+        return getString(KEY_SYSTEM_APPS_FINGERPRINT);
+    }
+
+    /**
+     * Returns the saved flag which shows whether the application is a system one.
+     *
+     * @param appPackage The package of the application.
+     * @return The saved flag or {@code null} if it hasn't been saved.
+     */
+    @Nullable
+    public Boolean getSystemAppFlag(@NonNull final String appPackage) {
+        final Object value = snapshot.get(KEY_SYSTEM_APP_PREFIX + appPackage);
+        return value instanceof Boolean ? (Boolean) value : null;
+    }
+
+    /**
+     * Returns the version stamp of the application for which the manifest check result has been saved.
+     *
+     * @return The version stamp or {@code null} if there is no saved result.
+     */
+    @Nullable
+    public String getManifestCheckStamp() {
+        return getString(KEY_MANIFEST_CHECK_STAMP);
+    }
+
+    public boolean isManifestCheckPassed() {
+        return getBoolean(KEY_MANIFEST_CHECK_PASSED);
+    }
+
+    @Nullable
+    public String getStandbyProviderName() {
+        return getString(KEY_STANDBY_PROVIDER);
+    }
+
+    public void saveStandbyProvider(@Nullable final PushProvider provider) {
+        edit().saveStandbyProvider(provider).commit();
+    }
+
+    public int getProviderAttemptsCount(@NonNull final String providerName) {
+        return getInt(getProviderPreferenceKey(KEY_PROVIDER_ATTEMPTS_PREFIX, providerName), 0);
+    }
+
+    public int getProviderErrorsCount(@NonNull final String providerName) {
+        return getInt(getProviderPreferenceKey(KEY_PROVIDER_ERRORS_PREFIX, providerName), 0);
+    }
+
+    public long getProviderLatencyMillis(@NonNull final String providerName) {
+        return getLong(getProviderPreferenceKey(KEY_PROVIDER_LATENCY_PREFIX, providerName));
+    }
+
+    public long getProviderTimeToFirstMessageMillis(@NonNull final String providerName) {
+        return getLong(getProviderPreferenceKey(KEY_PROVIDER_FIRST_MESSAGE_PREFIX, providerName));
     }
 
     private String getProviderPreferenceKey(@NonNull final String prefix,
                                             @NonNull final String providerName) {
         return prefix + providerName.toLowerCase(Locale.US);
     }
+
+    @Nullable
+    private String getString(@NonNull final String key) {
+        final Object value = snapshot.get(key);
+        return value instanceof String ? (String) value : null;
+    }
+
+    private int getInt(@NonNull final String key, final int defaultValue) {
+        final Object value = snapshot.get(key);
+        return value instanceof Integer ? (Integer) value : defaultValue;
+    }
+
+    private long getLong(@NonNull final String key) {
+        final Object value = snapshot.get(key);
+        return value instanceof Long ? (Long) value : 0;
+    }
+
+    private boolean getBoolean(@NonNull final String key) {
+        final Object value = snapshot.get(key);
+        return value instanceof Boolean && (Boolean) value;
+    }
+
+    /**
+     * Applies the changes to the snapshot and schedules a single write of them.
+     * Changes that don't differ from the snapshot are skipped. If all of them are skipped,
+     * the snapshot isn't copied and the monitor isn't taken.
+     *
+     * @param changes The changed keys. A {@code null} value removes the key.
+     */
+    private void commit(@NonNull final Map<String, Object> changes) {
+        if (isUnchanged(snapshot, changes)) {
+            skippedWritesCount.addAndGet(changes.size());
+            return;
+        }
+        applyChanges(changes);
+    }
+
+    private static boolean isUnchanged(@NonNull final Map<String, Object> values,
+                                       @NonNull final Map<String, Object> changes) {
+        for (Map.Entry<String, Object> change : changes.entrySet()) {
+            final Object value = change.getValue();
+            final Object oldValue = values.get(change.getKey());
+            if (value == null ? oldValue != null : !value.equals(oldValue)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private synchronized void applyChanges(@NonNull final Map<String, Object> changes) {
+        final Map<String, Object> newSnapshot = new HashMap<>(snapshot);
+        final Map<String, Object> effectiveChanges = new HashMap<>(changes.size());
+        for (Map.Entry<String, Object> change : changes.entrySet()) {
+            final String key = change.getKey();
+            final Object value = change.getValue();
+            final Object oldValue = newSnapshot.get(key);
+            if (value == null ? oldValue == null : value.equals(oldValue)) {
+                skippedWritesCount.incrementAndGet();
+                continue;
+            }
+
+            writesCount.incrementAndGet();
+            effectiveChanges.put(key, value);
+            if (value == null) {
+                newSnapshot.remove(key);
+            } else {
+                newSnapshot.put(key, value);
+            }
+        }
+
+        if (!effectiveChanges.isEmpty()) {
+            snapshot = Collections.unmodifiableMap(newSnapshot);
+            persistExecutor.execute(new PersistTask(effectiveChanges, false));
+        }
+    }
+
+    /**
+     * Collects changes of several keys and applies them to the {@link Settings} at once.
+     * An instance isn't thread-safe and is intended to be used for a single state transition.
+     */
+    final class Editor {
+
+        @NonNull
+        private final Map<String, Object> changes = new LinkedHashMap<>();
+
+        private Editor() {
+        }
+
+        @NonNull
+        public Editor saveState(@NonNull final State state) {
+            OPFLog.logMethod(state);
+            changes.put(KEY_STATE, state.getValue());
+            return this;
+        }
+
+        @NonNull
+        public Editor saveLastProvider(@Nullable final PushProvider provider) {
+            OPFLog.logMethod(provider);
+            changes.put(KEY_LAST_PROVIDER_NAME, provider == null ? null : provider.getName());
+            return this;
+        }
+
+        @NonNull
+        public Editor saveLastAndroidId(@Nullable final String androidId) {
+            OPFLog.logMethod(androidId);
+            changes.put(KEY_LAST_ANDROID_ID, androidId);
+            return this;
+        }
+
+        @NonNull
+        public Editor saveUnregisteringProvider(@NonNull final String providerName) {
+            OPFLog.logMethod(providerName);
+            changes.put(getProviderPreferenceKey(KEY_UNREGISTERING_PROVIDER_PREFIX, providerName), true);
+            return this;
+        }
+
+        @NonNull
+        public Editor removeUnregisteringProvider(@NonNull final String providerName) {
+            OPFLog.logMethod(providerName);
+            changes.put(getProviderPreferenceKey(KEY_UNREGISTERING_PROVIDER_PREFIX, providerName), null);
+            return this;
+        }
+
+        @NonNull
+        public Editor saveRegisteringProvider(@NonNull final String providerName) {
+            OPFLog.logMethod(providerName);
+            changes.put(getProviderPreferenceKey(KEY_REGISTERING_PROVIDER_PREFIX, providerName), true);
+            return this;
+        }
+
+        @NonNull
+        public Editor removeRegisteringProvider(@NonNull final String providerName) {
+            OPFLog.logMethod(providerName);
+            changes.put(getProviderPreferenceKey(KEY_REGISTERING_PROVIDER_PREFIX, providerName), null);
+            return this;
+        }
+
+        @NonNull
+        public Editor savePendingRegistrationProvider(@NonNull final String providerName) {
+            OPFLog.logMethod(providerName);
+            changes.put(KEY_PENDING_REGISTRATION_PROVIDER, providerName);
+            return this;
+        }
+
+        @NonNull
+        public Editor removePendingRegistrationProvider() {
+            OPFLog.logMethod();
+            changes.put(KEY_PENDING_REGISTRATION_PROVIDER, null);
+            return this;
+        }
+
+        @NonNull
+        public Editor savePendingUnregistrationProvider(@NonNull final String providerName) {
+            OPFLog.logMethod(providerName);
+            changes.put(KEY_PENDING_UNREGISTRATION_PROVIDER, providerName);
+            return this;
+        }
+
+        @NonNull
+        public Editor removePendingUnregistrationProvider() {
+            OPFLog.logMethod();
+            changes.put(KEY_PENDING_UNREGISTRATION_PROVIDER, null);
+            return this;
+        }
+
+        @NonNull
+        public Editor saveSystemAppsFingerprint(@NonNull final String fingerprint) {
+            OPFLog.logMethod(fingerprint);
+            changes.put(KEY_SYSTEM_APPS_FINGERPRINT, fingerprint);
+            return this;
+        }
+
+        @NonNull
+        public Editor saveSystemAppFlag(@NonNull final String appPackage, final boolean isSystemApp) {
+            OPFLog.logMethod(appPackage, isSystemApp);
+            changes.put(KEY_SYSTEM_APP_PREFIX + appPackage, isSystemApp);
+            return this;
+        }
+
+        @NonNull
+        public Editor saveManifestCheckResult(@NonNull final String versionStamp, final boolean isPassed) {
+            OPFLog.logMethod(versionStamp, isPassed);
+            changes.put(KEY_MANIFEST_CHECK_STAMP, versionStamp);
+            changes.put(KEY_MANIFEST_CHECK_PASSED, isPassed);
+            return this;
+        }
+
+        @NonNull
+        public Editor saveStandbyProvider(@Nullable final PushProvider provider) {
+            OPFLog.logMethod(provider);
+            changes.put(KEY_STANDBY_PROVIDER, provider == null ? null : provider.getName());
+            return this;
+        }
+
+        @NonNull
+        public Editor saveProviderStats(@NonNull final String providerName,
+                                        final int attemptsCount,
+                                        final int errorsCount,
+                                        final long latencyMillis,
+                                        final long timeToFirstMessageMillis) {
+            OPFLog.logMethod(providerName, attemptsCount, errorsCount, latencyMillis, timeToFirstMessageMillis);
+            changes.put(getProviderPreferenceKey(KEY_PROVIDER_ATTEMPTS_PREFIX, providerName), attemptsCount);
+            changes.put(getProviderPreferenceKey(KEY_PROVIDER_ERRORS_PREFIX, providerName), errorsCount);
+            changes.put(getProviderPreferenceKey(KEY_PROVIDER_LATENCY_PREFIX, providerName), latencyMillis);
+            changes.put(
+                    getProviderPreferenceKey(KEY_PROVIDER_FIRST_MESSAGE_PREFIX, providerName),
+                    timeToFirstMessageMillis
+            );
+            return this;
+        }
+
+        /**
+         * Atomically applies all collected changes.
+         */
+        public void commit() {
+            Settings.this.commit(changes);
+            changes.clear();
+        }
+    }
+
+    /**
+     * Writes a set of changes to the preferences file with a single commit.
+     * If {@code isClear} is {@code true}, the file is cleared before the changes are written.
+     */
+    private final class PersistTask implements Runnable {
+
+        @NonNull
+        private final Map<String, Object> changes;
+
+        private final boolean isClear;
+
+        PersistTask(@NonNull final Map<String, Object> changes, final boolean isClear) {
+            this.changes = changes;
+            this.isClear = isClear;
+        }
+
+        @Override
+        public void run() {
+            final SharedPreferences.Editor editor = preferences.edit();
+            if (isClear) {
+                editor.clear();
+            }
+            for (Map.Entry<String, Object> change : changes.entrySet()) {
+                putValue(editor, change.getKey(), change.getValue());
+            }
+
+            if (!editor.commit()) {
+                OPFLog.w("Can't persist settings changes : " + changes);
+            }
+        }
+
+        private void putValue(@NonNull final SharedPreferences.Editor editor,
+                              @NonNull final String key,
+                              @Nullable final Object value) {
+            if (value == null) {
+                editor.remove(key);
+            } else if (value instanceof Integer) {
+                editor.putInt(key, (Integer) value);
+            } else if (value instanceof Long) {
+                editor.putLong(key, (Long) value);
+            } else if (value instanceof Boolean) {
+                editor.putBoolean(key, (Boolean) value);
+            } else {
+                editor.putString(key, value.toString());
+            }
+        }
+    }
 }
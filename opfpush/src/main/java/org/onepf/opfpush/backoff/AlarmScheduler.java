@@ -0,0 +1,285 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush.backoff;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.support.annotation.NonNull;
+
+import org.onepf.opfpush.RetryBroadcastReceiver;
+import org.onepf.opfpush.utils.RecordsStorage;
+import org.onepf.opfutils.OPFLog;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+import static android.content.Context.ALARM_SERVICE;
+import static org.onepf.opfpush.OPFConstants.ACTION_RUN_SCHEDULED_TASKS;
+
+/**
+ * Schedules the delayed tasks of all providers with a single {@link AlarmManager} alarm.
+ * <p/>
+ * A task is identified by its action and provider name, so scheduling the same task again replaces it.
+ * The tasks are kept in a priority queue by the deadline. The tasks which deadlines fall within
+ * the {@link #TOLERANCE_MILLIS} window after the earliest one are batched: the alarm is armed for the latest
+ * deadline of the batch, so close deadlines wake the application once. A task can be delayed by the batching,
+ * but it's never run before its deadline.
+ * <p/>
+ * The queue is persisted with the wall clock deadlines, so the tasks survive the process death and the reboot.
+ *
+ * @since 18.10.2026
+ */
+public final class AlarmScheduler {
+
+    /**
+     * The maximum time a task can be delayed to be run together with an earlier one.
+     */
+    public static final long TOLERANCE_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private static final String KEY_TASKS = "scheduled_tasks";
+    private static final int VERSION = 1;
+    private static final int FIELDS_COUNT = 3;
+
+    private static final long NOT_ARMED = -1;
+
+    @NonNull
+    private final Context appContext;
+
+    @NonNull
+    private final AlarmManager alarmManager;
+
+    @NonNull
+    private final RecordsStorage recordsStorage;
+
+    @NonNull
+    private final PriorityQueue<Task> tasks = new PriorityQueue<>();
+
+    @NonNull
+    private final Map<String, Task> tasksByKey = new HashMap<>();
+
+    private long armedTime = NOT_ARMED;
+
+    AlarmScheduler(@NonNull final Context context) {
+        appContext = context.getApplicationContext();
+        alarmManager = (AlarmManager) appContext.getSystemService(ALARM_SERVICE);
+        recordsStorage = new RecordsStorage(appContext);
+        loadTasks();
+        rearm();
+    }
+
+    /**
+     * Schedules the task or moves the already scheduled one to the new deadline.
+     *
+     * @param action       The action of the task.
+     * @param providerName The name of the provider the task belongs to.
+     * @param when         The wall clock time the task must be run at.
+     */
+    public synchronized void schedule(@NonNull final String action,
+                                      @NonNull final String providerName,
+                                      final long when) {
+        OPFLog.d("Schedule %s of provider '%s' at %s", action, providerName, formatTime(when));
+        final Task task = new Task(action, providerName, when);
+        final Task previousTask = tasksByKey.put(task.key, task);
+        if (previousTask != null) {
+            tasks.remove(previousTask);
+        }
+        tasks.add(task);
+        saveTasks();
+        arm(false);
+    }
+
+    /**
+     * Removes the task from the queue. The alarm is cancelled if there are no other tasks.
+     *
+     * @param action       The action of the task.
+     * @param providerName The name of the provider the task belongs to.
+     */
+    public synchronized void cancel(@NonNull final String action, @NonNull final String providerName) {
+        final Task task = tasksByKey.remove(Task.getKey(action, providerName));
+        if (task != null) {
+            OPFLog.d("Cancel %s of provider '%s'", action, providerName);
+            tasks.remove(task);
+            saveTasks();
+            arm(false);
+        }
+    }
+
+    public synchronized boolean isScheduled(@NonNull final String action, @NonNull final String providerName) {
+        return tasksByKey.containsKey(Task.getKey(action, providerName));
+    }
+
+    /**
+     * Removes the tasks which deadlines have passed and arms the alarm for the rest.
+     *
+     * @return The removed tasks in the order of their deadlines.
+     */
+    @NonNull
+    public synchronized List<Task> pollDueTasks() {
+        final long deadline = System.currentTimeMillis();
+        final List<Task> dueTasks = new ArrayList<>();
+        while (!tasks.isEmpty() && tasks.peek().when <= deadline) {
+            final Task task = tasks.poll();
+            tasksByKey.remove(task.key);
+            dueTasks.add(task);
+        }
+        if (!dueTasks.isEmpty()) {
+            saveTasks();
+        }
+
+        armedTime = NOT_ARMED;
+        arm(false);
+        return dueTasks;
+    }
+
+    /**
+     * Arms the alarm even if it seems to be armed already. The alarms don't survive the reboot,
+     * so it must be called when the device boots.
+     */
+    public synchronized void rearm() {
+        arm(true);
+    }
+
+    private void arm(final boolean isForced) {
+        final Task earliestTask = tasks.peek();
+        if (earliestTask == null) {
+            if (armedTime != NOT_ARMED || isForced) {
+                OPFLog.d("Cancel scheduler alarm");
+                final PendingIntent pendingIntent = createAlarmIntent();
+                alarmManager.cancel(pendingIntent);
+                pendingIntent.cancel();
+                armedTime = NOT_ARMED;
+            }
+        } else {
+            final long alarmTime = getBatchTime(earliestTask.when);
+            if (alarmTime != armedTime || isForced) {
+                OPFLog.d("Arm scheduler alarm at " + formatTime(alarmTime));
+                alarmManager.set(AlarmManager.RTC, alarmTime, createAlarmIntent());
+                armedTime = alarmTime;
+            }
+        }
+    }
+
+    /**
+     * Returns the latest deadline which is within the tolerance window after the earliest one.
+     */
+    private long getBatchTime(final long earliestTime) {
+        final long windowEnd = earliestTime + TOLERANCE_MILLIS;
+        long batchTime = earliestTime;
+        for (Task task : tasks) {
+            if (task.when <= windowEnd && task.when > batchTime) {
+                batchTime = task.when;
+            }
+        }
+        return batchTime;
+    }
+
+    @NonNull
+    private PendingIntent createAlarmIntent() {
+        final Intent intent = new Intent(appContext, RetryBroadcastReceiver.class);
+        intent.setAction(ACTION_RUN_SCHEDULED_TASKS);
+        return PendingIntent.getBroadcast(appContext, 0, intent, 0);
+    }
+
+    private void loadTasks() {
+        for (String[] fields : recordsStorage.load(KEY_TASKS, VERSION, FIELDS_COUNT)) {
+            try {
+                final Task task = new Task(fields[1], fields[2], Long.parseLong(fields[0]));
+                tasksByKey.put(task.key, task);
+                tasks.add(task);
+            } catch (NumberFormatException e) {
+                OPFLog.w("Wrong scheduled task of provider " + fields[2], e);
+            }
+        }
+    }
+
+    private void saveTasks() {
+        final List<String[]> records = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            records.add(new String[]{String.valueOf(task.when), task.action, task.providerName});
+        }
+        recordsStorage.save(KEY_TASKS, VERSION, records);
+    }
+
+    @NonNull
+    private static String formatTime(final long time) {
+        return SimpleDateFormat.getDateTimeInstance(DateFormat.DEFAULT, DateFormat.DEFAULT, Locale.US)
+                .format(new Date(time));
+    }
+
+    /**
+     * The scheduled action of a provider.
+     */
+    public static final class Task implements Comparable<Task> {
+
+        @NonNull
+        private final String action;
+
+        @NonNull
+        private final String providerName;
+
+        private final long when;
+
+        @NonNull
+        private final String key;
+
+        Task(@NonNull final String action, @NonNull final String providerName, final long when) {
+            this.action = action;
+            this.providerName = providerName;
+            this.when = when;
+            this.key = getKey(action, providerName);
+        }
+
+        @NonNull
+        public String getAction() {
+            return action;
+        }
+
+        @NonNull
+        public String getProviderName() {
+            return providerName;
+        }
+
+        public long getWhen() {
+            return when;
+        }
+
+        @Override
+        public int compareTo(@NonNull final Task task) {
+            return when < task.when ? -1 : (when == task.when ? 0 : 1);
+        }
+
+        @Override
+        public String toString() {
+            return action + ' ' + providerName + " at " + when;
+        }
+
+        @NonNull
+        private static String getKey(@NonNull final String action, @NonNull final String providerName) {
+            return action + ',' + providerName;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush.backoff;
+
+import android.support.annotation.NonNull;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * The exponential backoff with the delay limited by the maximum value and the equal jitter.
+ * The ceiling of the n-th try delay is {@code min(maxDelay, baseDelay * 2^n)}, and the delay is uniformly
+ * distributed between the half of the ceiling and the ceiling. The number of tries is unlimited.
+ * The state is kept per provider and operation.
+ *
+ * @since 18.10.2026
+ */
+public final class CappedExponentialBackoffManager extends ProviderBackoffManager {
+
+    private final long baseDelayMillis;
+
+    private final long maxDelayMillis;
+
+    /**
+     * @param baseDelayMillis The ceiling of the first try delay in milliseconds.
+     * @param maxDelayMillis  The maximum delay in milliseconds.
+     * @throws java.lang.IllegalArgumentException If {@code baseDelayMillis} isn't positive
+     *                                            or is greater than {@code maxDelayMillis}.
+     */
+    public CappedExponentialBackoffManager(final long baseDelayMillis, final long maxDelayMillis) {
+        this(baseDelayMillis, maxDelayMillis, new Random());
+    }
+
+    CappedExponentialBackoffManager(final long baseDelayMillis,
+                                    final long maxDelayMillis,
+                                    @NonNull final Random random) {
+        super(createBackoffFactory(baseDelayMillis, maxDelayMillis, random));
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    @NonNull
+    private static BackoffFactory createBackoffFactory(final long baseDelayMillis,
+                                                       final long maxDelayMillis,
+                                                       @NonNull final Random random) {
+        checkDelays(baseDelayMillis, maxDelayMillis);
+        return new BackoffFactory() {
+            @NonNull
+            @Override
+            public Backoff createBackoff() {
+                return new CappedExponentialBackoff(baseDelayMillis, maxDelayMillis, random);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "CappedExponentialBackoffManager{base=%d, max=%d}",
+                baseDelayMillis, maxDelayMillis);
+    }
+
+    private static final class CappedExponentialBackoff implements Backoff {
+
+        private final long baseDelayMillis;
+
+        private final long maxDelayMillis;
+
+        @NonNull
+        private final Random random;
+
+        private long ceilingMillis;
+
+        CappedExponentialBackoff(final long baseDelayMillis,
+                                 final long maxDelayMillis,
+                                 @NonNull final Random random) {
+            this.baseDelayMillis = baseDelayMillis;
+            this.maxDelayMillis = maxDelayMillis;
+            this.random = random;
+            ceilingMillis = baseDelayMillis;
+        }
+
+        @Override
+        public boolean hasTries() {
+            return true;
+        }
+
+        @Override
+        public synchronized long getTryDelay() {
+            final long halfCeilingMillis = ceilingMillis / 2;
+            final long delayMillis = halfCeilingMillis + (long) (random.nextDouble() * (ceilingMillis - halfCeilingMillis + 1));
+            ceilingMillis = ceilingMillis > maxDelayMillis / 2 ? maxDelayMillis : ceilingMillis * 2;
+            return delayMillis;
+        }
+
+        @Override
+        public synchronized void reset() {
+            ceilingMillis = baseDelayMillis;
+        }
+    }
+}
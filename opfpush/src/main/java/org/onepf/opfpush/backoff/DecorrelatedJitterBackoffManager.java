@@ -0,0 +1,115 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush.backoff;
+
+import android.support.annotation.NonNull;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * The backoff with the decorrelated jitter: every delay is uniformly distributed between the base delay
+ * and the triple previous delay, limited by the maximum value. The delays grow about as fast as the
+ * exponential ones, but the retries of different devices spread out instead of staying in waves.
+ * The number of tries is unlimited. The state is kept per provider and operation.
+ *
+ * @since 18.10.2026
+ */
+public final class DecorrelatedJitterBackoffManager extends ProviderBackoffManager {
+
+    private static final int GROWTH_FACTOR = 3;
+
+    private final long baseDelayMillis;
+
+    private final long maxDelayMillis;
+
+    /**
+     * @param baseDelayMillis The minimum delay in milliseconds.
+     * @param maxDelayMillis  The maximum delay in milliseconds.
+     * @throws java.lang.IllegalArgumentException If {@code baseDelayMillis} isn't positive
+     *                                            or is greater than {@code maxDelayMillis}.
+     */
+    public DecorrelatedJitterBackoffManager(final long baseDelayMillis, final long maxDelayMillis) {
+        this(baseDelayMillis, maxDelayMillis, new Random());
+    }
+
+    DecorrelatedJitterBackoffManager(final long baseDelayMillis,
+                                     final long maxDelayMillis,
+                                     @NonNull final Random random) {
+        super(createBackoffFactory(baseDelayMillis, maxDelayMillis, random));
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    @NonNull
+    private static BackoffFactory createBackoffFactory(final long baseDelayMillis,
+                                                       final long maxDelayMillis,
+                                                       @NonNull final Random random) {
+        checkDelays(baseDelayMillis, maxDelayMillis);
+        return new BackoffFactory() {
+            @NonNull
+            @Override
+            public Backoff createBackoff() {
+                return new DecorrelatedJitterBackoff(baseDelayMillis, maxDelayMillis, random);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "DecorrelatedJitterBackoffManager{base=%d, max=%d}",
+                baseDelayMillis, maxDelayMillis);
+    }
+
+    private static final class DecorrelatedJitterBackoff implements Backoff {
+
+        private final long baseDelayMillis;
+
+        private final long maxDelayMillis;
+
+        @NonNull
+        private final Random random;
+
+        private long previousDelayMillis;
+
+        DecorrelatedJitterBackoff(final long baseDelayMillis,
+                                  final long maxDelayMillis,
+                                  @NonNull final Random random) {
+            this.baseDelayMillis = baseDelayMillis;
+            this.maxDelayMillis = maxDelayMillis;
+            this.random = random;
+            previousDelayMillis = baseDelayMillis;
+        }
+
+        @Override
+        public boolean hasTries() {
+            return true;
+        }
+
+        @Override
+        public synchronized long getTryDelay() {
+            final long upperBoundMillis = Math.min(maxDelayMillis, previousDelayMillis * GROWTH_FACTOR);
+            previousDelayMillis = baseDelayMillis + (long) (random.nextDouble() * (upperBoundMillis - baseDelayMillis + 1));
+            return previousDelayMillis;
+        }
+
+        @Override
+        public synchronized void reset() {
+            previousDelayMillis = baseDelayMillis;
+        }
+    }
+}
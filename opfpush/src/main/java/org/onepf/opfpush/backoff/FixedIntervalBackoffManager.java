@@ -0,0 +1,106 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush.backoff;
+
+import android.support.annotation.NonNull;
+
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * The backoff with the same delay before every try and the limited number of tries.
+ * When the tries are exhausted, the registration error is reported as
+ * {@link org.onepf.opfpush.model.UnrecoverablePushError.Type#RETRIES_EXHAUSTED} and the next
+ * provider is tried. The state is kept per provider and operation.
+ *
+ * @since 18.10.2026
+ */
+public final class FixedIntervalBackoffManager extends ProviderBackoffManager {
+
+    private final long intervalMillis;
+
+    private final int maxAttempts;
+
+    /**
+     * @param intervalMillis The delay before every try in milliseconds.
+     * @param maxAttempts    The maximum number of the retries after the first failure.
+     * @throws java.lang.IllegalArgumentException If {@code intervalMillis} is negative or {@code maxAttempts} isn't positive.
+     */
+    public FixedIntervalBackoffManager(final long intervalMillis, final int maxAttempts) {
+        super(createBackoffFactory(intervalMillis, maxAttempts));
+        this.intervalMillis = intervalMillis;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @NonNull
+    private static BackoffFactory createBackoffFactory(final long intervalMillis, final int maxAttempts) {
+        if (intervalMillis < 0 || maxAttempts <= 0) {
+            throw new IllegalArgumentException(String.format(Locale.US,
+                    "Wrong interval %d or max attempts %d", intervalMillis, maxAttempts));
+        }
+
+        return new BackoffFactory() {
+            @NonNull
+            @Override
+            public Backoff createBackoff() {
+                return new FixedIntervalBackoff(intervalMillis, maxAttempts);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "FixedIntervalBackoffManager{interval=%d, maxAttempts=%d}",
+                intervalMillis, maxAttempts);
+    }
+
+    private static final class FixedIntervalBackoff implements Backoff {
+
+        private final long intervalMillis;
+
+        private final int maxAttempts;
+
+        private int attempts;
+
+        FixedIntervalBackoff(final long intervalMillis, final int maxAttempts) {
+            this.intervalMillis = intervalMillis;
+            this.maxAttempts = maxAttempts;
+        }
+
+        @Override
+        public synchronized boolean hasTries() {
+            return attempts < maxAttempts;
+        }
+
+        /**
+         * @throws java.util.NoSuchElementException If there are no more tries.
+         */
+        @Override
+        public synchronized long getTryDelay() {
+            if (attempts >= maxAttempts) {
+                throw new NoSuchElementException("No more tries after " + maxAttempts + " attempts");
+            }
+            attempts++;
+            return intervalMillis;
+        }
+
+        @Override
+        public synchronized void reset() {
+            attempts = 0;
+        }
+    }
+}
@@ -20,10 +20,15 @@ import android.support.annotation.NonNull;
 
 import org.onepf.opfutils.OPFLog;
 
+import java.util.Random;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * The exponential backoff with full jitter: the delay of a try is uniformly distributed between zero
+ * and the exponentially growing ceiling, so the devices which have failed at the same time
+ * don't retry at the same time.
+ *
  * @author Kirill Rozov
  * @author Roman Savin
  * @since 05.09.14.
@@ -39,6 +44,17 @@ final class InfinityExponentialBackoff implements Backoff {
     @NonNull
     private final AtomicInteger tryNumber = new AtomicInteger(0);
 
+    @NonNull
+    private final Random random;
+
+    InfinityExponentialBackoff() {
+        this(new Random());
+    }
+
+    InfinityExponentialBackoff(@NonNull final Random random) {
+        this.random = random;
+    }
+
     /**
      * Compute summary delay for all tries.
      */
@@ -58,7 +74,15 @@ final class InfinityExponentialBackoff implements Backoff {
 
     private long getTryDelay(int currentTryNumber) {
         OPFLog.logMethod(currentTryNumber);
-        return TimeUnit.SECONDS.toMillis(2 << currentTryNumber);
+        final long maxDelay = getMaxTryDelay(currentTryNumber);
+        return (long) (random.nextDouble() * (maxDelay + 1));
+    }
+
+    /**
+     * Returns the ceiling of the delay of the try in milliseconds.
+     */
+    static long getMaxTryDelay(final int tryNumber) {
+        return TimeUnit.SECONDS.toMillis(2 << Math.min(tryNumber, MAX_TRY_COUNT));
     }
 
     @Override
@@ -19,26 +19,23 @@ package org.onepf.opfpush.backoff;
 import android.support.annotation.NonNull;
 
 import org.onepf.opfutils.OPFChecks;
-import org.onepf.opfutils.OPFLog;
-import org.onepf.opfpush.model.Operation;
 
 /**
  * @author Roman Savin
  * @since 04.02.2015
  */
-public final class InfinityExponentialBackoffManager implements BackoffManager {
+public final class InfinityExponentialBackoffManager extends ProviderBackoffManager {
 
     private static volatile InfinityExponentialBackoffManager instance;
 
-    @NonNull
-    private final BackoffManager registerBackoffAdapter;
-
-    @NonNull
-    private final BackoffManager unregisterBackoffAdapter;
-
     private InfinityExponentialBackoffManager() {
-        registerBackoffAdapter = new RegisterBackoffAdapter<>(InfinityExponentialBackoff.class);
-        unregisterBackoffAdapter = new UnregisterBackoffAdapter<>(InfinityExponentialBackoff.class);
+        super(new BackoffFactory() {
+            @NonNull
+            @Override
+            public Backoff createBackoff() {
+                return new InfinityExponentialBackoff();
+            }
+        });
     }
 
     @SuppressWarnings("PMD.NonThreadSafeSingleton")
@@ -50,33 +47,4 @@ public final class InfinityExponentialBackoffManager implements BackoffManager {
 
         return instance;
     }
-
-    public boolean hasTries(@NonNull final String providerName,
-                            @NonNull final Operation operation) {
-        OPFLog.logMethod(providerName, operation);
-        return getManagerByOperation(operation).hasTries(providerName, operation);
-    }
-
-    public long getTryDelay(@NonNull final String providerName,
-                            @NonNull final Operation operation) {
-        OPFLog.logMethod(providerName, operation);
-        return getManagerByOperation(operation).getTryDelay(providerName, operation);
-    }
-
-    public void reset(@NonNull final String providerName,
-                      @NonNull final Operation operation) {
-        OPFLog.logMethod(providerName, operation);
-        getManagerByOperation(operation).reset(providerName, operation);
-    }
-
-    @NonNull
-    private BackoffManager getManagerByOperation(@NonNull final Operation operation) {
-        switch (operation) {
-            case REGISTER:
-                return registerBackoffAdapter;
-            case UNREGISTER:
-                return unregisterBackoffAdapter;
-        }
-        throw new IllegalStateException("Wrong operation : " + operation);
-    }
 }
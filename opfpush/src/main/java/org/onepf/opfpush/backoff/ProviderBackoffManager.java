@@ -0,0 +1,103 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush.backoff;
+
+import android.support.annotation.NonNull;
+
+import org.onepf.opfpush.model.Operation;
+import org.onepf.opfutils.OPFLog;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The base of the {@link BackoffManager}s which keep a separate {@link Backoff} for every pair of a provider
+ * and an operation, so the retries of one provider don't affect the delays of another one.
+ * The backoff is created by the {@link BackoffFactory} on the first use and dropped
+ * on {@link #reset(String, Operation)}.
+ *
+ * @since 18.10.2026
+ */
+abstract class ProviderBackoffManager implements BackoffManager {
+
+    @NonNull
+    private final BackoffFactory backoffFactory;
+
+    @NonNull
+    private final Map<Operation, ConcurrentMap<String, Backoff>> backoffs = new EnumMap<>(Operation.class);
+
+    ProviderBackoffManager(@NonNull final BackoffFactory backoffFactory) {
+        this.backoffFactory = backoffFactory;
+        for (Operation operation : Operation.values()) {
+            backoffs.put(operation, new ConcurrentHashMap<String, Backoff>());
+        }
+    }
+
+    @Override
+    public final boolean hasTries(@NonNull final String providerName, @NonNull final Operation operation) {
+        OPFLog.logMethod(providerName, operation);
+        return getBackoff(providerName, operation).hasTries();
+    }
+
+    @Override
+    public final long getTryDelay(@NonNull final String providerName, @NonNull final Operation operation) {
+        OPFLog.logMethod(providerName, operation);
+        return getBackoff(providerName, operation).getTryDelay();
+    }
+
+    @Override
+    public final void reset(@NonNull final String providerName, @NonNull final Operation operation) {
+        OPFLog.logMethod(providerName, operation);
+        backoffs.get(operation).remove(providerName);
+    }
+
+    /**
+     * @throws java.lang.IllegalArgumentException If {@code baseDelayMillis} isn't positive
+     *                                            or is greater than {@code maxDelayMillis}.
+     */
+    static void checkDelays(final long baseDelayMillis, final long maxDelayMillis) {
+        if (baseDelayMillis <= 0 || baseDelayMillis > maxDelayMillis) {
+            throw new IllegalArgumentException(String.format(Locale.US,
+                    "Wrong delays : base %d, max %d", baseDelayMillis, maxDelayMillis));
+        }
+    }
+
+    @NonNull
+    private Backoff getBackoff(@NonNull final String providerName, @NonNull final Operation operation) {
+        final ConcurrentMap<String, Backoff> operationBackoffs = backoffs.get(operation);
+        final Backoff backoff = operationBackoffs.get(providerName);
+        if (backoff != null) {
+            return backoff;
+        }
+
+        final Backoff newBackoff = backoffFactory.createBackoff();
+        final Backoff existingBackoff = operationBackoffs.putIfAbsent(providerName, newBackoff);
+        return existingBackoff == null ? newBackoff : existingBackoff;
+    }
+
+    /**
+     * Creates the initial state of the {@link Backoff} for a provider and an operation.
+     */
+    interface BackoffFactory {
+
+        @NonNull
+        Backoff createBackoff();
+    }
+}
@@ -16,43 +16,48 @@
 
 package org.onepf.opfpush.backoff;
 
-import android.app.AlarmManager;
-import android.app.PendingIntent;
 import android.content.Context;
-import android.content.Intent;
 import android.content.IntentFilter;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.util.Pair;
 
 import org.onepf.opfpush.ConnectivityChangeReceiver;
-import org.onepf.opfpush.RetryBroadcastReceiver;
+import org.onepf.opfpush.metrics.PushMetrics;
+import org.onepf.opfpush.metrics.SimplePushMetrics;
 import org.onepf.opfpush.model.Operation;
 import org.onepf.opfutils.OPFChecks;
 import org.onepf.opfutils.OPFLog;
 import org.onepf.opfutils.exception.InitException;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.HashSet;
-import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
-import static android.content.Context.ALARM_SERVICE;
 import static android.net.ConnectivityManager.CONNECTIVITY_ACTION;
 import static org.onepf.opfpush.OPFConstants.ACTION_RETRY_REGISTER;
 import static org.onepf.opfpush.OPFConstants.ACTION_RETRY_UNREGISTER;
-import static org.onepf.opfpush.OPFConstants.EXTRA_PROVIDER_NAME;
 import static org.onepf.opfpush.model.Operation.REGISTER;
 import static org.onepf.opfpush.model.Operation.UNREGISTER;
 
 /**
+ * Schedules the retries of the failed operations via the {@link AlarmScheduler}.
+ * <p/>
+ * The number of the scheduled retries and the time of the next retry of every operation are persisted,
+ * so a new process restores the backoff state instead of starting from the shortest delay.
+ *
  * @author Roman Savin
  * @since 06.02.2015
  */
 public final class RetryManager implements BackoffManager {
 
+    /**
+     * The maximum number of the tries which are replayed to the {@link BackoffManager} on the restore.
+     * The delays of all built-in policies reach their caps long before.
+     */
+    private static final int MAX_RESTORED_ATTEMPTS = 32;
+
     private static volatile RetryManager instance;
 
     @NonNull
@@ -62,28 +67,59 @@ public final class RetryManager implements BackoffManager {
     private final BackoffManager backoffManager;
 
     @NonNull
-    private final AlarmManager alarmManager;
+    private final AlarmScheduler alarmScheduler;
+
+    @NonNull
+    private final PushMetrics pushMetrics;
 
     private final Set<Pair<String, String>> retryProvidersActions;
 
+    @NonNull
+    private final RetryStateStorage retryStateStorage;
+
+    @NonNull
+    private final Map<Pair<String, Operation>, RetryStateStorage.RetryState> retryStates = new ConcurrentHashMap<>();
+
     @Nullable
     private ConnectivityChangeReceiver connectivityChangeReceiver;
 
     private RetryManager(@NonNull final Context context,
-                         @NonNull final BackoffManager backoffManager) {
+                         @NonNull final BackoffManager backoffManager,
+                         @NonNull final PushMetrics pushMetrics) {
         this.appContext = context.getApplicationContext();
         this.backoffManager = backoffManager;
-        this.alarmManager = (AlarmManager) context.getSystemService(ALARM_SERVICE);
+        this.pushMetrics = pushMetrics;
+        this.alarmScheduler = new AlarmScheduler(appContext);
         this.retryProvidersActions = new HashSet<>();
+        this.retryStateStorage = new RetryStateStorage(appContext);
     }
 
     @NonNull
     @SuppressWarnings("PMD.NonThreadSafeSingleton")
     public static RetryManager init(@NonNull final Context context,
                             @NonNull final BackoffManager backoffManager) {
+        return init(context, backoffManager, new SimplePushMetrics());
+    }
+
+    /**
+     * Initializes the {@code RetryManager} which reports every scheduled retry to the {@code pushMetrics}.
+     * The retries persisted by the previous process are restored and rescheduled if they are missing in the scheduler.
+     *
+     * @param context        The application context.
+     * @param backoffManager The {@link BackoffManager} which provides the retry delays.
+     * @param pushMetrics    The {@link PushMetrics} which receives the scheduled retries.
+     * @return The initialized {@code RetryManager}.
+     */
+    @NonNull
+    @SuppressWarnings("PMD.NonThreadSafeSingleton")
+    public static RetryManager init(@NonNull final Context context,
+                                    @NonNull final BackoffManager backoffManager,
+                                    @NonNull final PushMetrics pushMetrics) {
         OPFChecks.checkThread(true);
         checkInit(false);
-        return instance = new RetryManager(context, backoffManager);
+        instance = new RetryManager(context, backoffManager, pushMetrics);
+        instance.restoreRetries();
+        return instance;
     }
 
     @NonNull
@@ -115,6 +151,9 @@ public final class RetryManager implements BackoffManager {
     @Override
     public void reset(@NonNull final String providerName, @NonNull final Operation operation) {
         backoffManager.reset(providerName, operation);
+        if (retryStates.remove(new Pair<>(providerName, operation)) != null) {
+            saveRetryStates();
+        }
     }
 
     public void postRetryRegister(@NonNull final String providerName) {
@@ -142,6 +181,16 @@ public final class RetryManager implements BackoffManager {
         cancelRetry(providerName, UNREGISTER, ACTION_RETRY_UNREGISTER);
     }
 
+    /**
+     * Returns the {@link AlarmScheduler} which runs the retries and the other delayed tasks of the providers.
+     *
+     * @return The {@link AlarmScheduler} instance.
+     */
+    @NonNull
+    public AlarmScheduler getAlarmScheduler() {
+        return alarmScheduler;
+    }
+
     @NonNull
     public Set<Pair<String, String>> getRetryProvidersActions() {
         OPFLog.logMethod();
@@ -151,27 +200,55 @@ public final class RetryManager implements BackoffManager {
     private void postRetry(@NonNull final String providerName,
                            @NonNull final Operation operation,
                            @NonNull final String action) {
-        final long when = System.currentTimeMillis() + getTryDelay(providerName, operation);
-        OPFLog.d("Post retry %s provider '%s' at %s",
-                operation,
-                providerName,
-                SimpleDateFormat.getDateTimeInstance(
-                        DateFormat.DEFAULT, DateFormat.DEFAULT, Locale.US
-                ).format(new Date(when))
-        );
+        final long delay = getTryDelay(providerName, operation);
+        final long when = System.currentTimeMillis() + delay;
+        OPFLog.d("Post retry %s provider '%s'", operation, providerName);
+
+        final Pair<String, Operation> key = new Pair<>(providerName, operation);
+        final RetryStateStorage.RetryState state = retryStates.get(key);
+        retryStates.put(key, new RetryStateStorage.RetryState(
+                providerName, operation, state == null ? 1 : state.attempts + 1, when
+        ));
+        saveRetryStates();
 
         retryProvidersActions.add(new Pair<>(providerName, action));
         registerConnectivityChangeReceiver();
+        pushMetrics.onRetryScheduled(providerName, operation, delay);
+
+        alarmScheduler.schedule(action, providerName, when);
+    }
 
-        final Intent intent = new Intent(appContext, RetryBroadcastReceiver.class);
-        intent.setAction(action);
-        intent.putExtra(EXTRA_PROVIDER_NAME, providerName);
+    /**
+     * Replays the persisted number of tries to the {@link BackoffManager}, so it continues from the same delay,
+     * and reschedules the retries which are missing in the {@link AlarmScheduler},
+     * e.g. because they had been run just before the process died.
+     */
+    private void restoreRetries() {
+        final long now = System.currentTimeMillis();
+        for (RetryStateStorage.RetryState state : retryStateStorage.load()) {
+            final String providerName = state.providerName;
+            final Operation operation = state.operation;
+            OPFLog.d("Restore %d retries of %s provider '%s'", state.attempts, operation, providerName);
+
+            final int attempts = Math.min(state.attempts, MAX_RESTORED_ATTEMPTS);
+            for (int i = 0; i < attempts && backoffManager.hasTries(providerName, operation); i++) {
+                backoffManager.getTryDelay(providerName, operation);
+            }
+            retryStates.put(new Pair<>(providerName, operation), state);
+
+            final String action = operation == REGISTER ? ACTION_RETRY_REGISTER : ACTION_RETRY_UNREGISTER;
+            retryProvidersActions.add(new Pair<>(providerName, action));
+            registerConnectivityChangeReceiver();
+
+            if (!alarmScheduler.isScheduled(action, providerName)) {
+                OPFLog.d("Reschedule lost retry %s provider '%s'", operation, providerName);
+                alarmScheduler.schedule(action, providerName, Math.max(state.nextRetryTime, now));
+            }
+        }
+    }
 
-        alarmManager.set(
-                AlarmManager.RTC,
-                when,
-                PendingIntent.getBroadcast(appContext, providerName.hashCode(), intent, 0)
-        );
+    private void saveRetryStates() {
+        retryStateStorage.save(retryStates.values());
     }
 
     private void cancelRetry(@NonNull final String providerName,
@@ -184,13 +261,7 @@ public final class RetryManager implements BackoffManager {
             unregisterConnectivityChangeReceiver();
         }
 
-        final Intent intent = new Intent(appContext, RetryBroadcastReceiver.class);
-        intent.setAction(action);
-
-        final PendingIntent pendingIntent = PendingIntent
-                .getBroadcast(appContext, providerName.hashCode(), intent, 0);
-        alarmManager.cancel(pendingIntent);
-        pendingIntent.cancel();
+        alarmScheduler.cancel(action, providerName);
     }
 
     private void registerConnectivityChangeReceiver() {
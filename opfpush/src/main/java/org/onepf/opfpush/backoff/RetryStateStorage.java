@@ -0,0 +1,105 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush.backoff;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+
+import org.onepf.opfpush.model.Operation;
+import org.onepf.opfpush.utils.RecordsStorage;
+import org.onepf.opfutils.OPFLog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Persists the retry states in the {@link RecordsStorage}, one record per state:
+ * {@code OPERATION,attempts,nextRetryTime,providerName}.
+ *
+ * @since 18.10.2026
+ */
+final class RetryStateStorage {
+
+    private static final String KEY_RETRY_STATES = "retry_states";
+    private static final int VERSION = 1;
+    private static final int FIELDS_COUNT = 4;
+
+    @NonNull
+    private final RecordsStorage recordsStorage;
+
+    RetryStateStorage(@NonNull final Context context) {
+        recordsStorage = new RecordsStorage(context);
+    }
+
+    @NonNull
+    List<RetryState> load() {
+        final List<RetryState> states = new ArrayList<>();
+        for (String[] fields : recordsStorage.load(KEY_RETRY_STATES, VERSION, FIELDS_COUNT)) {
+            try {
+                states.add(new RetryState(
+                        fields[3],
+                        Operation.valueOf(fields[0]),
+                        Integer.parseInt(fields[1]),
+                        Long.parseLong(fields[2])
+                ));
+            } catch (IllegalArgumentException e) {
+                OPFLog.w("Wrong retry state of provider " + fields[3], e);
+            }
+        }
+        return states;
+    }
+
+    void save(@NonNull final Collection<RetryState> states) {
+        final List<String[]> records = new ArrayList<>(states.size());
+        for (RetryState state : states) {
+            records.add(new String[]{
+                    state.operation.name(),
+                    String.valueOf(state.attempts),
+                    String.valueOf(state.nextRetryTime),
+                    state.providerName
+            });
+        }
+        recordsStorage.save(KEY_RETRY_STATES, VERSION, records);
+    }
+
+    /**
+     * The number of the scheduled retries of the operation and the wall clock time of the last one.
+     */
+    static final class RetryState {
+
+        @NonNull
+        final String providerName;
+
+        @NonNull
+        final Operation operation;
+
+        final int attempts;
+
+        final long nextRetryTime;
+
+        RetryState(@NonNull final String providerName,
+                   @NonNull final Operation operation,
+                   final int attempts,
+                   final long nextRetryTime) {
+            this.providerName = providerName;
+            this.operation = operation;
+            this.attempts = attempts;
+            this.nextRetryTime = nextRetryTime;
+        }
+    }
+}
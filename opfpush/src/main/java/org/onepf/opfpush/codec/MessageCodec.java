@@ -0,0 +1,563 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush.codec;
+
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.onepf.opfpush.model.Message;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The versioned compact binary format of {@link Message} and of the push message extras.
+ * Unlike {@link android.os.Parcel}, the format is stable across OS versions, so it can be persisted.
+ * <p/>
+ * The encoded data starts with the magic byte, the version and the kind of the content.
+ * All lengths and counts are unsigned varints, ints and longs are zigzag varints, strings are UTF-8.
+ * Every key is written once per encoded data, its repetitions in nested bundles are written
+ * as the varint index of the first occurrence.
+ * <p/>
+ * Supported values are {@code null}, {@link String}, boxed primitives, {@link Bundle},
+ * {@code String[]}, {@code byte[]}, {@code int[]}, {@code long[]} and {@code ArrayList<String>}.
+ *
+ * @since 18.10.2026
+ */
+public final class MessageCodec {
+
+    /**
+     * The current version of the format.
+     */
+    public static final int VERSION = 1;
+
+    private static final int MAGIC = 0x4F;
+
+    private static final int KIND_BUNDLE = 1;
+    private static final int KIND_MESSAGE = 2;
+
+    private static final int TYPE_NULL = 0;
+    private static final int TYPE_STRING = 1;
+    private static final int TYPE_INT = 2;
+    private static final int TYPE_LONG = 3;
+    private static final int TYPE_BOOLEAN = 4;
+    private static final int TYPE_DOUBLE = 5;
+    private static final int TYPE_FLOAT = 6;
+    private static final int TYPE_SHORT = 7;
+    private static final int TYPE_BYTE = 8;
+    private static final int TYPE_CHAR = 9;
+    private static final int TYPE_BUNDLE = 10;
+    private static final int TYPE_STRING_ARRAY = 11;
+    private static final int TYPE_BYTE_ARRAY = 12;
+    private static final int TYPE_INT_ARRAY = 13;
+    private static final int TYPE_LONG_ARRAY = 14;
+    private static final int TYPE_STRING_ARRAY_LIST = 15;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private MessageCodec() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Encodes the bundle.
+     *
+     * @param bundle The bundle to encode.
+     * @return The encoded bundle.
+     * @throws java.lang.IllegalArgumentException If the bundle contains a value of an unsupported type.
+     */
+    @NonNull
+    public static byte[] encode(@NonNull final Bundle bundle) {
+        final Writer writer = new Writer(KIND_BUNDLE);
+        writer.writeBundle(bundle);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Encodes the message.
+     *
+     * @param message The message to encode.
+     * @return The encoded message.
+     * @throws java.lang.IllegalArgumentException If the message data contains a value of an unsupported type.
+     */
+    @NonNull
+    public static byte[] encode(@NonNull final Message message) {
+        final Writer writer = new Writer(KIND_MESSAGE);
+        writer.writeString(message.getId());
+        writer.writeVarLong(message.getTimeToLeave());
+        writer.writeBundle(message.getData());
+        return writer.toByteArray();
+    }
+
+    /**
+     * Decodes the bundle encoded by {@link #encode(Bundle)}.
+     *
+     * @param data The encoded bundle.
+     * @return The decoded bundle.
+     * @throws java.lang.IllegalArgumentException If the data is malformed or has an unsupported version.
+     */
+    @NonNull
+    public static Bundle decodeBundle(@NonNull final byte[] data) {
+        final Reader reader = new Reader(data, KIND_BUNDLE);
+        final Bundle bundle = reader.readBundle();
+        reader.checkEnd();
+        return bundle;
+    }
+
+    /**
+     * Decodes the message encoded by {@link #encode(Message)}.
+     *
+     * @param data The encoded message.
+     * @return The decoded message.
+     * @throws java.lang.IllegalArgumentException If the data is malformed or has an unsupported version.
+     */
+    @NonNull
+    public static Message decodeMessage(@NonNull final byte[] data) {
+        final Reader reader = new Reader(data, KIND_MESSAGE);
+        final String id = reader.readString();
+        final long timeToLeave = reader.readVarLong();
+        final Bundle bundle = reader.readBundle();
+        reader.checkEnd();
+        return new Message(id, bundle, timeToLeave);
+    }
+
+    private static final class Writer {
+
+        private static final int INITIAL_CAPACITY = 128;
+
+        @NonNull
+        private final Map<String, Integer> keyIndexes = new HashMap<>();
+
+        @NonNull
+        private byte[] buffer = new byte[INITIAL_CAPACITY];
+
+        private int position;
+
+        Writer(final int kind) {
+            writeByte(MAGIC);
+            writeByte(VERSION);
+            writeByte(kind);
+        }
+
+        @NonNull
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        void writeBundle(@NonNull final Bundle bundle) {
+            writeVarInt(bundle.size());
+            for (String key : bundle.keySet()) {
+                writeKey(key);
+                writeValue(key, bundle.get(key));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void writeValue(@NonNull final String key, @Nullable final Object value) {
+            if (value == null) {
+                writeByte(TYPE_NULL);
+            } else if (value instanceof String) {
+                writeByte(TYPE_STRING);
+                writeString((String) value);
+            } else if (value instanceof Integer) {
+                writeByte(TYPE_INT);
+                writeVarLong(zigzag((Integer) value));
+            } else if (value instanceof Long) {
+                writeByte(TYPE_LONG);
+                writeVarLong(zigzag((Long) value));
+            } else if (value instanceof Boolean) {
+                writeByte(TYPE_BOOLEAN);
+                writeByte((Boolean) value ? 1 : 0);
+            } else if (value instanceof Double) {
+                writeByte(TYPE_DOUBLE);
+                writeFixed(Double.doubleToRawLongBits((Double) value), 8);
+            } else if (value instanceof Float) {
+                writeByte(TYPE_FLOAT);
+                writeFixed(Float.floatToRawIntBits((Float) value), 4);
+            } else if (value instanceof Short) {
+                writeByte(TYPE_SHORT);
+                writeVarLong(zigzag((Short) value));
+            } else if (value instanceof Byte) {
+                writeByte(TYPE_BYTE);
+                writeByte((Byte) value);
+            } else if (value instanceof Character) {
+                writeByte(TYPE_CHAR);
+                writeVarInt((Character) value);
+            } else if (value instanceof Bundle) {
+                writeByte(TYPE_BUNDLE);
+                writeBundle((Bundle) value);
+            } else if (value instanceof String[]) {
+                writeByte(TYPE_STRING_ARRAY);
+                final String[] strings = (String[]) value;
+                writeVarInt(strings.length);
+                for (String string : strings) {
+                    writeNullableString(string);
+                }
+            } else if (value instanceof byte[]) {
+                writeByte(TYPE_BYTE_ARRAY);
+                final byte[] bytes = (byte[]) value;
+                writeVarInt(bytes.length);
+                writeBytes(bytes);
+            } else if (value instanceof int[]) {
+                writeByte(TYPE_INT_ARRAY);
+                final int[] ints = (int[]) value;
+                writeVarInt(ints.length);
+                for (int item : ints) {
+                    writeVarLong(zigzag(item));
+                }
+            } else if (value instanceof long[]) {
+                writeByte(TYPE_LONG_ARRAY);
+                final long[] longs = (long[]) value;
+                writeVarInt(longs.length);
+                for (long item : longs) {
+                    writeVarLong(zigzag(item));
+                }
+            } else if (isStringArrayList(value)) {
+                writeByte(TYPE_STRING_ARRAY_LIST);
+                final List<String> strings = (List<String>) value;
+                writeVarInt(strings.size());
+                for (String string : strings) {
+                    writeNullableString(string);
+                }
+            } else {
+                throw new IllegalArgumentException(String.format(Locale.US,
+                        "Value of key '%s' has unsupported type %s", key, value.getClass().getName()));
+            }
+        }
+
+        /**
+         * Writes {@code 0} and the key for its first occurrence, otherwise the index of the first occurrence plus one.
+         */
+        private void writeKey(@NonNull final String key) {
+            final Integer index = keyIndexes.get(key);
+            if (index == null) {
+                keyIndexes.put(key, keyIndexes.size());
+                writeVarInt(0);
+                writeString(key);
+            } else {
+                writeVarInt(index + 1);
+            }
+        }
+
+        private void writeNullableString(@Nullable final String string) {
+            if (string == null) {
+                writeVarInt(0);
+            } else {
+                writeVarInt(1);
+                writeString(string);
+            }
+        }
+
+        /**
+         * Writes the string as UTF-8 directly into the buffer. An unpaired surrogate is written as {@code '?'}
+         * the same way as {@link String#getBytes(Charset)} does.
+         */
+        void writeString(@NonNull final String string) {
+            final int length = string.length();
+            int utf8Length = length;
+            for (int i = 0; i < length; i++) {
+                final char c = string.charAt(i);
+                if (isSurrogatePair(string, i)) {
+                    utf8Length += 2;
+                    i++;
+                } else if (c >= 0x800 && !Character.isSurrogate(c)) {
+                    utf8Length += 2;
+                } else if (c >= 0x80 && c < 0x800) {
+                    utf8Length++;
+                }
+            }
+
+            writeVarInt(utf8Length);
+            ensureCapacity(utf8Length);
+            for (int i = 0; i < length; i++) {
+                final char c = string.charAt(i);
+                if (c < 0x80) {
+                    buffer[position++] = (byte) c;
+                } else if (c < 0x800) {
+                    buffer[position++] = (byte) (0xC0 | c >> 6);
+                    buffer[position++] = (byte) (0x80 | c & 0x3F);
+                } else if (!Character.isSurrogate(c)) {
+                    buffer[position++] = (byte) (0xE0 | c >> 12);
+                    buffer[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                    buffer[position++] = (byte) (0x80 | c & 0x3F);
+                } else if (isSurrogatePair(string, i)) {
+                    final int codePoint = Character.toCodePoint(c, string.charAt(++i));
+                    buffer[position++] = (byte) (0xF0 | codePoint >> 18);
+                    buffer[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                    buffer[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                    buffer[position++] = (byte) (0x80 | codePoint & 0x3F);
+                } else {
+                    buffer[position++] = '?';
+                }
+            }
+        }
+
+        void writeVarInt(final int value) {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        void writeVarLong(final long value) {
+            ensureCapacity(10);
+            long remaining = value;
+            while ((remaining & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((remaining & 0x7F) | 0x80);
+                remaining >>>= 7;
+            }
+            buffer[position++] = (byte) remaining;
+        }
+
+        private void writeFixed(final long value, final int length) {
+            ensureCapacity(length);
+            for (int shift = (length - 1) * 8; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void writeByte(final int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeBytes(@NonNull final byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private void ensureCapacity(final int length) {
+            if (position + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+            }
+        }
+
+        private static boolean isSurrogatePair(@NonNull final String string, final int index) {
+            return Character.isHighSurrogate(string.charAt(index))
+                    && index + 1 < string.length()
+                    && Character.isLowSurrogate(string.charAt(index + 1));
+        }
+
+        private static long zigzag(final long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+
+        private static boolean isStringArrayList(@NonNull final Object value) {
+            if (!(value instanceof ArrayList)) {
+                return false;
+            }
+            for (Object item : (ArrayList<?>) value) {
+                if (item != null && !(item instanceof String)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Reader {
+
+        @NonNull
+        private final byte[] data;
+
+        @NonNull
+        private final List<String> keys = new ArrayList<>();
+
+        private int position;
+
+        Reader(@NonNull final byte[] data, final int kind) {
+            this.data = data;
+            if (readByte() != MAGIC) {
+                throw new IllegalArgumentException("Data isn't encoded by MessageCodec");
+            }
+            final int version = readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported version " + version);
+            }
+            final int actualKind = readByte();
+            if (actualKind != kind) {
+                throw new IllegalArgumentException(String.format(Locale.US,
+                        "Wrong kind of data. Expected %d, actual %d", kind, actualKind));
+            }
+        }
+
+        void checkEnd() {
+            if (position != data.length) {
+                throw new IllegalArgumentException("Unexpected data after position " + position);
+            }
+        }
+
+        @NonNull
+        Bundle readBundle() {
+            final int size = readLength();
+            final Bundle bundle = new Bundle();
+            for (int i = 0; i < size; i++) {
+                final String key = readKey();
+                readValue(bundle, key);
+            }
+            return bundle;
+        }
+
+        private void readValue(@NonNull final Bundle bundle, @NonNull final String key) {
+            final int type = readByte();
+            switch (type) {
+                case TYPE_NULL:
+                    bundle.putString(key, null);
+                    break;
+                case TYPE_STRING:
+                    bundle.putString(key, readString());
+                    break;
+                case TYPE_INT:
+                    bundle.putInt(key, (int) unzigzag(readVarLong()));
+                    break;
+                case TYPE_LONG:
+                    bundle.putLong(key, unzigzag(readVarLong()));
+                    break;
+                case TYPE_BOOLEAN:
+                    bundle.putBoolean(key, readByte() != 0);
+                    break;
+                case TYPE_DOUBLE:
+                    bundle.putDouble(key, Double.longBitsToDouble(readFixed(8)));
+                    break;
+                case TYPE_FLOAT:
+                    bundle.putFloat(key, Float.intBitsToFloat((int) readFixed(4)));
+                    break;
+                case TYPE_SHORT:
+                    bundle.putShort(key, (short) unzigzag(readVarLong()));
+                    break;
+                case TYPE_BYTE:
+                    bundle.putByte(key, (byte) readByte());
+                    break;
+                case TYPE_CHAR:
+                    bundle.putChar(key, (char) readVarLong());
+                    break;
+                case TYPE_BUNDLE:
+                    bundle.putBundle(key, readBundle());
+                    break;
+                case TYPE_STRING_ARRAY:
+                    final String[] strings = new String[readLength()];
+                    for (int i = 0; i < strings.length; i++) {
+                        strings[i] = readNullableString();
+                    }
+                    bundle.putStringArray(key, strings);
+                    break;
+                case TYPE_BYTE_ARRAY:
+                    final int length = readLength();
+                    bundle.putByteArray(key, Arrays.copyOfRange(data, position, position + length));
+                    position += length;
+                    break;
+                case TYPE_INT_ARRAY:
+                    final int[] ints = new int[readLength()];
+                    for (int i = 0; i < ints.length; i++) {
+                        ints[i] = (int) unzigzag(readVarLong());
+                    }
+                    bundle.putIntArray(key, ints);
+                    break;
+                case TYPE_LONG_ARRAY:
+                    final long[] longs = new long[readLength()];
+                    for (int i = 0; i < longs.length; i++) {
+                        longs[i] = unzigzag(readVarLong());
+                    }
+                    bundle.putLongArray(key, longs);
+                    break;
+                case TYPE_STRING_ARRAY_LIST:
+                    final int size = readLength();
+                    final ArrayList<String> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        list.add(readNullableString());
+                    }
+                    bundle.putStringArrayList(key, list);
+                    break;
+                default:
+                    throw new IllegalArgumentException(String.format(Locale.US,
+                            "Unknown type %d of key '%s'", type, key));
+            }
+        }
+
+        @NonNull
+        private String readKey() {
+            final long reference = readVarLong();
+            if (reference == 0) {
+                final String key = readString();
+                keys.add(key);
+                return key;
+            } else if (reference > 0 && reference <= keys.size()) {
+                return keys.get((int) reference - 1);
+            }
+            throw new IllegalArgumentException("Wrong key reference " + reference);
+        }
+
+        @Nullable
+        private String readNullableString() {
+            return readByte() == 0 ? null : readString();
+        }
+
+        @NonNull
+        String readString() {
+            final int length = readLength();
+            final String string = new String(data, position, length, UTF_8);
+            position += length;
+            return string;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                final int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint at position " + position);
+        }
+
+        /**
+         * Reads a varint which must fit into the remaining data, so a malformed length can't cause a huge allocation.
+         */
+        private int readLength() {
+            final long length = readVarLong();
+            if (length < 0 || length > data.length - position) {
+                throw new IllegalArgumentException("Wrong length " + length + " at position " + position);
+            }
+            return (int) length;
+        }
+
+        private long readFixed(final int length) {
+            long value = 0;
+            for (int i = 0; i < length; i++) {
+                value = (value << 8) | readByte();
+            }
+            return value;
+        }
+
+        private int readByte() {
+            if (position >= data.length) {
+                throw new IllegalArgumentException("Unexpected end of data");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        private static long unzigzag(final long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush.codec;
+
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Base64;
+
+import org.onepf.opfpush.model.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Splits the data which doesn't fit into one push message into several chunk messages.
+ * <p/>
+ * The data is encoded with the {@link MessageCodec} and Base64, and the result is cut into the parts
+ * of at most {@code maxChunkLength} characters. Every chunk contains only string values:
+ * <ul>
+ * <li>{@link #CHUNK_GROUP_KEY} - the ID which is the same for all chunks of the data,</li>
+ * <li>{@link #CHUNK_INDEX_KEY} - the zero-based index of the chunk,</li>
+ * <li>{@link #CHUNK_COUNT_KEY} - the number of the chunks,</li>
+ * <li>{@link #CHUNK_DATA_KEY} - the part of the encoded data.</li>
+ * </ul>
+ * A server can produce the same chunks, so the library reassembles them before the data is passed
+ * to the listener. The chunks may arrive in any order.
+ *
+ * @since 18.10.2026
+ */
+public final class PayloadChunker {
+
+    public static final String CHUNK_GROUP_KEY = "opf_chunk_group";
+    public static final String CHUNK_INDEX_KEY = "opf_chunk_index";
+    public static final String CHUNK_COUNT_KEY = "opf_chunk_count";
+    public static final String CHUNK_DATA_KEY = "opf_chunk_data";
+
+    /**
+     * The maximum number of the chunks of one data.
+     */
+    public static final int MAX_CHUNK_COUNT = 64;
+
+    private static final String MESSAGE_ID_SEPARATOR = ":";
+
+    private PayloadChunker() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns {@code true} if the bundle is a chunk of the split data.
+     */
+    public static boolean isChunk(@Nullable final Bundle bundle) {
+        return bundle != null && bundle.containsKey(CHUNK_GROUP_KEY);
+    }
+
+    /**
+     * Splits the data into chunks.
+     *
+     * @param data           The data to split.
+     * @param maxChunkLength The maximum length of the encoded data part in a chunk.
+     * @return The chunks in the order of their indexes.
+     * @throws java.lang.IllegalArgumentException If {@code maxChunkLength} isn't positive, the data contains
+     *                                            an unsupported value or needs more than {@link #MAX_CHUNK_COUNT} chunks.
+     */
+    @NonNull
+    public static List<Bundle> split(@NonNull final Bundle data, final int maxChunkLength) {
+        if (maxChunkLength <= 0) {
+            throw new IllegalArgumentException("Max chunk length must be positive : " + maxChunkLength);
+        }
+
+        final String encodedData = Base64.encodeToString(MessageCodec.encode(data), Base64.NO_WRAP);
+        final int chunkCount = (encodedData.length() + maxChunkLength - 1) / maxChunkLength;
+        if (chunkCount > MAX_CHUNK_COUNT) {
+            throw new IllegalArgumentException("Data needs too many chunks : " + chunkCount);
+        }
+
+        final String groupId = UUID.randomUUID().toString();
+        final List<Bundle> chunks = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            final Bundle chunk = new Bundle();
+            chunk.putString(CHUNK_GROUP_KEY, groupId);
+            chunk.putString(CHUNK_INDEX_KEY, String.valueOf(i));
+            chunk.putString(CHUNK_COUNT_KEY, String.valueOf(chunkCount));
+            chunk.putString(CHUNK_DATA_KEY, encodedData.substring(
+                    i * maxChunkLength, Math.min((i + 1) * maxChunkLength, encodedData.length())
+            ));
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    /**
+     * Splits the message into chunk messages. The ID of a chunk message is the ID of the message
+     * followed by {@code ':'} and the index of the chunk.
+     *
+     * @see #split(Bundle, int)
+     */
+    @NonNull
+    public static List<Message> split(@NonNull final Message message, final int maxChunkLength) {
+        final List<Bundle> chunks = split(message.getData(), maxChunkLength);
+        final List<Message> chunkMessages = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            chunkMessages.add(new Message(
+                    message.getId() + MESSAGE_ID_SEPARATOR + i,
+                    chunks.get(i),
+                    message.getTimeToLeave()
+            ));
+        }
+        return chunkMessages;
+    }
+
+    /**
+     * Decodes the data from the parts of all its chunks.
+     *
+     * @param chunksData The values of {@link #CHUNK_DATA_KEY} in the order of the chunk indexes.
+     * @return The data.
+     * @throws java.lang.IllegalArgumentException If the parts are malformed.
+     */
+    @NonNull
+    public static Bundle join(@NonNull final String[] chunksData) {
+        final StringBuilder encodedData = new StringBuilder();
+        for (String chunkData : chunksData) {
+            encodedData.append(chunkData);
+        }
+        return MessageCodec.decodeBundle(Base64.decode(encodedData.toString(), Base64.NO_WRAP));
+    }
+}
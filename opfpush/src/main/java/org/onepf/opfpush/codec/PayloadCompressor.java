@@ -0,0 +1,216 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush.codec;
+
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Base64;
+
+import org.onepf.opfpush.model.Message;
+import org.onepf.opfutils.OPFLog;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Moves the large string values of the message data into a single deflated field and restores them
+ * on the receiving side, so the structured payloads fit into the size limits of the push services.
+ * <p/>
+ * The moved values are encoded with the {@link MessageCodec}, deflated and put into the
+ * {@link #COMPRESSED_DATA_KEY} field as a Base64 string. The small values are kept as is, so the server
+ * can still read them. If the compression doesn't make the payload smaller, the data is left unchanged.
+ * <p/>
+ * The instance reuses one {@link Deflater}, one {@link Inflater} and the buffers for all messages,
+ * so the methods are synchronized.
+ *
+ * @since 18.10.2026
+ */
+public final class PayloadCompressor {
+
+    /**
+     * The key of the field which contains the compressed values.
+     */
+    public static final String COMPRESSED_DATA_KEY = "opf_deflated";
+
+    /**
+     * The default length of the shortest string value which is compressed.
+     */
+    public static final int DEFAULT_MIN_VALUE_LENGTH = 256;
+
+    /**
+     * The limit of the decompressed data, which protects from the malicious payloads.
+     */
+    private static final int MAX_INFLATED_LENGTH = 1024 * 1024;
+
+    private static final int CHUNK_SIZE = 1024;
+
+    @NonNull
+    private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+
+    @NonNull
+    private final Inflater inflater = new Inflater();
+
+    @NonNull
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream(CHUNK_SIZE);
+
+    @NonNull
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+
+    private final int minValueLength;
+
+    public PayloadCompressor() {
+        this(DEFAULT_MIN_VALUE_LENGTH);
+    }
+
+    /**
+     * @param minValueLength The length of the shortest string value which is compressed.
+     * @throws java.lang.IllegalArgumentException If {@code minValueLength} isn't positive.
+     */
+    public PayloadCompressor(final int minValueLength) {
+        if (minValueLength <= 0) {
+            throw new IllegalArgumentException("Min value length must be positive : " + minValueLength);
+        }
+        this.minValueLength = minValueLength;
+    }
+
+    /**
+     * Returns {@code true} if the bundle contains the compressed field.
+     */
+    public static boolean isCompressed(@Nullable final Bundle bundle) {
+        return bundle != null && bundle.containsKey(COMPRESSED_DATA_KEY);
+    }
+
+    /**
+     * Returns the message with the compressed data or the same message if the compression isn't profitable.
+     *
+     * @param message The message to compress.
+     * @return The compressed message.
+     */
+    @NonNull
+    public Message compress(@NonNull final Message message) {
+        final Bundle data = message.getData();
+        final Bundle compressedData = compress(data);
+        return compressedData == data
+                ? message
+                : new Message(message.getId(), compressedData, message.getTimeToLeave());
+    }
+
+    /**
+     * Returns the copy of the data with the large string values moved to the compressed field,
+     * or the same bundle if the compression isn't profitable.
+     *
+     * @param data The data to compress.
+     * @return The compressed data.
+     * @throws java.lang.IllegalArgumentException If the data already contains the {@link #COMPRESSED_DATA_KEY}.
+     */
+    @NonNull
+    public synchronized Bundle compress(@NonNull final Bundle data) {
+        if (isCompressed(data)) {
+            throw new IllegalArgumentException("Data already contains the key " + COMPRESSED_DATA_KEY);
+        }
+
+        final Bundle largeValues = new Bundle();
+        int largeValuesLength = 0;
+        for (String key : data.keySet()) {
+            final Object value = data.get(key);
+            if (value instanceof String && ((String) value).length() >= minValueLength) {
+                largeValues.putString(key, (String) value);
+                largeValuesLength += key.length() + ((String) value).length();
+            }
+        }
+        if (largeValues.isEmpty()) {
+            return data;
+        }
+
+        final String compressedValues = Base64.encodeToString(deflate(MessageCodec.encode(largeValues)), Base64.NO_WRAP);
+        if (compressedValues.length() >= largeValuesLength) {
+            OPFLog.d("Compression isn't profitable : %d >= %d", compressedValues.length(), largeValuesLength);
+            return data;
+        }
+
+        final Bundle compressedData = new Bundle(data);
+        for (String key : largeValues.keySet()) {
+            compressedData.remove(key);
+        }
+        compressedData.putString(COMPRESSED_DATA_KEY, compressedValues);
+        OPFLog.d("Compressed %d values : %d -> %d", largeValues.size(), largeValuesLength, compressedValues.length());
+        return compressedData;
+    }
+
+    /**
+     * Returns the copy of the extras with the compressed values restored, or the same bundle if it doesn't
+     * contain the compressed field or the field can't be decompressed.
+     *
+     * @param extras The received extras.
+     * @return The decompressed extras.
+     */
+    @Nullable
+    public synchronized Bundle decompress(@Nullable final Bundle extras) {
+        if (!isCompressed(extras)) {
+            return extras;
+        }
+
+        final Object compressedValues = extras.get(COMPRESSED_DATA_KEY);
+        try {
+            if (!(compressedValues instanceof String)) {
+                throw new IllegalArgumentException("Compressed values aren't a string");
+            }
+
+            final Bundle largeValues = MessageCodec.decodeBundle(inflate(Base64.decode((String) compressedValues, Base64.NO_WRAP)));
+            final Bundle decompressedExtras = new Bundle(extras);
+            decompressedExtras.remove(COMPRESSED_DATA_KEY);
+            decompressedExtras.putAll(largeValues);
+            return decompressedExtras;
+        } catch (IllegalArgumentException | DataFormatException e) {
+            OPFLog.w("Can't decompress message", e);
+            return extras;
+        }
+    }
+
+    @NonNull
+    private byte[] deflate(@NonNull final byte[] data) {
+        output.reset();
+        deflater.reset();
+        deflater.setInput(data);
+        deflater.finish();
+        while (!deflater.finished()) {
+            output.write(chunk, 0, deflater.deflate(chunk));
+        }
+        return output.toByteArray();
+    }
+
+    @NonNull
+    private byte[] inflate(@NonNull final byte[] data) throws DataFormatException {
+        output.reset();
+        inflater.reset();
+        inflater.setInput(data);
+        while (!inflater.finished()) {
+            final int length = inflater.inflate(chunk);
+            if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                throw new DataFormatException("Truncated compressed data");
+            }
+            if (output.size() + length > MAX_INFLATED_LENGTH) {
+                throw new DataFormatException("Decompressed data is longer than " + MAX_INFLATED_LENGTH);
+            }
+            output.write(chunk, 0, length);
+        }
+        return output.toByteArray();
+    }
+}
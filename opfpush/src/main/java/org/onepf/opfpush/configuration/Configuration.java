@@ -20,17 +20,24 @@ package org.onepf.opfpush.configuration;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import org.onepf.opfpush.backoff.BackoffManager;
 import org.onepf.opfpush.listener.CheckManifestHandler;
 import org.onepf.opfpush.listener.EventListener;
+import org.onepf.opfpush.metrics.PushMetrics;
+import org.onepf.opfpush.metrics.SimplePushMetrics;
 import org.onepf.opfpush.pushprovider.PushProvider;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The instance of this class is used as an argument of the {@link org.onepf.opfpush.OPFPush#init(android.content.Context, Configuration)}
@@ -43,6 +50,32 @@ import java.util.Map;
 @SuppressWarnings("PMD.MissingStaticMethodInNonInstantiatableClass")
 public final class Configuration {
 
+    /**
+     * The default time to live of the cached availability of the push providers.
+     * The cache is disabled by default.
+     */
+    public static final long DEFAULT_AVAILABILITY_CACHE_TTL_MILLIS = 0;
+
+    /**
+     * The default maximum count of the messages in one batch.
+     */
+    public static final int DEFAULT_MAX_MESSAGE_BATCH_SIZE = 100;
+
+    /**
+     * The default name of the message extra which is used as the collapse key.
+     */
+    public static final String DEFAULT_COLLAPSE_KEY_NAME = "collapse_key";
+
+    /**
+     * The default count of the last message IDs which are remembered for the de-duplication.
+     */
+    public static final int DEFAULT_DEDUPLICATION_CAPACITY = 256;
+
+    /**
+     * The default time in milliseconds after which a registration which hasn't got a result is treated as failed.
+     */
+    public static final long DEFAULT_REGISTRATION_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
     @NonNull
     private final List<PushProvider> providers;
 
@@ -54,14 +87,92 @@ public final class Configuration {
 
     private final boolean isSelectSystemPreferred;
 
+    private final boolean isParallelAvailabilityCheck;
+
+    private final long availabilityCacheTtlMillis;
+
+    private final boolean isDeferredManifestCheck;
+
+    private final boolean isHotStandby;
+
+    private final boolean isAdaptiveRanking;
+
+    @NonNull
+    private final PushMetrics pushMetrics;
+
+    @Nullable
+    private final BackoffManager backoffManager;
+
+    @NonNull
+    private final DispatchThread dispatchThread;
+
+    @Nullable
+    private final Executor dispatchExecutor;
+
+    private final long messageBatchWindowMillis;
+
+    private final int maxMessageBatchSize;
+
+    private final int inboundQueueCapacity;
+
+    @NonNull
+    private final OverflowPolicy overflowPolicy;
+
+    @NonNull
+    private final String collapseKeyName;
+
+    @Nullable
+    private final String deduplicationKeyName;
+
+    private final int deduplicationCapacity;
+
+    private final boolean isMessageJournal;
+
+    private final boolean isPayloadCompression;
+
+    private final int chunkReassemblyGroups;
+
+    private final long chunkReassemblyTtlMillis;
+
+    private final long registrationTimeoutMillis;
+
+    @NonNull
+    private final Map<String, Long> providerRegistrationTimeouts;
+
+    private final double adaptiveTimeoutFactor;
+
+    private final long minRegistrationTimeoutMillis;
+
     private Configuration(@NonNull final Collection<? extends PushProvider> providers,
-                          @Nullable final EventListener eventListener,
-                          final boolean selectSystemPreferred,
-                          @Nullable CheckManifestHandler checkManifestHandler) {
+                          @NonNull final Builder builder) {
         this.providers = Collections.unmodifiableList(new ArrayList<>(providers));
-        this.eventListener = eventListener;
-        this.isSelectSystemPreferred = selectSystemPreferred;
-        this.checkManifestHandler = checkManifestHandler;
+        this.eventListener = builder.eventListener;
+        this.isSelectSystemPreferred = builder.isSelectSystemPreferred;
+        this.checkManifestHandler = builder.checkManifestHandler;
+        this.isParallelAvailabilityCheck = builder.isParallelAvailabilityCheck;
+        this.availabilityCacheTtlMillis = builder.availabilityCacheTtlMillis;
+        this.isDeferredManifestCheck = builder.isDeferredManifestCheck;
+        this.isHotStandby = builder.isHotStandby;
+        this.isAdaptiveRanking = builder.isAdaptiveRanking;
+        this.pushMetrics = builder.pushMetrics == null ? new SimplePushMetrics() : builder.pushMetrics;
+        this.backoffManager = builder.backoffManager;
+        this.dispatchThread = builder.dispatchThread;
+        this.dispatchExecutor = builder.dispatchExecutor;
+        this.messageBatchWindowMillis = builder.messageBatchWindowMillis;
+        this.maxMessageBatchSize = builder.maxMessageBatchSize;
+        this.inboundQueueCapacity = builder.inboundQueueCapacity;
+        this.overflowPolicy = builder.overflowPolicy;
+        this.collapseKeyName = builder.collapseKeyName;
+        this.deduplicationKeyName = builder.deduplicationKeyName;
+        this.deduplicationCapacity = builder.deduplicationCapacity;
+        this.isMessageJournal = builder.isMessageJournal;
+        this.isPayloadCompression = builder.isPayloadCompression;
+        this.chunkReassemblyGroups = builder.chunkReassemblyGroups;
+        this.chunkReassemblyTtlMillis = builder.chunkReassemblyTtlMillis;
+        this.registrationTimeoutMillis = builder.registrationTimeoutMillis;
+        this.providerRegistrationTimeouts = new HashMap<>(builder.providerRegistrationTimeouts);
+        this.adaptiveTimeoutFactor = builder.adaptiveTimeoutFactor;
+        this.minRegistrationTimeoutMillis = builder.minRegistrationTimeoutMillis;
     }
 
     /**
@@ -103,11 +214,261 @@ public final class Configuration {
         return checkManifestHandler;
     }
 
+    /**
+     * Returns {@code true} if the availability of the push providers is checked concurrently, false otherwise.
+     *
+     * @return {@code true} if the availability of the push providers is checked concurrently, false otherwise.
+     */
+    public boolean isParallelAvailabilityCheck() {
+        return isParallelAvailabilityCheck;
+    }
+
+    /**
+     * Returns the time to live of the cached availability of the push providers in milliseconds.
+     * {@code 0} means that the availability isn't cached.
+     *
+     * @return The time to live of the cached availability in milliseconds.
+     */
+    public long getAvailabilityCacheTtlMillis() {
+        return availabilityCacheTtlMillis;
+    }
+
+    /**
+     * Returns {@code true} if the manifest is checked on a background thread once per application version,
+     * false otherwise.
+     *
+     * @return {@code true} if the manifest check is deferred, false otherwise.
+     */
+    public boolean isDeferredManifestCheck() {
+        return isDeferredManifestCheck;
+    }
+
+    /**
+     * Returns {@code true} if the next provider in the priority order is kept registered in the background,
+     * false otherwise.
+     *
+     * @return {@code true} if the hot standby mode is enabled, false otherwise.
+     */
+    public boolean isHotStandby() {
+        return isHotStandby;
+    }
+
+    /**
+     * Returns {@code true} if the providers are ranked by their registration latency, registration error rate
+     * and time to the first message, false otherwise.
+     *
+     * @return {@code true} if the adaptive ranking is enabled, false otherwise.
+     */
+    public boolean isAdaptiveRanking() {
+        return isAdaptiveRanking;
+    }
+
+    /**
+     * Returns the instance of the {@link PushMetrics} which receives the events of the registration.
+     *
+     * @return The instance of the {@link PushMetrics}. The events are ignored if it hasn't been set.
+     */
+    @NonNull
+    public PushMetrics getPushMetrics() {
+        return pushMetrics;
+    }
+
+    /**
+     * Returns the {@link BackoffManager} which provides the delays of the registration and unregistration retries.
+     *
+     * @return The instance of the {@link BackoffManager} or {@code null} if it hasn't been set.
+     * In this case the {@link org.onepf.opfpush.backoff.InfinityExponentialBackoffManager} is used.
+     */
+    @Nullable
+    public BackoffManager getBackoffManager() {
+        return backoffManager;
+    }
+
+    /**
+     * Returns the thread on which the methods of the {@link EventListener} are called.
+     * Is ignored if the dispatch {@link Executor} is set.
+     *
+     * @return The {@link DispatchThread}. {@link DispatchThread#MAIN} by default.
+     */
+    @NonNull
+    public DispatchThread getDispatchThread() {
+        return dispatchThread;
+    }
+
+    /**
+     * Returns the {@link Executor} on which the methods of the {@link EventListener} are called.
+     *
+     * @return The dispatch {@link Executor} or {@code null} if the {@link #getDispatchThread()} is used.
+     */
+    @Nullable
+    public Executor getDispatchExecutor() {
+        return dispatchExecutor;
+    }
+
+    /**
+     * Returns the time during which the messages are collected into one batch.
+     *
+     * @return The batching window in milliseconds. 0 if the message batching is disabled.
+     */
+    public long getMessageBatchWindowMillis() {
+        return messageBatchWindowMillis;
+    }
+
+    /**
+     * Returns the maximum count of the messages in one batch.
+     *
+     * @return The maximum batch size.
+     */
+    public int getMaxMessageBatchSize() {
+        return maxMessageBatchSize;
+    }
+
+    /**
+     * Returns the maximum count of the received messages which wait for the delivery to the {@link EventListener}.
+     *
+     * @return The capacity of the inbound message queue. 0 if the queue is unbounded.
+     */
+    public int getInboundQueueCapacity() {
+        return inboundQueueCapacity;
+    }
+
+    /**
+     * Returns what happens to a received message when the inbound message queue is full.
+     *
+     * @return The {@link OverflowPolicy}. {@link OverflowPolicy#DROP_OLDEST} by default.
+     */
+    @NonNull
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Returns the name of the message extra which is used as the collapse key by
+     * the {@link OverflowPolicy#COLLAPSE_BY_KEY} policy.
+     *
+     * @return The name of the collapse key extra.
+     */
+    @NonNull
+    public String getCollapseKeyName() {
+        return collapseKeyName;
+    }
+
+    /**
+     * Returns the name of the message extra which identifies the message for the de-duplication.
+     *
+     * @return The name of the message ID extra or {@code null} if the de-duplication is disabled.
+     */
+    @Nullable
+    public String getDeduplicationKeyName() {
+        return deduplicationKeyName;
+    }
+
+    /**
+     * Returns the count of the last message IDs which are remembered for the de-duplication.
+     *
+     * @return The capacity of the de-duplication cache.
+     */
+    public int getDeduplicationCapacity() {
+        return deduplicationCapacity;
+    }
+
+    /**
+     * Returns {@code true} if the received messages are journaled until the listener handles them, false otherwise.
+     *
+     * @return {@code true} if the message journal is enabled, false otherwise.
+     */
+    public boolean isMessageJournal() {
+        return isMessageJournal;
+    }
+
+    /**
+     * Returns {@code true} if the compressed values of the received messages are decompressed, false otherwise.
+     *
+     * @return {@code true} if the payload compression is enabled, false otherwise.
+     */
+    public boolean isPayloadCompression() {
+        return isPayloadCompression;
+    }
+
+    /**
+     * Returns the maximum number of the incomplete chunked messages or {@code 0} if the chunked messages
+     * aren't reassembled.
+     *
+     * @return The maximum number of the incomplete chunked messages.
+     */
+    public int getChunkReassemblyGroups() {
+        return chunkReassemblyGroups;
+    }
+
+    /**
+     * Returns the time in milliseconds after which an incomplete chunked message is dropped.
+     *
+     * @return The time to live of an incomplete chunked message.
+     */
+    public long getChunkReassemblyTtlMillis() {
+        return chunkReassemblyTtlMillis;
+    }
+
+    /**
+     * Returns the registration timeout in milliseconds of the provider.
+     * It's the upper bound of the timeout if the adaptive registration timeout is enabled.
+     *
+     * @param providerName The name of the provider.
+     * @return The registration timeout of the provider.
+     */
+    public long getRegistrationTimeoutMillis(@NonNull final String providerName) {
+        final Long timeoutMillis = providerRegistrationTimeouts.get(providerName);
+        return timeoutMillis == null ? registrationTimeoutMillis : timeoutMillis;
+    }
+
+    /**
+     * Returns the factor which the 95th percentile of the recent registration latencies is multiplied by
+     * or {@code 0} if the registration timeout isn't adaptive.
+     *
+     * @return The adaptive registration timeout factor.
+     */
+    public double getAdaptiveTimeoutFactor() {
+        return adaptiveTimeoutFactor;
+    }
+
+    /**
+     * Returns the lower bound in milliseconds of the adaptive registration timeout.
+     *
+     * @return The minimum registration timeout.
+     */
+    public long getMinRegistrationTimeoutMillis() {
+        return minRegistrationTimeoutMillis;
+    }
+
     @Override
     public String toString() {
         return "Configuration {"
                 + "providers = " + providers
                 + ", isSelectSystemPreferred = " + isSelectSystemPreferred
+                + ", isParallelAvailabilityCheck = " + isParallelAvailabilityCheck
+                + ", availabilityCacheTtlMillis = " + availabilityCacheTtlMillis
+                + ", isDeferredManifestCheck = " + isDeferredManifestCheck
+                + ", isHotStandby = " + isHotStandby
+                + ", isAdaptiveRanking = " + isAdaptiveRanking
+                + ", pushMetrics = " + pushMetrics
+                + ", backoffManager = " + backoffManager
+                + ", dispatchThread = " + dispatchThread
+                + ", dispatchExecutor = " + dispatchExecutor
+                + ", messageBatchWindowMillis = " + messageBatchWindowMillis
+                + ", maxMessageBatchSize = " + maxMessageBatchSize
+                + ", inboundQueueCapacity = " + inboundQueueCapacity
+                + ", overflowPolicy = " + overflowPolicy
+                + ", collapseKeyName = " + collapseKeyName
+                + ", deduplicationKeyName = " + deduplicationKeyName
+                + ", deduplicationCapacity = " + deduplicationCapacity
+                + ", isMessageJournal = " + isMessageJournal
+                + ", isPayloadCompression = " + isPayloadCompression
+                + ", chunkReassemblyGroups = " + chunkReassemblyGroups
+                + ", chunkReassemblyTtlMillis = " + chunkReassemblyTtlMillis
+                + ", registrationTimeoutMillis = " + registrationTimeoutMillis
+                + ", providerRegistrationTimeouts = " + providerRegistrationTimeouts
+                + ", adaptiveTimeoutFactor = " + adaptiveTimeoutFactor
+                + ", minRegistrationTimeoutMillis = " + minRegistrationTimeoutMillis
                 + '}';
     }
 
@@ -124,6 +485,62 @@ public final class Configuration {
 
         private boolean isSelectSystemPreferred;
 
+        private boolean isParallelAvailabilityCheck;
+
+        private long availabilityCacheTtlMillis = DEFAULT_AVAILABILITY_CACHE_TTL_MILLIS;
+
+        private boolean isDeferredManifestCheck;
+
+        private boolean isHotStandby;
+
+        private boolean isAdaptiveRanking;
+
+        @Nullable
+        private PushMetrics pushMetrics;
+
+        @Nullable
+        private BackoffManager backoffManager;
+
+        @NonNull
+        private DispatchThread dispatchThread = DispatchThread.MAIN;
+
+        @Nullable
+        private Executor dispatchExecutor;
+
+        private long messageBatchWindowMillis;
+
+        private int maxMessageBatchSize = DEFAULT_MAX_MESSAGE_BATCH_SIZE;
+
+        private int inboundQueueCapacity;
+
+        @NonNull
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+        @NonNull
+        private String collapseKeyName = DEFAULT_COLLAPSE_KEY_NAME;
+
+        @Nullable
+        private String deduplicationKeyName;
+
+        private int deduplicationCapacity = DEFAULT_DEDUPLICATION_CAPACITY;
+
+        private boolean isMessageJournal;
+
+        private boolean isPayloadCompression;
+
+        private int chunkReassemblyGroups;
+
+        private long chunkReassemblyTtlMillis;
+
+        private long registrationTimeoutMillis = DEFAULT_REGISTRATION_TIMEOUT_MILLIS;
+
+        @NonNull
+        private final Map<String, Long> providerRegistrationTimeouts = new HashMap<>();
+
+        private double adaptiveTimeoutFactor;
+
+        private long minRegistrationTimeoutMillis;
+
         @Nullable
         private CheckManifestHandler checkManifestHandler;
 
@@ -191,6 +608,348 @@ public final class Configuration {
             return this;
         }
 
+        /**
+         * If you set {@code true}, the availability of all candidate push providers is checked concurrently
+         * on a bounded thread pool when the next provider for the registration is chosen.
+         * The first available provider in the priority order is still selected.
+         * It reduces the failover time if several providers are configured and their availability
+         * checks are expensive. False by default.
+         *
+         * @param isParallelAvailabilityCheck {@code true} if the availability is checked concurrently,
+         *                                    {@code false} otherwise.
+         * @return The current {@code Builder}.
+         */
+        @NonNull
+        public Builder setParallelAvailabilityCheck(final boolean isParallelAvailabilityCheck) {
+            this.isParallelAvailabilityCheck = isParallelAvailabilityCheck;
+            return this;
+        }
+
+        /**
+         * Sets the time to live of the cached availability of the push providers.
+         * The cached availability of a provider is also reset when its host application is installed,
+         * updated or removed. Pass {@code 0} to disable the cache.
+         * {@link Configuration#DEFAULT_AVAILABILITY_CACHE_TTL_MILLIS} by default.
+         *
+         * @param availabilityCacheTtlMillis The time to live in milliseconds.
+         * @return The current {@code Builder}.
+         * @throws java.lang.IllegalArgumentException If the time to live is negative.
+         */
+        @NonNull
+        public Builder setAvailabilityCacheTtlMillis(final long availabilityCacheTtlMillis) {
+            if (availabilityCacheTtlMillis < 0) {
+                throw new IllegalArgumentException("Availability cache TTL can't be negative.");
+            }
+            this.availabilityCacheTtlMillis = availabilityCacheTtlMillis;
+            return this;
+        }
+
+        /**
+         * If you set {@code true}, the AndroidManifest.xml file is checked on a background thread
+         * instead of the {@link org.onepf.opfpush.OPFPush#init(android.content.Context, Configuration)} call,
+         * and only once per application version.
+         * The errors are reported via the {@link CheckManifestHandler} on the background thread,
+         * or are logged if the handler isn't set. False by default.
+         *
+         * @param isDeferredManifestCheck {@code true} if the manifest check is deferred, {@code false} otherwise.
+         * @return The current {@code Builder}.
+         */
+        @NonNull
+        public Builder setDeferredManifestCheck(final boolean isDeferredManifestCheck) {
+            this.isDeferredManifestCheck = isDeferredManifestCheck;
+            return this;
+        }
+
+        /**
+         * If you set {@code true}, the next provider in the priority order is registered in the background
+         * as a standby one. When the current provider fails, the standby provider becomes the current one
+         * immediately and its registration ID is passed to the
+         * {@link EventListener#onRegistered(android.content.Context, String, String)} method.
+         * The messages received by the standby provider are ignored. False by default.
+         *
+         * @param isHotStandby {@code true} if the hot standby mode is enabled, {@code false} otherwise.
+         * @return The current {@code Builder}.
+         */
+        @NonNull
+        public Builder setHotStandby(final boolean isHotStandby) {
+            this.isHotStandby = isHotStandby;
+            return this;
+        }
+
+        /**
+         * If you set {@code true}, the registration latency, the registration error rate and the time
+         * to the first message are recorded for every provider, and the providers with the better history
+         * are tried first. The providers without history keep the configured order after the ranked ones.
+         * The system preferred sorting only orders the providers with equal ranks. False by default.
+         *
+         * @param isAdaptiveRanking {@code true} if the adaptive ranking is enabled, {@code false} otherwise.
+         * @return The current {@code Builder}.
+         */
+        @NonNull
+        public Builder setAdaptiveRanking(final boolean isAdaptiveRanking) {
+            this.isAdaptiveRanking = isAdaptiveRanking;
+            return this;
+        }
+
+        /**
+         * Sets the {@link PushMetrics} which receives the timed events of the registration, the retries,
+         * the failovers, the registration timeouts and the received messages.
+         * See {@link org.onepf.opfpush.metrics.InMemoryPushMetrics} for the implementation with counters
+         * and latency histograms.
+         *
+         * @param pushMetrics The instance of the {@link PushMetrics}.
+         * @return The current {@code Builder}.
+         */
+        @NonNull
+        public Builder setPushMetrics(@NonNull final PushMetrics pushMetrics) {
+            this.pushMetrics = pushMetrics;
+            return this;
+        }
+
+        /**
+         * Sets the {@link BackoffManager} which provides the delays of the registration and unregistration retries.
+         * The built-in policies are {@link org.onepf.opfpush.backoff.CappedExponentialBackoffManager},
+         * {@link org.onepf.opfpush.backoff.DecorrelatedJitterBackoffManager} and
+         * {@link org.onepf.opfpush.backoff.FixedIntervalBackoffManager}.
+         * The {@link org.onepf.opfpush.backoff.InfinityExponentialBackoffManager} is used by default.
+         *
+         * @param backoffManager The instance of the {@link BackoffManager}.
+         * @return The current {@code Builder}.
+         */
+        @NonNull
+        public Builder setBackoffManager(@NonNull final BackoffManager backoffManager) {
+            this.backoffManager = backoffManager;
+            return this;
+        }
+
+        /**
+         * Sets the thread on which the methods of the {@link EventListener} are called.
+         * Doesn't affect the broadcasts which are sent if there is no {@link EventListener}.
+         * {@link DispatchThread#MAIN} by default.
+         *
+         * @param dispatchThread The {@link DispatchThread}.
+         * @return The current {@code Builder}.
+         */
+        @NonNull
+        public Builder setDispatchThread(@NonNull final DispatchThread dispatchThread) {
+            this.dispatchThread = dispatchThread;
+            return this;
+        }
+
+        /**
+         * Sets the {@link Executor} on which the methods of the {@link EventListener} are called.
+         * Overrides the {@link #setDispatchThread(DispatchThread)} value. The events are passed
+         * to the executor in the order they happen, so use a serial executor to keep this order.
+         *
+         * @param dispatchExecutor The dispatch {@link Executor}.
+         * @return The current {@code Builder}.
+         */
+        @NonNull
+        public Builder setDispatchExecutor(@NonNull final Executor dispatchExecutor) {
+            this.dispatchExecutor = dispatchExecutor;
+            return this;
+        }
+
+        /**
+         * Enables the message batching for the {@link org.onepf.opfpush.listener.BatchEventListener}.
+         * The messages of the same provider which arrive within {@code windowMillis} after the first one
+         * are passed to the listener at once. The batch is delivered earlier if it reaches {@code maxBatchSize}
+         * or if another event of the provider happens. Disabled by default.
+         *
+         * @param windowMillis The batching window in milliseconds. 0 disables the batching.
+         * @param maxBatchSize The maximum count of the messages in one batch.
+         * @return The current {@code Builder}.
+         * @throws java.lang.IllegalArgumentException If {@code windowMillis} is negative
+         *                                            or {@code maxBatchSize} is less than 1.
+         */
+        @NonNull
+        public Builder setMessageBatching(final long windowMillis, final int maxBatchSize) {
+            if (windowMillis < 0) {
+                throw new IllegalArgumentException("Message batch window can't be negative : " + windowMillis);
+            }
+            if (maxBatchSize < 1) {
+                throw new IllegalArgumentException("Max message batch size must be positive : " + maxBatchSize);
+            }
+
+            this.messageBatchWindowMillis = windowMillis;
+            this.maxMessageBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * Bounds the count of the received messages which wait for the delivery to the {@link EventListener}.
+         * The queue is used only if the listener methods aren't called on the calling thread.
+         * The depth of the queue and the count of the dropped messages are available via
+         * {@link org.onepf.opfpush.OPFPushHelper#getPendingMessagesCount()} and
+         * {@link org.onepf.opfpush.OPFPushHelper#getDroppedMessagesCount()}. The queue is unbounded by default.
+         *
+         * @param capacity       The capacity of the queue. 0 makes the queue unbounded.
+         * @param overflowPolicy What happens to a received message when the queue is full.
+         * @return The current {@code Builder}.
+         * @throws java.lang.IllegalArgumentException If {@code capacity} is negative.
+         */
+        @NonNull
+        public Builder setInboundQueue(final int capacity, @NonNull final OverflowPolicy overflowPolicy) {
+            if (capacity < 0) {
+                throw new IllegalArgumentException("Inbound queue capacity can't be negative : " + capacity);
+            }
+
+            this.inboundQueueCapacity = capacity;
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        /**
+         * Sets the name of the message extra which is used as the collapse key by
+         * the {@link OverflowPolicy#COLLAPSE_BY_KEY} policy. {@link #DEFAULT_COLLAPSE_KEY_NAME} by default.
+         *
+         * @param collapseKeyName The name of the collapse key extra.
+         * @return The current {@code Builder}.
+         */
+        @NonNull
+        public Builder setCollapseKeyName(@NonNull final String collapseKeyName) {
+            this.collapseKeyName = collapseKeyName;
+            return this;
+        }
+
+        /**
+         * Enables the de-duplication of the received messages. A message is ignored if a message with the same
+         * value of the {@code keyName} extra has been received recently via any provider, also before a restart.
+         * The messages without this extra are never ignored. Disabled by default.
+         *
+         * @param keyName  The name of the message extra which identifies the message, for example a message ID.
+         * @param capacity The count of the last message IDs which are remembered.
+         * @return The current {@code Builder}.
+         * @throws java.lang.IllegalArgumentException If {@code capacity} is less than 1.
+         */
+        @NonNull
+        public Builder setMessageDeduplication(@NonNull final String keyName, final int capacity) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("Deduplication capacity must be positive : " + capacity);
+            }
+
+            this.deduplicationKeyName = keyName;
+            this.deduplicationCapacity = capacity;
+            return this;
+        }
+
+        /**
+         * If you set {@code true}, every received message is written to a journal file and synced to the disk
+         * before it's passed to the listener. The message is acknowledged when the listener returns from
+         * {@link EventListener#onMessage(android.content.Context, String, android.os.Bundle)}
+         * or when it's dropped by the inbound queue. The messages which haven't been acknowledged
+         * because the process has died are delivered again after the next
+         * {@link org.onepf.opfpush.OPFPush#init(android.content.Context, Configuration)} call.
+         * So the listener must tolerate repeated messages. False by default.
+         *
+         * @param isMessageJournal {@code true} if the message journal is enabled, {@code false} otherwise.
+         * @return The current {@code Builder}.
+         */
+        @NonNull
+        public Builder setMessageJournal(final boolean isMessageJournal) {
+            this.isMessageJournal = isMessageJournal;
+            return this;
+        }
+
+        /**
+         * If you set {@code true}, the values compressed by the {@link org.onepf.opfpush.codec.PayloadCompressor}
+         * on the sending side are decompressed before the message is passed to the listener.
+         * False by default.
+         *
+         * @param isPayloadCompression {@code true} if the payload compression is enabled, {@code false} otherwise.
+         * @return The current {@code Builder}.
+         */
+        @NonNull
+        public Builder setPayloadCompression(final boolean isPayloadCompression) {
+            this.isPayloadCompression = isPayloadCompression;
+            return this;
+        }
+
+        /**
+         * Enables the reassembly of the messages split by the {@link org.onepf.opfpush.codec.PayloadChunker}.
+         * The chunks are buffered until all chunks of a message are received, and then the listener gets
+         * the single complete message. Disabled by default.
+         *
+         * @param maxGroups The maximum number of the incomplete messages. When it's reached,
+         *                  the oldest incomplete message is dropped.
+         * @param ttlMillis The time in milliseconds after which an incomplete message is dropped.
+         * @return The current {@code Builder}.
+         * @throws java.lang.IllegalArgumentException If {@code maxGroups} or {@code ttlMillis} isn't positive.
+         */
+        @NonNull
+        public Builder setChunkReassembly(final int maxGroups, final long ttlMillis) {
+            if (maxGroups <= 0 || ttlMillis <= 0) {
+                throw new IllegalArgumentException(String.format(Locale.US,
+                        "Max groups and TTL must be positive : %d, %d", maxGroups, ttlMillis));
+            }
+
+            this.chunkReassemblyGroups = maxGroups;
+            this.chunkReassemblyTtlMillis = ttlMillis;
+            return this;
+        }
+
+        /**
+         * Sets the time after which a registration which hasn't got a result is treated as failed
+         * and the next provider is registered. {@link #DEFAULT_REGISTRATION_TIMEOUT_MILLIS} by default.
+         *
+         * @param timeoutMillis The registration timeout in milliseconds.
+         * @return The current {@code Builder}.
+         * @throws java.lang.IllegalArgumentException If {@code timeoutMillis} isn't positive.
+         */
+        @NonNull
+        public Builder setRegistrationTimeout(final long timeoutMillis) {
+            if (timeoutMillis <= 0) {
+                throw new IllegalArgumentException("Registration timeout must be positive : " + timeoutMillis);
+            }
+
+            this.registrationTimeoutMillis = timeoutMillis;
+            return this;
+        }
+
+        /**
+         * Sets the registration timeout of the provider, which overrides the one set by
+         * {@link #setRegistrationTimeout(long)}.
+         *
+         * @param providerName  The name of the provider.
+         * @param timeoutMillis The registration timeout of the provider in milliseconds.
+         * @return The current {@code Builder}.
+         * @throws java.lang.IllegalArgumentException If {@code timeoutMillis} isn't positive.
+         */
+        @NonNull
+        public Builder setRegistrationTimeout(@NonNull final String providerName, final long timeoutMillis) {
+            if (timeoutMillis <= 0) {
+                throw new IllegalArgumentException("Registration timeout must be positive : " + timeoutMillis);
+            }
+
+            providerRegistrationTimeouts.put(providerName, timeoutMillis);
+            return this;
+        }
+
+        /**
+         * Enables the adaptive registration timeout. When there are enough observed registrations of a provider,
+         * its timeout is the 95th percentile of the recent registration latencies multiplied by {@code factor}.
+         * The timeout is never less than {@code minTimeoutMillis} and never more than the one set by
+         * {@link #setRegistrationTimeout(long)} or {@link #setRegistrationTimeout(String, long)}.
+         * Disabled by default.
+         *
+         * @param factor           The factor which the percentile is multiplied by.
+         * @param minTimeoutMillis The minimum registration timeout in milliseconds.
+         * @return The current {@code Builder}.
+         * @throws java.lang.IllegalArgumentException If {@code factor} is less than 1
+         *                                            or {@code minTimeoutMillis} isn't positive.
+         */
+        @NonNull
+        public Builder setAdaptiveRegistrationTimeout(final double factor, final long minTimeoutMillis) {
+            if (factor < 1 || minTimeoutMillis <= 0) {
+                throw new IllegalArgumentException(String.format(Locale.US,
+                        "Factor must be at least 1 and min timeout must be positive : %f, %d", factor, minTimeoutMillis));
+            }
+
+            this.adaptiveTimeoutFactor = factor;
+            this.minRegistrationTimeoutMillis = minTimeoutMillis;
+            return this;
+        }
+
         @NonNull
         public Builder setCheckManifestHandler(@NonNull final CheckManifestHandler checkManifestHandler) {
             this.checkManifestHandler = checkManifestHandler;
@@ -210,12 +969,7 @@ public final class Configuration {
                 throw new IllegalArgumentException("Need to add at least one push provider.");
             }
 
-            return new Configuration(
-                    providersMap.values(),
-                    eventListener,
-                    isSelectSystemPreferred,
-                    checkManifestHandler
-            );
+            return new Configuration(providersMap.values(), this);
         }
 
         @Override
@@ -225,6 +979,54 @@ public final class Configuration {
                     + providersMap
                     + ", systemPushPreferred="
                     + isSelectSystemPreferred
+                    + ", parallelAvailabilityCheck="
+                    + isParallelAvailabilityCheck
+                    + ", availabilityCacheTtlMillis="
+                    + availabilityCacheTtlMillis
+                    + ", deferredManifestCheck="
+                    + isDeferredManifestCheck
+                    + ", hotStandby="
+                    + isHotStandby
+                    + ", adaptiveRanking="
+                    + isAdaptiveRanking
+                    + ", pushMetrics="
+                    + pushMetrics
+                    + ", backoffManager="
+                    + backoffManager
+                    + ", dispatchThread="
+                    + dispatchThread
+                    + ", dispatchExecutor="
+                    + dispatchExecutor
+                    + ", messageBatchWindowMillis="
+                    + messageBatchWindowMillis
+                    + ", maxMessageBatchSize="
+                    + maxMessageBatchSize
+                    + ", inboundQueueCapacity="
+                    + inboundQueueCapacity
+                    + ", overflowPolicy="
+                    + overflowPolicy
+                    + ", collapseKeyName="
+                    + collapseKeyName
+                    + ", deduplicationKeyName="
+                    + deduplicationKeyName
+                    + ", deduplicationCapacity="
+                    + deduplicationCapacity
+                    + ", messageJournal="
+                    + isMessageJournal
+                    + ", payloadCompression="
+                    + isPayloadCompression
+                    + ", chunkReassemblyGroups="
+                    + chunkReassemblyGroups
+                    + ", chunkReassemblyTtlMillis="
+                    + chunkReassemblyTtlMillis
+                    + ", registrationTimeoutMillis="
+                    + registrationTimeoutMillis
+                    + ", providerRegistrationTimeouts="
+                    + providerRegistrationTimeouts
+                    + ", adaptiveTimeoutFactor="
+                    + adaptiveTimeoutFactor
+                    + ", minRegistrationTimeoutMillis="
+                    + minRegistrationTimeoutMillis
                     + '}';
         }
     }
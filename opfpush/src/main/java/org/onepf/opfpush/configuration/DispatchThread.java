@@ -0,0 +1,42 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush.configuration;
+
+/**
+ * The thread on which the methods of the {@link org.onepf.opfpush.listener.EventListener} are called.
+ *
+ * @since 18.10.2026
+ */
+public enum DispatchThread {
+
+    /**
+     * The events are posted to the main thread. The events which happen on the main thread
+     * are delivered immediately.
+     */
+    MAIN,
+
+    /**
+     * The events are delivered one by one on a single background thread of the library.
+     */
+    BACKGROUND,
+
+    /**
+     * The events are delivered on the thread where they happen. Usually it's the thread of a broadcast receiver
+     * or a service of the push provider.
+     */
+    CALLER
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush.configuration;
+
+/**
+ * Defines what happens to a received message when the inbound message queue is full.
+ *
+ * @since 18.10.2026
+ */
+public enum OverflowPolicy {
+
+    /**
+     * The thread of the push provider waits until the listener takes a message from the queue.
+     * The main thread is never blocked, the oldest message is dropped instead.
+     */
+    BLOCK,
+
+    /**
+     * The oldest pending message is dropped.
+     */
+    DROP_OLDEST,
+
+    /**
+     * A pending message with the same collapse key is replaced with the new one, even if the queue isn't full.
+     * If the queue is full and there is no such message, the oldest pending message is dropped.
+     */
+    COLLAPSE_BY_KEY
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush.listener;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+
+import java.util.List;
+
+/**
+ * The {@link EventListener} which receives the bursts of messages at once.
+ * <p/>
+ * If the message batching is enabled via
+ * {@link org.onepf.opfpush.configuration.Configuration.Builder#setMessageBatching(long, int)},
+ * the messages which arrive within the batching window are passed to the {@link #onMessages(Context, String, List)}
+ * method instead of the {@link #onMessage(Context, String, Bundle)} one. Otherwise the batch listener
+ * receives the messages one by one as a plain {@link EventListener}.
+ *
+ * @since 18.10.2026
+ */
+public interface BatchEventListener extends EventListener {
+
+    /**
+     * Called when one or more messages have been received.
+     * The messages are passed in the order they have been received.
+     *
+     * @param context      The application context.
+     * @param providerName The name of the provider which has received the messages.
+     * @param messages     The data associated with the messages. Messages without data are represented
+     *                     by empty bundles.
+     */
+    void onMessages(@NonNull Context context, @NonNull String providerName, @NonNull List<Bundle> messages);
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush.metrics;
+
+import android.support.annotation.NonNull;
+
+import org.onepf.opfpush.model.Operation;
+import org.onepf.opfpush.model.PushError;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@link PushMetrics} implementation which keeps counters and latency histograms in memory.
+ * All counters are kept per provider and can be read at any time from any thread.
+ *
+ * @since 18.10.2026
+ */
+public class InMemoryPushMetrics implements PushMetrics {
+
+    @NonNull
+    private final ConcurrentMap<String, ProviderMetrics> providersMetrics = new ConcurrentHashMap<>();
+
+    @NonNull
+    private final AtomicLong failoversCount = new AtomicLong();
+
+    @NonNull
+    private final AtomicLong noAvailableProviderCount = new AtomicLong();
+
+    @Override
+    public void onRegistrationStarted(@NonNull final String providerName) {
+        getProviderMetrics(providerName).registrationStartsCount.incrementAndGet();
+    }
+
+    @Override
+    public void onRegistrationSucceeded(@NonNull final String providerName, final long durationMillis) {
+        final ProviderMetrics metrics = getProviderMetrics(providerName);
+        metrics.registrationSuccessesCount.incrementAndGet();
+        metrics.registrationLatency.record(durationMillis);
+    }
+
+    @Override
+    public void onRegistrationFailed(@NonNull final String providerName,
+                                     @NonNull final PushError error,
+                                     final long durationMillis) {
+        final ProviderMetrics metrics = getProviderMetrics(providerName);
+        metrics.registrationFailuresCount.incrementAndGet();
+        metrics.registrationFailureLatency.record(durationMillis);
+    }
+
+    @Override
+    public void onRetryScheduled(@NonNull final String providerName,
+                                 @NonNull final Operation operation,
+                                 final long delayMillis) {
+        final ProviderMetrics metrics = getProviderMetrics(providerName);
+        if (operation == Operation.REGISTER) {
+            metrics.registerRetriesCount.incrementAndGet();
+        } else {
+            metrics.unregisterRetriesCount.incrementAndGet();
+        }
+        metrics.retryDelay.record(delayMillis);
+    }
+
+    @Override
+    public void onFailover(@NonNull final String fromProviderName, @NonNull final String toProviderName) {
+        failoversCount.incrementAndGet();
+    }
+
+    @Override
+    public void onNoAvailableProvider() {
+        noAvailableProviderCount.incrementAndGet();
+    }
+
+    @Override
+    public void onRegistrationTimeout(@NonNull final String providerName) {
+        getProviderMetrics(providerName).registrationTimeoutsCount.incrementAndGet();
+    }
+
+    @Override
+    public void onMessageReceived(@NonNull final String providerName) {
+        getProviderMetrics(providerName).messagesCount.incrementAndGet();
+    }
+
+    @Override
+    public void onMessageDropped(@NonNull final String providerName) {
+        getProviderMetrics(providerName).droppedMessagesCount.incrementAndGet();
+    }
+
+    /**
+     * Returns the names of the providers which have any recorded events.
+     *
+     * @return The unmodifiable set of the provider names.
+     */
+    @NonNull
+    public Set<String> getProviderNames() {
+        return Collections.unmodifiableSet(providersMetrics.keySet());
+    }
+
+    /**
+     * Returns the metrics of the provider.
+     *
+     * @param providerName The name of the provider.
+     * @return The live metrics of the provider. Never null.
+     */
+    @NonNull
+    public ProviderMetrics getProviderMetrics(@NonNull final String providerName) {
+        ProviderMetrics metrics = providersMetrics.get(providerName);
+        if (metrics == null) {
+            final ProviderMetrics newMetrics = new ProviderMetrics();
+            metrics = providersMetrics.putIfAbsent(providerName, newMetrics);
+            if (metrics == null) {
+                metrics = newMetrics;
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Returns the count of the switches from a failed provider to the next one.
+     *
+     * @return The failovers count.
+     */
+    public long getFailoversCount() {
+        return failoversCount.get();
+    }
+
+    /**
+     * Returns how many times the search of the next provider has ended without an available provider.
+     *
+     * @return The count of the searches without an available provider.
+     */
+    public long getNoAvailableProviderCount() {
+        return noAvailableProviderCount.get();
+    }
+
+    /**
+     * Resets all metrics.
+     */
+    public void reset() {
+        providersMetrics.clear();
+        failoversCount.set(0);
+        noAvailableProviderCount.set(0);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("InMemoryPushMetrics{")
+                .append("failoversCount=").append(getFailoversCount())
+                .append(", noAvailableProviderCount=").append(getNoAvailableProviderCount());
+        for (Map.Entry<String, ProviderMetrics> entry : providersMetrics.entrySet()) {
+            builder.append(", ").append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        return builder.append('}').toString();
+    }
+
+    /**
+     * The metrics of a single provider.
+     */
+    public static final class ProviderMetrics {
+
+        private final AtomicLong registrationStartsCount = new AtomicLong();
+        private final AtomicLong registrationSuccessesCount = new AtomicLong();
+        private final AtomicLong registrationFailuresCount = new AtomicLong();
+        private final AtomicLong registrationTimeoutsCount = new AtomicLong();
+        private final AtomicLong registerRetriesCount = new AtomicLong();
+        private final AtomicLong unregisterRetriesCount = new AtomicLong();
+        private final AtomicLong messagesCount = new AtomicLong();
+        private final AtomicLong droppedMessagesCount = new AtomicLong();
+        private final LatencyHistogram registrationLatency = new LatencyHistogram();
+        private final LatencyHistogram registrationFailureLatency = new LatencyHistogram();
+        private final LatencyHistogram retryDelay = new LatencyHistogram();
+
+        private ProviderMetrics() {
+        }
+
+        public long getRegistrationStartsCount() {
+            return registrationStartsCount.get();
+        }
+
+        public long getRegistrationSuccessesCount() {
+            return registrationSuccessesCount.get();
+        }
+
+        public long getRegistrationFailuresCount() {
+            return registrationFailuresCount.get();
+        }
+
+        public long getRegistrationTimeoutsCount() {
+            return registrationTimeoutsCount.get();
+        }
+
+        public long getRetriesCount(@NonNull final Operation operation) {
+            return operation == Operation.REGISTER ? registerRetriesCount.get() : unregisterRetriesCount.get();
+        }
+
+        public long getMessagesCount() {
+            return messagesCount.get();
+        }
+
+        public long getDroppedMessagesCount() {
+            return droppedMessagesCount.get();
+        }
+
+        /**
+         * Returns the histogram of the durations of the successful registrations.
+         */
+        @NonNull
+        public LatencyHistogram getRegistrationLatency() {
+            return registrationLatency;
+        }
+
+        /**
+         * Returns the histogram of the durations of the failed registrations.
+         */
+        @NonNull
+        public LatencyHistogram getRegistrationFailureLatency() {
+            return registrationFailureLatency;
+        }
+
+        /**
+         * Returns the histogram of the delays of the scheduled retries of all operations.
+         */
+        @NonNull
+        public LatencyHistogram getRetryDelay() {
+            return retryDelay;
+        }
+
+        @Override
+        public String toString() {
+            return "ProviderMetrics{"
+                    + "registrationStartsCount=" + getRegistrationStartsCount()
+                    + ", registrationSuccessesCount=" + getRegistrationSuccessesCount()
+                    + ", registrationFailuresCount=" + getRegistrationFailuresCount()
+                    + ", registrationTimeoutsCount=" + getRegistrationTimeoutsCount()
+                    + ", registerRetriesCount=" + registerRetriesCount.get()
+                    + ", unregisterRetriesCount=" + unregisterRetriesCount.get()
+                    + ", messagesCount=" + getMessagesCount()
+                    + ", droppedMessagesCount=" + getDroppedMessagesCount()
+                    + ", registrationLatency=" + registrationLatency
+                    + ", retryDelay=" + retryDelay
+                    + '}';
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush.metrics;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The lock-free histogram of durations with fixed buckets.
+ * The upper bounds of the buckets are listed in {@link #BUCKET_BOUNDS_MILLIS},
+ * the last bucket holds all longer durations.
+ *
+ * @since 18.10.2026
+ */
+public final class LatencyHistogram {
+
+    private static final long[] BUCKET_BOUNDS_MILLIS = {
+            100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000, 300000
+    };
+
+    @NonNull
+    private final AtomicLongArray bucketCounts = new AtomicLongArray(BUCKET_BOUNDS_MILLIS.length + 1);
+
+    @NonNull
+    private final AtomicLong count = new AtomicLong();
+
+    @NonNull
+    private final AtomicLong sumMillis = new AtomicLong();
+
+    @NonNull
+    private final AtomicLong maxMillis = new AtomicLong();
+
+    /**
+     * Returns the upper bounds of the buckets in milliseconds.
+     *
+     * @return The copy of the bounds.
+     */
+    @NonNull
+    public static long[] getBucketBoundsMillis() {
+        return Arrays.copyOf(BUCKET_BOUNDS_MILLIS, BUCKET_BOUNDS_MILLIS.length);
+    }
+
+    /**
+     * Records the duration. Negative durations are ignored.
+     *
+     * @param durationMillis The duration in milliseconds.
+     */
+    public void record(final long durationMillis) {
+        if (durationMillis < 0) {
+            return;
+        }
+
+        int bucket = Arrays.binarySearch(BUCKET_BOUNDS_MILLIS, durationMillis);
+        if (bucket < 0) {
+            bucket = -bucket - 1;
+        }
+        bucketCounts.incrementAndGet(bucket);
+        count.incrementAndGet();
+        sumMillis.addAndGet(durationMillis);
+
+        long max = maxMillis.get();
+        while (durationMillis > max && !maxMillis.compareAndSet(max, durationMillis)) {
+            max = maxMillis.get();
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMaxMillis() {
+        return maxMillis.get();
+    }
+
+    public long getMeanMillis() {
+        final long currentCount = count.get();
+        return currentCount == 0 ? 0 : sumMillis.get() / currentCount;
+    }
+
+    /**
+     * Returns the counts of the durations per bucket. The last element is the count of the durations
+     * which are longer than the last bound.
+     *
+     * @return The snapshot of the counts.
+     */
+    @NonNull
+    public long[] getBucketCounts() {
+        final long[] counts = new long[bucketCounts.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = bucketCounts.get(i);
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the upper bound of the bucket which contains the percentile.
+     * For the last bucket the maximum duration is returned.
+     *
+     * @param percentile The percentile from 0 to 100.
+     * @return The estimated percentile in milliseconds or 0 if there are no recorded durations.
+     */
+    public long getPercentileMillis(final double percentile) {
+        final long[] counts = getBucketCounts();
+        long total = 0;
+        for (long bucketCount : counts) {
+            total += bucketCount;
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(BUCKET_BOUNDS_MILLIS[i], getMaxMillis());
+            }
+        }
+        return getMaxMillis();
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyHistogram{"
+                + "count=" + getCount()
+                + ", meanMillis=" + getMeanMillis()
+                + ", maxMillis=" + getMaxMillis()
+                + ", bucketCounts=" + Arrays.toString(getBucketCounts())
+                + '}';
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush.metrics;
+
+import android.support.annotation.NonNull;
+
+import org.onepf.opfpush.model.Operation;
+import org.onepf.opfpush.model.PushError;
+
+/**
+ * Receives the timed events of the registration state machine.
+ * The implementation can be set via
+ * {@link org.onepf.opfpush.configuration.Configuration.Builder#setPushMetrics(PushMetrics)}.
+ * <p/>
+ * The methods are called on the threads where the events happen, including the main thread,
+ * so an implementation must be thread-safe and mustn't block.
+ *
+ * @since 18.10.2026
+ */
+public interface PushMetrics {
+
+    /**
+     * Is called when the registration of the provider is started.
+     *
+     * @param providerName The name of the provider.
+     */
+    void onRegistrationStarted(@NonNull String providerName);
+
+    /**
+     * Is called when the provider has been registered.
+     *
+     * @param providerName   The name of the provider.
+     * @param durationMillis The time from the start of the registration or {@code -1} if it's unknown.
+     */
+    void onRegistrationSucceeded(@NonNull String providerName, long durationMillis);
+
+    /**
+     * Is called when the registration of the provider has failed.
+     *
+     * @param providerName   The name of the provider.
+     * @param error          The registration error.
+     * @param durationMillis The time from the start of the registration or {@code -1} if it's unknown.
+     */
+    void onRegistrationFailed(@NonNull String providerName, @NonNull PushError error, long durationMillis);
+
+    /**
+     * Is called when the retry of the operation has been scheduled.
+     *
+     * @param providerName The name of the provider.
+     * @param operation    The retried operation.
+     * @param delayMillis  The delay before the retry.
+     */
+    void onRetryScheduled(@NonNull String providerName, @NonNull Operation operation, long delayMillis);
+
+    /**
+     * Is called when the registration moves from a failed provider to another one.
+     *
+     * @param fromProviderName The name of the failed provider.
+     * @param toProviderName   The name of the next provider.
+     */
+    void onFailover(@NonNull String fromProviderName, @NonNull String toProviderName);
+
+    /**
+     * Is called when the search of a provider to register has ended without an available provider.
+     */
+    void onNoAvailableProvider();
+
+    /**
+     * Is called when the registration of the provider hasn't finished in time.
+     *
+     * @param providerName The name of the provider.
+     */
+    void onRegistrationTimeout(@NonNull String providerName);
+
+    /**
+     * Is called when the current provider has received a message.
+     *
+     * @param providerName The name of the provider.
+     */
+    void onMessageReceived(@NonNull String providerName);
+
+    /**
+     * Is called when a received message has been dropped or collapsed because the inbound message queue is full.
+     *
+     * @param providerName The name of the provider which has received the message.
+     */
+    void onMessageDropped(@NonNull String providerName);
+}
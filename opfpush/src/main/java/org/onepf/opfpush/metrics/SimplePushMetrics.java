@@ -0,0 +1,75 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush.metrics;
+
+import android.support.annotation.NonNull;
+
+import org.onepf.opfpush.model.Operation;
+import org.onepf.opfpush.model.PushError;
+
+/**
+ * The default implementation of the {@link PushMetrics} interface. Ignores all events.
+ *
+ * @since 18.10.2026
+ */
+public class SimplePushMetrics implements PushMetrics {
+
+    @Override
+    public void onRegistrationStarted(@NonNull String providerName) {
+        //nothing
+    }
+
+    @Override
+    public void onRegistrationSucceeded(@NonNull String providerName, long durationMillis) {
+        //nothing
+    }
+
+    @Override
+    public void onRegistrationFailed(@NonNull String providerName, @NonNull PushError error, long durationMillis) {
+        //nothing
+    }
+
+    @Override
+    public void onRetryScheduled(@NonNull String providerName, @NonNull Operation operation, long delayMillis) {
+        //nothing
+    }
+
+    @Override
+    public void onFailover(@NonNull String fromProviderName, @NonNull String toProviderName) {
+        //nothing
+    }
+
+    @Override
+    public void onNoAvailableProvider() {
+        //nothing
+    }
+
+    @Override
+    public void onRegistrationTimeout(@NonNull String providerName) {
+        //nothing
+    }
+
+    @Override
+    public void onMessageReceived(@NonNull String providerName) {
+        //nothing
+    }
+
+    @Override
+    public void onMessageDropped(@NonNull String providerName) {
+        //nothing
+    }
+}
@@ -116,6 +116,13 @@ public final class UnrecoverablePushError extends PushError<UnrecoverablePushErr
          * Occurred when a provider is unavailable by provider specific error.
          * Use {@link #getAvailabilityErrorCode()} to know about the reason of a provider unavailability.
          */
-        AVAILABILITY_ERROR
+        AVAILABILITY_ERROR,
+
+        /**
+         * A recoverable error has persisted after all retries allowed by the
+         * {@link org.onepf.opfpush.backoff.BackoffManager}.
+         * Look {@link #getOriginalError()} for the last error.
+         */
+        RETRIES_EXHAUSTED
     }
 }
@@ -28,7 +28,6 @@ import android.support.annotation.Nullable;
 import android.text.TextUtils;
 
 import org.onepf.opfpush.listener.CheckManifestHandler;
-import org.onepf.opfutils.OPFChecks;
 
 import java.util.List;
 import java.util.Locale;
@@ -55,10 +54,7 @@ public final class CheckUtils {
     public static void checkService(@NonNull final Context context,
                                     @NonNull final ComponentName service,
                                     @Nullable final CheckManifestHandler checkManifestHandler) {
-        final PackageManager packageManager = context.getPackageManager();
-        try {
-            packageManager.getServiceInfo(service, 0);
-        } catch (PackageManager.NameNotFoundException e) {
+        if (!ManifestSnapshot.getInstance(context).hasService(service)) {
             final String message = "Service " + service.getClassName()
                     + " hasn't been declared in AndroidManifest.xml";
 
@@ -93,7 +89,6 @@ public final class CheckUtils {
      * @param permission       The checked permission.
      * @param exceptionMessage The exception message.
      */
-    @SuppressWarnings("PMD.EmptyCatchBlock")
     public static void checkPermission(@NonNull final Context context,
                                        @NonNull final String permission,
                                        @NonNull final String exceptionMessage,
@@ -102,19 +97,8 @@ public final class CheckUtils {
             throw new IllegalArgumentException("Permission can't be null or empty.");
         }
 
-        try {
-            final PackageInfo info = context.getPackageManager()
-                    .getPackageInfo(context.getPackageName(), PackageManager.GET_PERMISSIONS);
-            final String[] requestedPermissions = info.requestedPermissions;
-            if (requestedPermissions != null) {
-                for (String requestedPermission : requestedPermissions) {
-                    if (TextUtils.equals(permission, requestedPermission)) {
-                        return;
-                    }
-                }
-            }
-        } catch (PackageManager.NameNotFoundException ignore) {
-            // ignore
+        if (ManifestSnapshot.getInstance(context).hasPermission(permission)) {
+            return;
         }
 
         if (checkManifestHandler == null) {
@@ -166,23 +150,23 @@ public final class CheckUtils {
                                      @NonNull final Intent broadcastIntent,
                                      @Nullable final String permission,
                                      @Nullable final CheckManifestHandler checkManifestHandler) {
-        if (checkManifestHandler == null) {
-            OPFChecks.checkReceiver(context, receiverName, broadcastIntent, permission);
-        } else {
-            safeCheckReceiver(context, receiverName, broadcastIntent, permission, checkManifestHandler);
+        if (ManifestSnapshot.getInstance(context).hasReceiver(receiverName, broadcastIntent, permission)) {
+            return;
         }
-    }
 
-    private static void safeCheckReceiver(@NonNull final Context context,
-                                          @Nullable final String receiverName,
-                                          @NonNull final Intent broadcastIntent,
-                                          @Nullable final String permission,
-                                          @NonNull final CheckManifestHandler checkManifestHandler) {
-        try {
-            OPFChecks.checkReceiver(context, receiverName, broadcastIntent, permission);
-        } catch (IllegalStateException e) {
-            final String message = prepareCheckReceiverReport(context, e.getMessage(), receiverName, broadcastIntent);
-            checkManifestHandler.onCheckManifestError(message);
+        final String message = String.format(
+                Locale.US,
+                "Receiver %s for action %s with permission %s hasn't been declared in AndroidManifest.xml",
+                receiverName,
+                broadcastIntent.getAction(),
+                permission
+        );
+        if (checkManifestHandler == null) {
+            throw new IllegalStateException(message);
+        } else {
+            checkManifestHandler.onCheckManifestError(
+                    prepareCheckReceiverReport(context, message, receiverName, broadcastIntent)
+            );
         }
     }
 
@@ -200,11 +184,9 @@ public final class CheckUtils {
                 .append(LINE_SEPARATOR).append("Intent action : ").append(broadcastIntent.getAction());
 
         final PackageManager packageManager = context.getPackageManager();
-        final List<ResolveInfo> receivers = packageManager
-                .queryBroadcastReceivers(broadcastIntent, PackageManager.GET_INTENT_FILTERS);
-        if (receivers == null) {
-            reportBuilder.append(LINE_SEPARATOR).append("queryBroadcastReceivers returns null");
-        } else if (receivers.isEmpty()) {
+        final List<ResolveInfo> receivers = ManifestSnapshot.getInstance(context)
+                .queryBroadcastReceivers(broadcastIntent);
+        if (receivers.isEmpty()) {
             reportBuilder.append(LINE_SEPARATOR).append("queryBroadcastReceivers returns empty list");
         } else {
             reportBuilder.append(LINE_SEPARATOR)
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush.utils;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ActivityInfo;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.content.pm.ServiceInfo;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.onepf.opfutils.OPFLog;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The in-memory copy of the parts of the application manifest which are used by the manifest checks.
+ * <p/>
+ * The permissions and services of the application are fetched with a single
+ * {@link PackageManager#getPackageInfo(String, int)} call and indexed into hash sets.
+ * The results of {@link PackageManager#queryBroadcastReceivers(Intent, int)} are memoized per intent filter.
+ * The manifest can't change while the process is alive, so the snapshot is shared by the whole process.
+ *
+ * @since 18.10.2026
+ */
+public final class ManifestSnapshot {
+
+    private static final int PACKAGE_INFO_FLAGS = PackageManager.GET_PERMISSIONS | PackageManager.GET_SERVICES;
+
+    @Nullable
+    private static volatile ManifestSnapshot instance;
+
+    @NonNull
+    private final PackageManager packageManager;
+
+    @NonNull
+    private final String packageName;
+
+    @NonNull
+    private final Set<String> requestedPermissions;
+
+    @NonNull
+    private final Set<String> serviceNames;
+
+    @NonNull
+    private final Map<Intent.FilterComparison, List<ResolveInfo>> broadcastReceivers = new ConcurrentHashMap<>();
+
+    private ManifestSnapshot(@NonNull final Context context) {
+        packageManager = context.getPackageManager();
+        packageName = context.getPackageName();
+
+        PackageInfo packageInfo = null;
+        try {
+            packageInfo = packageManager.getPackageInfo(packageName, PACKAGE_INFO_FLAGS);
+        } catch (PackageManager.NameNotFoundException e) {
+            OPFLog.w("Can't get package info of " + packageName, e);
+        }
+
+        requestedPermissions = new HashSet<>();
+        serviceNames = new HashSet<>();
+        if (packageInfo != null) {
+            if (packageInfo.requestedPermissions != null) {
+                requestedPermissions.addAll(Arrays.asList(packageInfo.requestedPermissions));
+            }
+            if (packageInfo.services != null) {
+                for (ServiceInfo service : packageInfo.services) {
+                    serviceNames.add(service.name);
+                }
+            }
+        }
+    }
+
+    @NonNull
+    public static ManifestSnapshot getInstance(@NonNull final Context context) {
+        ManifestSnapshot snapshot = instance;
+        if (snapshot == null) {
+            synchronized (ManifestSnapshot.class) {
+                snapshot = instance;
+                if (snapshot == null) {
+                    snapshot = new ManifestSnapshot(context.getApplicationContext());
+                    instance = snapshot;
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns {@code true} if the permission is requested in the AndroidManifest.xml file.
+     *
+     * @param permission The checked permission.
+     * @return {@code true} if the permission is requested, false otherwise.
+     */
+    public boolean hasPermission(@NonNull final String permission) {
+        return requestedPermissions.contains(permission);
+    }
+
+    /**
+     * Returns {@code true} if the service is declared. Services of other packages are looked up
+     * in the {@link PackageManager}.
+     *
+     * @param service The checked service.
+     * @return {@code true} if the service is declared, false otherwise.
+     */
+    public boolean hasService(@NonNull final ComponentName service) {
+        if (packageName.equals(service.getPackageName())) {
+            return serviceNames.contains(service.getClassName());
+        }
+
+        try {
+            packageManager.getServiceInfo(service, 0);
+            return true;
+        } catch (PackageManager.NameNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns {@code true} if there is a receiver of the application that can handle the {@code broadcastIntent}.
+     *
+     * @param receiverName    The name of the receiver or {@code null} if any receiver fits.
+     * @param broadcastIntent The intent which must be handled by the receiver.
+     * @param permission      The permission the receiver must be protected with or {@code null}.
+     * @return {@code true} if there is such a receiver, false otherwise.
+     */
+    public boolean hasReceiver(@Nullable final String receiverName,
+                               @NonNull final Intent broadcastIntent,
+                               @Nullable final String permission) {
+        for (ResolveInfo receiver : queryBroadcastReceivers(broadcastIntent)) {
+            final ActivityInfo activityInfo = receiver.activityInfo;
+            if (activityInfo != null
+                    && packageName.equals(activityInfo.packageName)
+                    && (receiverName == null || receiverName.equals(activityInfo.name))
+                    && (permission == null || permission.equals(activityInfo.permission))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the memoized result of {@link PackageManager#queryBroadcastReceivers(Intent, int)}.
+     *
+     * @param broadcastIntent The intent for which the receivers are queried.
+     * @return The unmodifiable list of the receivers.
+     */
+    @NonNull
+    public List<ResolveInfo> queryBroadcastReceivers(@NonNull final Intent broadcastIntent) {
+        final Intent.FilterComparison key = new Intent.FilterComparison(broadcastIntent.cloneFilter());
+        List<ResolveInfo> receivers = broadcastReceivers.get(key);
+        if (receivers == null) {
+            final List<ResolveInfo> queriedReceivers = packageManager
+                    .queryBroadcastReceivers(broadcastIntent, PackageManager.GET_INTENT_FILTERS);
+            receivers = queriedReceivers == null
+                    ? Collections.<ResolveInfo>emptyList()
+                    : Collections.unmodifiableList(queriedReceivers);
+            broadcastReceivers.put(key, receivers);
+        }
+        return receivers;
+    }
+}
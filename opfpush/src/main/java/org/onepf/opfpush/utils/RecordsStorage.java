@@ -0,0 +1,126 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.onepf.opfpush.utils;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.text.TextUtils;
+
+import org.onepf.opfutils.OPFLog;
+import org.onepf.opfutils.OPFPreferences;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Persists the lists of records of the library components in a single preferences file.
+ * <p/>
+ * Every list is kept under its own key as one string: the version of the format in the first line
+ * and then a record per line with the fields separated by commas. The last field of a record may contain commas,
+ * other fields and line breaks are not allowed. A list which has been saved with another version is dropped
+ * on load, so a component changes its format by raising the version.
+ *
+ * @since 18.10.2026
+ */
+public final class RecordsStorage {
+
+    private static final String STORAGE_POSTFIX = "opfpush_records";
+
+    private static final char RECORDS_SEPARATOR = '\n';
+    private static final char FIELDS_SEPARATOR = ',';
+
+    @NonNull
+    private final OPFPreferences preferences;
+
+    public RecordsStorage(@NonNull final Context context) {
+        preferences = new OPFPreferences(context.getApplicationContext(), STORAGE_POSTFIX);
+    }
+
+    /**
+     * Loads the records of the list. The records which don't have the expected count of fields are skipped.
+     *
+     * @param key         The key of the list.
+     * @param version     The current version of the format of the list.
+     * @param fieldsCount The count of the fields of a record.
+     * @return The loaded records or an empty list if there are no records of the given version.
+     */
+    @NonNull
+    public List<String[]> load(@NonNull final String key, final int version, final int fieldsCount) {
+        final List<String[]> records = new ArrayList<>();
+        final String encodedRecords = preferences.getString(key);
+        if (TextUtils.isEmpty(encodedRecords)) {
+            return records;
+        }
+
+        int end = encodedRecords.indexOf(RECORDS_SEPARATOR);
+        final String encodedVersion = end < 0 ? encodedRecords : encodedRecords.substring(0, end);
+        if (!String.valueOf(version).equals(encodedVersion)) {
+            OPFLog.w("Drop records '%s' of version %s, expected version %d", key, encodedVersion, version);
+            return records;
+        }
+
+        while (end >= 0) {
+            final int start = end + 1;
+            end = encodedRecords.indexOf(RECORDS_SEPARATOR, start);
+            final String encodedRecord = end < 0 ? encodedRecords.substring(start) : encodedRecords.substring(start, end);
+            final String[] fields = encodedRecord.split(String.valueOf(FIELDS_SEPARATOR), fieldsCount);
+            if (fields.length == fieldsCount) {
+                records.add(fields);
+            } else {
+                OPFLog.w("Wrong record of '%s' : %s", key, encodedRecord);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Replaces the records of the list. The records which fields can't be stored are skipped.
+     *
+     * @param key     The key of the list.
+     * @param version The current version of the format of the list.
+     * @param records The records to save.
+     */
+    public void save(@NonNull final String key, final int version, @NonNull final Collection<String[]> records) {
+        final StringBuilder encodedRecords = new StringBuilder().append(version);
+        for (String[] fields : records) {
+            if (isValid(fields)) {
+                encodedRecords.append(RECORDS_SEPARATOR);
+                for (int i = 0; i < fields.length; i++) {
+                    if (i > 0) {
+                        encodedRecords.append(FIELDS_SEPARATOR);
+                    }
+                    encodedRecords.append(fields[i]);
+                }
+            } else {
+                OPFLog.w("Skip record of '%s' with separators in the fields", key);
+            }
+        }
+        preferences.put(key, encodedRecords.toString());
+    }
+
+    private static boolean isValid(@NonNull final String[] fields) {
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i].indexOf(RECORDS_SEPARATOR) >= 0
+                    || i < fields.length - 1 && fields[i].indexOf(FIELDS_SEPARATOR) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
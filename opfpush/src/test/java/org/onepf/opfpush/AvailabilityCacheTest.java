@@ -0,0 +1,107 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onepf.opfpush.mock.MockNamePushProvider;
+import org.onepf.opfpush.model.AvailabilityResult;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static android.os.Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+/**
+ * @since 18.10.2026
+ */
+@Config(sdk = JELLY_BEAN_MR2, manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class AvailabilityCacheTest extends Assert {
+
+    private static final long TTL_MILLIS = 1000;
+    private static final int NUM_TESTS = 10;
+
+    @Test
+    public void getAvailabilityResult_servedFromCacheUntilExpired() {
+        final CountingPushProvider provider = new CountingPushProvider("Courier");
+        final AvailabilityCache cache = new AvailabilityCache(TTL_MILLIS);
+
+        for (int i = 0; i < NUM_TESTS; ++i) {
+            assertTrue(cache.getAvailabilityResult(provider).isAvailable());
+        }
+        assertEquals(1, provider.checksCount);
+        assertEquals(1, cache.getMissesCount());
+        assertEquals(NUM_TESTS - 1, cache.getHitsCount());
+
+        SystemClock.setCurrentTimeMillis(SystemClock.uptimeMillis() + TTL_MILLIS);
+        cache.getAvailabilityResult(provider);
+        assertEquals(2, provider.checksCount);
+        assertEquals(2, cache.getMissesCount());
+    }
+
+    @Test
+    public void invalidate_forcesNewCheck() {
+        final CountingPushProvider provider = new CountingPushProvider("Courier");
+        final CountingPushProvider otherProvider = new CountingPushProvider("Other");
+        final AvailabilityCache cache = new AvailabilityCache(TTL_MILLIS);
+        cache.getAvailabilityResult(provider);
+        cache.getAvailabilityResult(otherProvider);
+
+        cache.invalidate(provider.getName());
+        cache.getAvailabilityResult(provider);
+        cache.getAvailabilityResult(otherProvider);
+        assertEquals(2, provider.checksCount);
+        assertEquals(1, otherProvider.checksCount);
+
+        cache.invalidateAll();
+        cache.getAvailabilityResult(otherProvider);
+        assertEquals(2, otherProvider.checksCount);
+    }
+
+    @Test
+    public void getAvailabilityResult_zeroTtlDisablesCache() {
+        final CountingPushProvider provider = new CountingPushProvider("Courier");
+        final AvailabilityCache cache = new AvailabilityCache(0);
+
+        for (int i = 0; i < NUM_TESTS; ++i) {
+            cache.getAvailabilityResult(provider);
+        }
+        assertEquals(NUM_TESTS, provider.checksCount);
+        assertEquals(0, cache.getHitsCount());
+    }
+
+    private static final class CountingPushProvider extends MockNamePushProvider {
+
+        private int checksCount;
+
+        CountingPushProvider(@NonNull final String name) {
+            super(name);
+        }
+
+        @NonNull
+        @Override
+        public AvailabilityResult getAvailabilityResult() {
+            checksCount++;
+            return new AvailabilityResult(true);
+        }
+    }
+}
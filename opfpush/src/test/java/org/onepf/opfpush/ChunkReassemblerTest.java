@@ -0,0 +1,114 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush;
+
+import android.os.Bundle;
+import android.os.SystemClock;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onepf.opfpush.codec.PayloadChunker;
+import org.onepf.opfpush.metrics.InMemoryPushMetrics;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+
+import static android.os.Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+/**
+ * @since 18.10.2026
+ */
+@Config(sdk = JELLY_BEAN_MR2, manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class ChunkReassemblerTest extends Assert {
+
+    private static final String PROVIDER_NAME = "Courier";
+    private static final int MAX_GROUPS = 2;
+    private static final long TTL_MILLIS = 60000;
+    private static final int MAX_CHUNK_LENGTH = 16;
+
+    private final InMemoryPushMetrics pushMetrics = new InMemoryPushMetrics();
+
+    private final ChunkReassembler reassembler = new ChunkReassembler(MAX_GROUPS, TTL_MILLIS, pushMetrics);
+
+    @Test
+    public void onChunk_reassemblesChunksInAnyOrderIgnoringRepeats() {
+        final List<Bundle> chunks = split("A payload which takes several chunks");
+        assertTrue(chunks.size() > 2);
+
+        for (int i = chunks.size() - 1; i > 0; i--) {
+            assertNull(reassembler.onChunk(PROVIDER_NAME, chunks.get(i)));
+            assertNull(reassembler.onChunk(PROVIDER_NAME, chunks.get(i)));
+        }
+        assertEquals(1, reassembler.getPendingGroupsCount());
+
+        final Bundle data = reassembler.onChunk(PROVIDER_NAME, chunks.get(0));
+        assertNotNull(data);
+        assertEquals("A payload which takes several chunks", data.getString("text"));
+        assertEquals(0, reassembler.getPendingGroupsCount());
+    }
+
+    @Test
+    public void onChunk_evictsOldestGroupWhenFull() {
+        final List<Bundle> firstChunks = split("The first payload");
+        final List<Bundle> secondChunks = split("The second payload");
+        final List<Bundle> thirdChunks = split("The third payload");
+
+        reassembler.onChunk(PROVIDER_NAME, firstChunks.get(0));
+        reassembler.onChunk(PROVIDER_NAME, secondChunks.get(0));
+        reassembler.onChunk(PROVIDER_NAME, thirdChunks.get(0));
+        assertEquals(MAX_GROUPS, reassembler.getPendingGroupsCount());
+        assertEquals(1, pushMetrics.getProviderMetrics(PROVIDER_NAME).getDroppedMessagesCount());
+
+        for (int i = 1; i < secondChunks.size() - 1; i++) {
+            reassembler.onChunk(PROVIDER_NAME, secondChunks.get(i));
+        }
+        assertNotNull(reassembler.onChunk(PROVIDER_NAME, secondChunks.get(secondChunks.size() - 1)));
+    }
+
+    @Test
+    public void onChunk_evictsExpiredGroups() {
+        final List<Bundle> chunks = split("An expiring payload");
+        reassembler.onChunk(PROVIDER_NAME, chunks.get(0));
+
+        SystemClock.setCurrentTimeMillis(SystemClock.uptimeMillis() + TTL_MILLIS + 1);
+        for (int i = 1; i < chunks.size(); i++) {
+            assertNull(reassembler.onChunk(PROVIDER_NAME, chunks.get(i)));
+        }
+        assertEquals(1, reassembler.getPendingGroupsCount());
+        assertEquals(1, pushMetrics.getProviderMetrics(PROVIDER_NAME).getDroppedMessagesCount());
+    }
+
+    @Test
+    public void onChunk_malformedChunk_isDropped() {
+        final Bundle chunk = split("A malformed payload").get(0);
+        chunk.putString(PayloadChunker.CHUNK_INDEX_KEY, "100");
+
+        assertNull(reassembler.onChunk(PROVIDER_NAME, chunk));
+        assertEquals(0, reassembler.getPendingGroupsCount());
+        assertEquals(1, pushMetrics.getProviderMetrics(PROVIDER_NAME).getDroppedMessagesCount());
+    }
+
+    private static List<Bundle> split(final String text) {
+        final Bundle data = new Bundle();
+        data.putString("text", text);
+        return PayloadChunker.split(data, MAX_CHUNK_LENGTH);
+    }
+}
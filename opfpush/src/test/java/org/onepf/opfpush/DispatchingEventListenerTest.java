@@ -0,0 +1,130 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onepf.opfpush.listener.SimpleEventListener;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static android.os.Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+/**
+ * @since 18.10.2026
+ */
+@Config(sdk = JELLY_BEAN_MR2, manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class DispatchingEventListenerTest extends Assert {
+
+    private static final String PROVIDER_NAME = "Courier";
+
+    @Test
+    public void executor_receivesEventsInOrderAndReusesThem() {
+        final RecordingEventListener eventListener = new RecordingEventListener();
+        final QueueExecutor executor = new QueueExecutor();
+        final DispatchingEventListener dispatchingEventListener =
+                new DispatchingEventListener(eventListener, executor);
+        final Context context = RuntimeEnvironment.application;
+
+        dispatchingEventListener.onRegistered(context, PROVIDER_NAME, "id");
+        dispatchingEventListener.onMessage(context, PROVIDER_NAME, null);
+        assertTrue(eventListener.events.isEmpty());
+
+        executor.runAll();
+        assertEquals(2, eventListener.events.size());
+        assertEquals("onRegistered id", eventListener.events.get(0));
+        assertEquals("onMessage", eventListener.events.get(1));
+
+        dispatchingEventListener.onDeletedMessages(context, PROVIDER_NAME, 2);
+        final Runnable reusedEvent = executor.commands.get(0);
+        executor.runAll();
+        dispatchingEventListener.onMessage(context, PROVIDER_NAME, null);
+        assertSame(reusedEvent, executor.commands.get(0));
+        executor.runAll();
+        assertEquals("onDeletedMessages 2", eventListener.events.get(2));
+        assertEquals("onMessage", eventListener.events.get(3));
+    }
+
+    @Test
+    public void noExecutor_deliversOnCallingThread() {
+        final RecordingEventListener eventListener = new RecordingEventListener();
+        final DispatchingEventListener dispatchingEventListener =
+                new DispatchingEventListener(eventListener, null);
+
+        dispatchingEventListener.onUnregistered(RuntimeEnvironment.application, PROVIDER_NAME, "id");
+        assertEquals(1, eventListener.events.size());
+        assertEquals("onUnregistered id", eventListener.events.get(0));
+    }
+
+    private static final class QueueExecutor implements Executor {
+
+        private final List<Runnable> commands = new ArrayList<>();
+
+        @Override
+        public void execute(@NonNull final Runnable command) {
+            commands.add(command);
+        }
+
+        void runAll() {
+            final List<Runnable> pendingCommands = new ArrayList<>(commands);
+            commands.clear();
+            for (Runnable command : pendingCommands) {
+                command.run();
+            }
+        }
+    }
+
+    private static final class RecordingEventListener extends SimpleEventListener {
+
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onMessage(@NonNull Context context, @NonNull String providerName, @Nullable Bundle extras) {
+            events.add("onMessage");
+        }
+
+        @Override
+        public void onDeletedMessages(@NonNull Context context, @NonNull String providerName, int messagesCount) {
+            events.add("onDeletedMessages " + messagesCount);
+        }
+
+        @Override
+        public void onRegistered(@NonNull Context context, @NonNull String providerName, @NonNull String registrationId) {
+            events.add("onRegistered " + registrationId);
+        }
+
+        @Override
+        public void onUnregistered(@NonNull Context context,
+                                   @NonNull String providerName,
+                                   @Nullable String registrationId) {
+            events.add("onUnregistered " + registrationId);
+        }
+    }
+}
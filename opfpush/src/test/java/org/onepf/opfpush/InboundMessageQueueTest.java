@@ -0,0 +1,177 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onepf.opfpush.configuration.OverflowPolicy;
+import org.onepf.opfpush.listener.SimpleEventListener;
+import org.onepf.opfpush.metrics.InMemoryPushMetrics;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static android.os.Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+/**
+ * @since 18.10.2026
+ */
+@Config(sdk = JELLY_BEAN_MR2, manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class InboundMessageQueueTest extends Assert {
+
+    private static final String PROVIDER_NAME = "Courier";
+    private static final String COLLAPSE_KEY_NAME = "collapse_key";
+    private static final int CAPACITY = 2;
+
+    @Test
+    public void dropOldest_keepsNewestMessages() {
+        final InMemoryPushMetrics pushMetrics = new InMemoryPushMetrics();
+        final InboundMessageQueue queue = createQueue(OverflowPolicy.DROP_OLDEST, pushMetrics);
+        final RecordingEventListener eventListener = new RecordingEventListener();
+        final QueueExecutor executor = new QueueExecutor();
+        final DispatchingEventListener dispatchingEventListener =
+                new DispatchingEventListener(eventListener, executor, queue);
+
+        for (int i = 0; i < 5; i++) {
+            dispatchingEventListener.onMessage(RuntimeEnvironment.application, PROVIDER_NAME, createExtras(i, null));
+        }
+        assertEquals(1, executor.commands.size());
+        assertEquals(CAPACITY, queue.getDepth());
+        assertEquals(3, queue.getDroppedCount());
+        assertEquals(3, pushMetrics.getProviderMetrics(PROVIDER_NAME).getDroppedMessagesCount());
+
+        executor.runAll();
+        assertEquals(0, queue.getDepth());
+        assertEquals(2, eventListener.indexes.size());
+        assertEquals(3, eventListener.indexes.get(0).intValue());
+        assertEquals(4, eventListener.indexes.get(1).intValue());
+
+        dispatchingEventListener.onMessage(RuntimeEnvironment.application, PROVIDER_NAME, createExtras(5, null));
+        assertEquals(1, executor.commands.size());
+    }
+
+    @Test
+    public void collapseByKey_replacesPendingMessageInPlace() {
+        final InboundMessageQueue queue = createQueue(OverflowPolicy.COLLAPSE_BY_KEY, new InMemoryPushMetrics());
+        final RecordingEventListener eventListener = new RecordingEventListener();
+        final QueueExecutor executor = new QueueExecutor();
+        final DispatchingEventListener dispatchingEventListener =
+                new DispatchingEventListener(eventListener, executor, queue);
+        final Context context = RuntimeEnvironment.application;
+
+        dispatchingEventListener.onMessage(context, PROVIDER_NAME, createExtras(0, "news"));
+        dispatchingEventListener.onMessage(context, PROVIDER_NAME, createExtras(1, null));
+        dispatchingEventListener.onMessage(context, PROVIDER_NAME, createExtras(2, "news"));
+        assertEquals(CAPACITY, queue.getDepth());
+        assertEquals(1, queue.getDroppedCount());
+
+        executor.runAll();
+        assertEquals(2, eventListener.indexes.size());
+        assertEquals(2, eventListener.indexes.get(0).intValue());
+        assertEquals(1, eventListener.indexes.get(1).intValue());
+    }
+
+    @Test
+    public void block_waitsForConsumer() throws InterruptedException {
+        final InboundMessageQueue queue = createQueue(OverflowPolicy.BLOCK, new InMemoryPushMetrics());
+        final RecordingEventListener eventListener = new RecordingEventListener();
+        final QueueExecutor executor = new QueueExecutor();
+        final DispatchingEventListener dispatchingEventListener =
+                new DispatchingEventListener(eventListener, executor, queue);
+        final Context context = RuntimeEnvironment.application;
+        dispatchingEventListener.onMessage(context, PROVIDER_NAME, createExtras(0, null));
+        dispatchingEventListener.onMessage(context, PROVIDER_NAME, createExtras(1, null));
+
+        final CountDownLatch offeredLatch = new CountDownLatch(1);
+        final Thread providerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                dispatchingEventListener.onMessage(context, PROVIDER_NAME, createExtras(2, null));
+                offeredLatch.countDown();
+            }
+        });
+        providerThread.start();
+        assertFalse(offeredLatch.await(100, TimeUnit.MILLISECONDS));
+
+        executor.runAll();
+        assertTrue(offeredLatch.await(1, TimeUnit.SECONDS));
+        providerThread.join();
+        assertEquals(0, queue.getDroppedCount());
+    }
+
+    @NonNull
+    private static InboundMessageQueue createQueue(@NonNull final OverflowPolicy overflowPolicy,
+                                                   @NonNull final InMemoryPushMetrics pushMetrics) {
+        return new InboundMessageQueue(CAPACITY, overflowPolicy, COLLAPSE_KEY_NAME, pushMetrics, null);
+    }
+
+    @NonNull
+    private static Bundle createExtras(final int index, @Nullable final String collapseKey) {
+        final Bundle extras = new Bundle();
+        extras.putInt("index", index);
+        if (collapseKey != null) {
+            extras.putString(COLLAPSE_KEY_NAME, collapseKey);
+        }
+        return extras;
+    }
+
+    private static final class QueueExecutor implements Executor {
+
+        private final List<Runnable> commands = new ArrayList<>();
+
+        @Override
+        public synchronized void execute(@NonNull final Runnable command) {
+            commands.add(command);
+        }
+
+        void runAll() {
+            final List<Runnable> pendingCommands;
+            synchronized (this) {
+                pendingCommands = new ArrayList<>(commands);
+                commands.clear();
+            }
+            for (Runnable command : pendingCommands) {
+                command.run();
+            }
+        }
+    }
+
+    private static final class RecordingEventListener extends SimpleEventListener {
+
+        private final List<Integer> indexes = new ArrayList<>();
+
+        @Override
+        public void onMessage(@NonNull Context context, @NonNull String providerName, @Nullable Bundle extras) {
+            assertNotNull(extras);
+            indexes.add(extras.getInt("index"));
+        }
+    }
+}
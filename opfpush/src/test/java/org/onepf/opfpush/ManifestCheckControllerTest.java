@@ -0,0 +1,156 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onepf.opfpush.configuration.Configuration;
+import org.onepf.opfpush.listener.CheckManifestHandler;
+import org.onepf.opfpush.listener.SimpleEventListener;
+import org.onepf.opfpush.mock.MockNamePushProvider;
+import org.onepf.opfpush.mock.MockPushProvider;
+import org.onepf.opfpush.model.AvailabilityResult;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import static android.os.Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+/**
+ * @since 18.10.2026
+ */
+@Config(sdk = JELLY_BEAN_MR2, manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class ManifestCheckControllerTest extends Assert {
+
+    private static final String TAG = ManifestCheckControllerTest.class.getSimpleName();
+
+    private Settings settings;
+    private TestCheckManifestHandler checkManifestHandler;
+    private Configuration.Builder configurationBuilder;
+
+    @Before
+    public void setUp() {
+        eraseSettingsInstance();
+        settings = Settings.getInstance(RuntimeEnvironment.application);
+        checkManifestHandler = new TestCheckManifestHandler();
+        configurationBuilder = new Configuration.Builder()
+                .addProviders(new MockPushProvider.Builder()
+                        .setName("Courier")
+                        .setAvailabilityResult(new AvailabilityResult(true))
+                        .build())
+                .setCheckManifestHandler(checkManifestHandler)
+                .setDeferredManifestCheck(true);
+    }
+
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    @After
+    public void eraseSettingsInstance() {
+        try {
+            final Field instanceField = Settings.class.getDeclaredField("instance");
+            instanceField.setAccessible(true);
+            instanceField.set(null, null);
+        } catch (IllegalAccessException | NoSuchFieldException e) {
+            Log.e(TAG, e.getMessage());
+        }
+    }
+
+    @Test
+    public void checkManifestDeferred_passedCheckIsSkippedForSameVersion() throws Exception {
+        final Configuration configuration = configurationBuilder
+                .setEventListener(new SimpleEventListener())
+                .build();
+
+        final Future<?> future = ManifestCheckController.checkManifestDeferred(
+                RuntimeEnvironment.application, settings, configuration);
+        assertNotNull(future);
+        future.get();
+        assertTrue(checkManifestHandler.errors.isEmpty());
+        assertTrue(settings.isManifestCheckPassed());
+
+        assertNull(ManifestCheckController.checkManifestDeferred(
+                RuntimeEnvironment.application, settings, configuration));
+    }
+
+    @Test
+    public void checkManifestDeferred_errorIsReportedToHandler() throws Exception {
+        final Configuration configuration = configurationBuilder.build();
+
+        final Future<?> future = ManifestCheckController.checkManifestDeferred(
+                RuntimeEnvironment.application, settings, configuration);
+        assertNotNull(future);
+        future.get();
+        assertEquals(1, checkManifestHandler.errors.size());
+        assertFalse(settings.isManifestCheckPassed());
+
+        assertNotNull(ManifestCheckController.checkManifestDeferred(
+                RuntimeEnvironment.application, settings, configuration));
+    }
+
+    @Test
+    public void checkManifestDeferred_exceptionIsReportedAsFailedCheck() throws Exception {
+        final Configuration configuration = new Configuration.Builder()
+                .addProviders(new MockNamePushProvider("Broken") {
+                    @Override
+                    public void checkManifest(@Nullable final CheckManifestHandler checkManifestHandler) {
+                        throw new SecurityException("Package manager is unavailable");
+                    }
+                })
+                .setEventListener(new SimpleEventListener())
+                .setCheckManifestHandler(checkManifestHandler)
+                .setDeferredManifestCheck(true)
+                .build();
+
+        final Future<?> future = ManifestCheckController.checkManifestDeferred(
+                RuntimeEnvironment.application, settings, configuration);
+        assertNotNull(future);
+        future.get();
+        assertEquals(1, checkManifestHandler.errors.size());
+        assertNotNull(settings.getManifestCheckStamp());
+        assertFalse(settings.isManifestCheckPassed());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void checkManifest_throwsWithoutListenerAndReceiver() {
+        ManifestCheckController.checkManifest(RuntimeEnvironment.application, configurationBuilder.build());
+    }
+
+    private static final class TestCheckManifestHandler implements CheckManifestHandler {
+
+        private final List<String> errors = new ArrayList<>();
+
+        @Override
+        public synchronized void onCheckManifestError(@NonNull final String reportMessage) {
+            errors.add(reportMessage);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onepf.opfpush.listener.BatchEventListener;
+import org.onepf.opfpush.listener.SimpleEventListener;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static android.os.Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+/**
+ * @since 18.10.2026
+ */
+@Config(sdk = JELLY_BEAN_MR2, manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class MessageBatcherTest extends Assert {
+
+    private static final String PROVIDER_NAME = "Courier";
+    private static final long WINDOW_MILLIS = 200;
+
+    @Test
+    public void onMessage_coalescesMessagesWithinWindow() {
+        final RecordingBatchEventListener eventListener = new RecordingBatchEventListener();
+        final MessageBatcher batcher = createBatcher(eventListener, 10);
+        final Context context = RuntimeEnvironment.application;
+
+        for (int i = 0; i < 3; i++) {
+            batcher.onMessage(context, PROVIDER_NAME, createExtras(i));
+        }
+        batcher.onMessage(context, PROVIDER_NAME, null);
+        assertTrue(eventListener.batches.isEmpty());
+
+        ShadowLooper.idleMainLooper(WINDOW_MILLIS);
+        assertEquals(1, eventListener.batches.size());
+        final List<Bundle> batch = eventListener.batches.get(0);
+        assertEquals(4, batch.size());
+        assertEquals(2, batch.get(2).getInt("index"));
+        assertTrue(batch.get(3).isEmpty());
+    }
+
+    @Test
+    public void onMessage_flushesFullBatchAndBeforeOtherEvents() {
+        final RecordingBatchEventListener eventListener = new RecordingBatchEventListener();
+        final MessageBatcher batcher = createBatcher(eventListener, 2);
+        final Context context = RuntimeEnvironment.application;
+
+        batcher.onMessage(context, PROVIDER_NAME, createExtras(0));
+        batcher.onMessage(context, PROVIDER_NAME, createExtras(1));
+        assertEquals(1, eventListener.batches.size());
+
+        batcher.onMessage(context, PROVIDER_NAME, createExtras(2));
+        batcher.onMessage(context, "Other", createExtras(3));
+        assertEquals(2, eventListener.batches.size());
+        assertEquals(1, eventListener.batches.get(1).size());
+
+        batcher.onDeletedMessages(context, "Other", 1);
+        assertEquals(3, eventListener.batches.size());
+        assertEquals(3, eventListener.batches.get(2).get(0).getInt("index"));
+        assertEquals(1, eventListener.deletedMessagesCount);
+
+        ShadowLooper.idleMainLooper(WINDOW_MILLIS);
+        assertEquals(3, eventListener.batches.size());
+    }
+
+    @Test
+    public void flush_runsExpiredWindowOnFlushExecutor() {
+        final RecordingBatchEventListener eventListener = new RecordingBatchEventListener();
+        final List<Runnable> tasks = new ArrayList<>();
+        final MessageBatcher batcher = new MessageBatcher(
+                new DispatchingEventListener(eventListener, null),
+                WINDOW_MILLIS,
+                10,
+                new Executor() {
+                    @Override
+                    public void execute(@NonNull final Runnable command) {
+                        tasks.add(command);
+                    }
+                }
+        );
+
+        batcher.onMessage(RuntimeEnvironment.application, PROVIDER_NAME, createExtras(0));
+        ShadowLooper.idleMainLooper(WINDOW_MILLIS);
+        assertTrue(eventListener.batches.isEmpty());
+        assertEquals(1, tasks.size());
+
+        tasks.get(0).run();
+        assertEquals(1, eventListener.batches.size());
+    }
+
+    @Test
+    public void flush_deliversBatchWithoutHoldingLock() throws InterruptedException {
+        final Context context = RuntimeEnvironment.application;
+        final MessageBatcher[] batcherHolder = new MessageBatcher[1];
+        final Thread[] receiverHolder = new Thread[1];
+        final RecordingBatchEventListener eventListener = new RecordingBatchEventListener() {
+            @Override
+            public void onMessages(@NonNull final Context context,
+                                   @NonNull final String providerName,
+                                   @NonNull final List<Bundle> messages) {
+                super.onMessages(context, providerName, messages);
+                if (receiverHolder[0] == null) {
+                    receiverHolder[0] = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            batcherHolder[0].onMessage(context, PROVIDER_NAME, createExtras(1));
+                        }
+                    });
+                    receiverHolder[0].start();
+                    try {
+                        receiverHolder[0].join(1000);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        };
+        batcherHolder[0] = createBatcher(eventListener, 1);
+
+        batcherHolder[0].onMessage(context, PROVIDER_NAME, createExtras(0));
+        assertFalse(receiverHolder[0].isAlive());
+        assertEquals(2, eventListener.batches.size());
+    }
+
+    @NonNull
+    private static MessageBatcher createBatcher(@NonNull final BatchEventListener eventListener,
+                                                final int maxBatchSize) {
+        return new MessageBatcher(new DispatchingEventListener(eventListener, null), WINDOW_MILLIS, maxBatchSize, null);
+    }
+
+    @NonNull
+    private static Bundle createExtras(final int index) {
+        final Bundle extras = new Bundle();
+        extras.putInt("index", index);
+        return extras;
+    }
+
+    private static class RecordingBatchEventListener extends SimpleEventListener
+            implements BatchEventListener {
+
+        private final List<List<Bundle>> batches = new ArrayList<>();
+
+        private int deletedMessagesCount;
+
+        @Override
+        public void onMessages(@NonNull final Context context,
+                               @NonNull final String providerName,
+                               @NonNull final List<Bundle> messages) {
+            batches.add(messages);
+        }
+
+        @Override
+        public void onMessage(@NonNull Context context, @NonNull String providerName, @Nullable Bundle extras) {
+            fail("Messages must be delivered in batches");
+        }
+
+        @Override
+        public void onDeletedMessages(@NonNull Context context, @NonNull String providerName, int messagesCount) {
+            deletedMessagesCount += messagesCount;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static android.os.Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+/**
+ * @since 18.10.2026
+ */
+@Config(sdk = JELLY_BEAN_MR2, manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class MessageDeduplicatorTest extends Assert {
+
+    private static final int CAPACITY = 16;
+
+    @Test
+    public void isDuplicate_recognizesRecentIdsOnly() {
+        final MessageDeduplicator deduplicator = new MessageDeduplicator(RuntimeEnvironment.application, CAPACITY);
+        assertFalse(receive(deduplicator, "first"));
+        assertTrue(receive(deduplicator, "first"));
+
+        for (int i = 0; i < CAPACITY; i++) {
+            assertFalse(receive(deduplicator, "id" + i));
+        }
+        assertFalse(receive(deduplicator, "first"));
+    }
+
+    @Test
+    public void isDuplicate_hasNoFalsePositivesAfterManyIds() {
+        final MessageDeduplicator deduplicator = new MessageDeduplicator(RuntimeEnvironment.application, CAPACITY);
+        for (int i = 0; i < CAPACITY * 100; i++) {
+            assertFalse(receive(deduplicator, "id" + i));
+        }
+        for (int i = CAPACITY * 99; i < CAPACITY * 100; i++) {
+            assertTrue(receive(deduplicator, "id" + i));
+        }
+    }
+
+    @Test
+    public void messageIds_surviveRestart() {
+        final MessageDeduplicator deduplicator = new MessageDeduplicator(RuntimeEnvironment.application, CAPACITY);
+        receive(deduplicator, "first");
+        receive(deduplicator, "second");
+        deduplicator.flush();
+
+        final MessageDeduplicator restoredDeduplicator =
+                new MessageDeduplicator(RuntimeEnvironment.application, CAPACITY);
+        assertTrue(restoredDeduplicator.isDuplicate("first"));
+        assertTrue(restoredDeduplicator.isDuplicate("second"));
+        assertFalse(restoredDeduplicator.isDuplicate("third"));
+    }
+
+    @Test
+    public void reservedId_isRecognizedButNotPersisted() {
+        final MessageDeduplicator deduplicator = new MessageDeduplicator(RuntimeEnvironment.application, CAPACITY);
+        receive(deduplicator, "seen");
+        assertFalse(deduplicator.isDuplicate("reserved"));
+        assertTrue(deduplicator.isDuplicate("reserved"));
+        deduplicator.flush();
+
+        final MessageDeduplicator restoredDeduplicator =
+                new MessageDeduplicator(RuntimeEnvironment.application, CAPACITY);
+        assertTrue(restoredDeduplicator.isDuplicate("seen"));
+        assertFalse(restoredDeduplicator.isDuplicate("reserved"));
+    }
+
+    private static boolean receive(final MessageDeduplicator deduplicator, final String messageId) {
+        final boolean isDuplicate = deduplicator.isDuplicate(messageId);
+        if (!isDuplicate) {
+            deduplicator.markSeen(messageId);
+        }
+        return isDuplicate;
+    }
+}
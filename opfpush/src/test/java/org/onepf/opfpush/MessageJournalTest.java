@@ -0,0 +1,210 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush;
+
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.util.Pair;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static android.os.Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+/**
+ * @since 18.10.2026
+ */
+@Config(sdk = JELLY_BEAN_MR2, manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class MessageJournalTest extends Assert {
+
+    private static final String PROVIDER_NAME = "Courier";
+    private static final String KEY = "key";
+
+    @After
+    public void tearDown() {
+        //noinspection ResultOfMethodCallIgnored
+        getJournalFile().delete();
+    }
+
+    @Test
+    public void restart_replaysUnacknowledgedMessagesInOrder() {
+        final MessageJournal journal = new MessageJournal(RuntimeEnvironment.application);
+        assertTrue(journal.getUnacknowledgedMessages().isEmpty());
+
+        final Bundle acknowledgedExtras = createExtras("first");
+        journal.append(PROVIDER_NAME, acknowledgedExtras);
+        journal.append(PROVIDER_NAME, createExtras("second"));
+        journal.append(PROVIDER_NAME, createExtras("third"));
+        journal.acknowledge(acknowledgedExtras);
+        journal.acknowledge(new Bundle());
+        journal.flush();
+        assertEquals(2, journal.getPendingCount());
+
+        final MessageJournal restoredJournal = new MessageJournal(RuntimeEnvironment.application);
+        final List<Pair<String, Bundle>> messages = restoredJournal.getUnacknowledgedMessages();
+        assertEquals(2, messages.size());
+        assertEquals(PROVIDER_NAME, messages.get(0).first);
+        assertEquals("second", messages.get(0).second.getString(KEY));
+        assertEquals("third", messages.get(1).second.getString(KEY));
+        assertEquals(2, restoredJournal.getPendingCount());
+
+        for (Pair<String, Bundle> message : messages) {
+            restoredJournal.acknowledge(message.second);
+        }
+        restoredJournal.flush();
+        assertEquals(0, restoredJournal.getPendingCount());
+        assertTrue(new MessageJournal(RuntimeEnvironment.application).getUnacknowledgedMessages().isEmpty());
+    }
+
+    @Test
+    public void restart_ignoresTornTail() throws IOException {
+        final MessageJournal journal = new MessageJournal(RuntimeEnvironment.application);
+        journal.append(PROVIDER_NAME, createExtras("intact"));
+
+        final FileOutputStream output = new FileOutputStream(getJournalFile(), true);
+        try {
+            output.write(new byte[]{1, 0, 0, 0, 0, 0, 0, 0, 7, 0, 0, 1});
+        } finally {
+            output.close();
+        }
+
+        final List<Pair<String, Bundle>> messages =
+                new MessageJournal(RuntimeEnvironment.application).getUnacknowledgedMessages();
+        assertEquals(1, messages.size());
+        assertEquals("intact", messages.get(0).second.getString(KEY));
+    }
+
+    @Test
+    public void append_keepsRecordWhenWriteFails() {
+        final MessageJournal journal = new MessageJournal(RuntimeEnvironment.application);
+        final File journalFile = getJournalFile();
+        //noinspection ResultOfMethodCallIgnored
+        journalFile.delete();
+        assertTrue(journalFile.mkdir());
+
+        assertFalse(journal.append(PROVIDER_NAME, createExtras("first")));
+
+        assertTrue(journalFile.delete());
+        assertTrue(journal.append(PROVIDER_NAME, createExtras("second")));
+
+        final List<Pair<String, Bundle>> messages =
+                new MessageJournal(RuntimeEnvironment.application).getUnacknowledgedMessages();
+        assertEquals(2, messages.size());
+        assertEquals("first", messages.get(0).second.getString(KEY));
+        assertEquals("second", messages.get(1).second.getString(KEY));
+    }
+
+    @Test
+    public void sync_compactsJournalWithPendingMessage() throws InterruptedException {
+        final MessageJournal journal = new MessageJournal(RuntimeEnvironment.application);
+        journal.append(PROVIDER_NAME, createExtras("pending"));
+
+        final char[] padding = new char[1024];
+        Arrays.fill(padding, 'x');
+        for (int i = 0; i < 100; i++) {
+            final Bundle extras = createExtras(new String(padding));
+            journal.append(PROVIDER_NAME, extras);
+            journal.acknowledge(extras);
+        }
+        journal.flush();
+        awaitJournalThread(journal);
+        assertTrue(getJournalFile().length() < 50 * padding.length);
+
+        final Bundle lastExtras = createExtras("last");
+        journal.append(PROVIDER_NAME, lastExtras);
+        journal.acknowledge(lastExtras);
+        journal.flush();
+
+        final List<Pair<String, Bundle>> messages =
+                new MessageJournal(RuntimeEnvironment.application).getUnacknowledgedMessages();
+        assertEquals(1, messages.size());
+        assertEquals("pending", messages.get(0).second.getString(KEY));
+    }
+
+    @Test
+    public void whenRestored_passesUnacknowledgedMessages() throws InterruptedException {
+        new MessageJournal(RuntimeEnvironment.application).append(PROVIDER_NAME, createExtras("restored"));
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Bundle[] restoredExtras = new Bundle[1];
+        new MessageJournal(RuntimeEnvironment.application).whenRestored(new MessageJournal.RestoreListener() {
+            @Override
+            public void onRestored(@NonNull final List<Pair<String, Bundle>> messages) {
+                restoredExtras[0] = messages.get(0).second;
+                latch.countDown();
+            }
+        });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals("restored", restoredExtras[0].getString(KEY));
+    }
+
+    @Test
+    public void append_skipsUnencodableMessage() {
+        final MessageJournal journal = new MessageJournal(RuntimeEnvironment.application);
+        final Bundle extras = createExtras("date");
+        extras.putSerializable("date", new Date());
+        journal.append(PROVIDER_NAME, extras);
+        journal.append(PROVIDER_NAME, createExtras("plain"));
+        assertEquals(1, journal.getPendingCount());
+
+        final List<Pair<String, Bundle>> messages =
+                new MessageJournal(RuntimeEnvironment.application).getUnacknowledgedMessages();
+        assertEquals(1, messages.size());
+        assertEquals("plain", messages.get(0).second.getString(KEY));
+    }
+
+    /**
+     * Waits for the tasks which have been scheduled on the journal thread before this call.
+     */
+    private static void awaitJournalThread(final MessageJournal journal) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        journal.whenRestored(new MessageJournal.RestoreListener() {
+            @Override
+            public void onRestored(@NonNull final List<Pair<String, Bundle>> messages) {
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    private static Bundle createExtras(final String value) {
+        final Bundle extras = new Bundle();
+        extras.putString(KEY, value);
+        return extras;
+    }
+
+    private static File getJournalFile() {
+        return new File(RuntimeEnvironment.application.getFilesDir(), "opfpush_journal");
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Bundle;
+import android.util.Log;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onepf.opfpush.backoff.RetryManager;
+import org.onepf.opfpush.configuration.Configuration;
+import org.onepf.opfpush.listener.SimpleEventListener;
+import org.onepf.opfpush.mock.MockPushProvider;
+import org.onepf.opfpush.model.AvailabilityResult;
+import org.onepf.opfpush.pushprovider.PushProvider;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.lang.reflect.Field;
+
+import static android.os.Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+/**
+ * Checks that a burst of messages doesn't cause preference writes, because the unchanged
+ * {@code REGISTERED} state isn't persisted again.
+ *
+ * @since 18.10.2026
+ */
+@Config(sdk = JELLY_BEAN_MR2, manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class MessageWritesTest extends Assert {
+
+    private static final String TAG = MessageWritesTest.class.getSimpleName();
+    private static final String PROVIDER_NAME = "Courier";
+    private static final int MESSAGES_COUNT = 1000;
+
+    private OPFPushHelper helper;
+
+    @Before
+    public void setUp() throws Exception {
+        eraseInstances();
+
+        final PushProvider provider = new MockPushProvider.Builder()
+                .setName(PROVIDER_NAME)
+                .setAvailabilityResult(new AvailabilityResult(true))
+                .build();
+        final Configuration configuration = new Configuration.Builder()
+                .addProviders(provider)
+                .setEventListener(new SimpleEventListener())
+                .build();
+
+        helper = new OPFPushHelperImpl(RuntimeEnvironment.application);
+        helper.init(configuration);
+        setStaticField(OPFPush.class, "helper", helper);
+        helper.register();
+    }
+
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    @After
+    public void eraseInstances() {
+        try {
+            setStaticField(Settings.class, "instance", null);
+            setStaticField(RetryManager.class, "instance", null);
+            setStaticField(OPFPush.class, "helper", null);
+        } catch (IllegalAccessException | NoSuchFieldException e) {
+            Log.e(TAG, e.getMessage());
+        }
+    }
+
+    @Test
+    public void onMessage_skipsWritesOfUnchangedState() {
+        assertTrue(helper.isRegistered());
+
+        final OPFPushHelper.ReceivedMessageHandler handler = helper.getReceivedMessageHandler();
+        // The first message after the registration saves the provider stats.
+        handler.onMessage(PROVIDER_NAME, new Bundle());
+
+        final Settings settings = Settings.getInstance(RuntimeEnvironment.application);
+        final long writesBefore = settings.getWritesCount();
+        final long skippedBefore = settings.getSkippedWritesCount();
+
+        for (int i = 0; i < MESSAGES_COUNT; ++i) {
+            final Bundle extras = new Bundle();
+            extras.putInt("index", i);
+            handler.onMessage(PROVIDER_NAME, extras);
+        }
+
+        assertEquals(writesBefore, settings.getWritesCount());
+        assertEquals(skippedBefore + MESSAGES_COUNT, settings.getSkippedWritesCount());
+    }
+
+    private static void setStaticField(final Class<?> clazz, final String name, final Object value)
+            throws NoSuchFieldException, IllegalAccessException {
+        final Field field = clazz.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(null, value);
+    }
+}
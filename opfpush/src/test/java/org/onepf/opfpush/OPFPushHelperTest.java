@@ -12,10 +12,14 @@ import junit.framework.Assert;
 import org.junit.After;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.onepf.opfpush.backoff.FixedIntervalBackoffManager;
+import org.onepf.opfpush.backoff.RetryManager;
 import org.onepf.opfpush.configuration.Configuration;
 import org.onepf.opfpush.listener.SimpleEventListener;
+import org.onepf.opfpush.metrics.InMemoryPushMetrics;
 import org.onepf.opfpush.mock.MockPushProvider;
 import org.onepf.opfpush.model.AvailabilityResult;
+import org.onepf.opfpush.model.RecoverablePushError;
 import org.onepf.opfpush.model.UnrecoverablePushError;
 import org.onepf.opfpush.pushprovider.PushProvider;
 import org.robolectric.RobolectricTestRunner;
@@ -29,6 +33,7 @@ import java.lang.reflect.Method;
 import java.util.Map;
 
 import static android.os.Build.VERSION_CODES.JELLY_BEAN_MR2;
+import static org.onepf.opfpush.model.RecoverablePushError.Type.SERVICE_NOT_AVAILABLE;
 
 /**
  * @author antonpp
@@ -54,6 +59,13 @@ public class OPFPushHelperTest extends Assert {
                 Log.e(TAG, e.getMessage());
             }
         }
+        try {
+            instanceField = RetryManager.class.getDeclaredField("instance");
+            instanceField.setAccessible(true);
+            instanceField.set(null, null);
+        } catch (IllegalAccessException | NoSuchFieldException e) {
+            Log.e(TAG, e.getMessage());
+        }
     }
 
     @TargetApi(Build.VERSION_CODES.KITKAT)
@@ -91,6 +103,190 @@ public class OPFPushHelperTest extends Assert {
         assertEquals(expected, OPFPush.getHelper().getProviderName());
     }
 
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    @Test
+    public void testParallelAvailabilityCheckKeepsPriority() {
+        final PushProvider unavailableProvider = new MockPushProvider.Builder()
+                .setName("Unavailable")
+                .setAvailabilityResult(new AvailabilityResult(false))
+                .build();
+        final PushProvider firstAvailableProvider = new MockPushProvider.Builder()
+                .setName("FirstAvailable")
+                .setAvailabilityResult(new AvailabilityResult(true))
+                .build();
+        final PushProvider secondAvailableProvider = new MockPushProvider.Builder()
+                .setName("SecondAvailable")
+                .setAvailabilityResult(new AvailabilityResult(true))
+                .build();
+        final TestEventListener eventListener = new TestEventListener();
+        final Configuration configuration = new Configuration.Builder()
+                .addProviders(unavailableProvider, firstAvailableProvider, secondAvailableProvider)
+                .setEventListener(eventListener)
+                .setParallelAvailabilityCheck(true)
+                .build();
+
+        try {
+            initOPFPush(configuration);
+        } catch (IllegalAccessException | InstantiationException | NoSuchFieldException
+                | InvocationTargetException | NoSuchMethodException | ClassNotFoundException e) {
+            Log.e(TAG, e.getMessage());
+        }
+        OPFPush.getHelper().register();
+
+        assertTrue(eventListener.isRegistered());
+        assertEquals(firstAvailableProvider.getName(), OPFPush.getHelper().getProviderName());
+    }
+
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    @Test
+    public void testSystemPreferredUsesStoredSystemApps() {
+        final String systemAppPackage = "org.onepf.system";
+        Settings.getInstance(RuntimeEnvironment.application).edit()
+                .saveSystemAppsFingerprint(String.valueOf(Build.FINGERPRINT))
+                .saveSystemAppFlag(systemAppPackage, true)
+                .commit();
+
+        final PushProvider userProvider = new MockPushProvider.Builder()
+                .setName("User")
+                .setAvailabilityResult(new AvailabilityResult(true))
+                .build();
+        final MockPushProvider.Builder systemProviderBuilder = new MockPushProvider.Builder()
+                .setName("System")
+                .setAvailabilityResult(new AvailabilityResult(true));
+        systemProviderBuilder.setHostAppPackage(systemAppPackage);
+        final PushProvider systemProvider = systemProviderBuilder.build();
+
+        final TestEventListener eventListener = new TestEventListener();
+        final Configuration configuration = new Configuration.Builder()
+                .addProviders(userProvider, systemProvider)
+                .setEventListener(eventListener)
+                .setSelectSystemPreferred(true)
+                .build();
+
+        try {
+            initOPFPush(configuration);
+        } catch (IllegalAccessException | InstantiationException | NoSuchFieldException
+                | InvocationTargetException | NoSuchMethodException | ClassNotFoundException e) {
+            Log.e(TAG, e.getMessage());
+        }
+        OPFPush.getHelper().register();
+
+        assertTrue(eventListener.isRegistered());
+        assertEquals(systemProvider.getName(), OPFPush.getHelper().getProviderName());
+    }
+
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    @Test
+    public void testHotStandbyFailover() {
+        final PushProvider primaryProvider = new MockPushProvider.Builder()
+                .setName("Primary")
+                .setAvailabilityResult(new AvailabilityResult(true))
+                .build();
+        final PushProvider standbyProvider = new MockPushProvider.Builder()
+                .setName("Standby")
+                .setAvailabilityResult(new AvailabilityResult(true))
+                .build();
+        final TestEventListener eventListener = new TestEventListener();
+        final Configuration configuration = new Configuration.Builder()
+                .addProviders(primaryProvider, standbyProvider)
+                .setEventListener(eventListener)
+                .setHotStandby(true)
+                .build();
+
+        try {
+            initOPFPush(configuration);
+        } catch (IllegalAccessException | InstantiationException | NoSuchFieldException
+                | InvocationTargetException | NoSuchMethodException | ClassNotFoundException e) {
+            Log.e(TAG, e.getMessage());
+        }
+        final OPFPushHelper helper = OPFPush.getHelper();
+        helper.register();
+
+        assertEquals(primaryProvider.getName(), helper.getProviderName());
+        assertTrue(standbyProvider.isRegistered());
+        final String standbyRegistrationId = standbyProvider.getRegistrationId();
+
+        helper.registerNextAvailableProvider(primaryProvider.getName());
+
+        assertTrue(helper.isRegistered());
+        assertEquals(standbyProvider.getName(), helper.getProviderName());
+        assertEquals(standbyRegistrationId, helper.getRegistrationId());
+        assertEquals(standbyRegistrationId, eventListener.registrationId);
+    }
+
+    @Test
+    public void testPushMetricsRecordsRegistrationAndFailover() {
+        final PushProvider firstProvider = new MockPushProvider.Builder()
+                .setName("First")
+                .setAvailabilityResult(new AvailabilityResult(true))
+                .build();
+        final PushProvider secondProvider = new MockPushProvider.Builder()
+                .setName("Second")
+                .setAvailabilityResult(new AvailabilityResult(true))
+                .build();
+        final InMemoryPushMetrics pushMetrics = new InMemoryPushMetrics();
+        final Configuration configuration = new Configuration.Builder()
+                .addProviders(firstProvider, secondProvider)
+                .setEventListener(new TestEventListener())
+                .setPushMetrics(pushMetrics)
+                .build();
+
+        try {
+            initOPFPush(configuration);
+        } catch (IllegalAccessException | InstantiationException | NoSuchFieldException
+                | InvocationTargetException | NoSuchMethodException | ClassNotFoundException e) {
+            Log.e(TAG, e.getMessage());
+        }
+        final OPFPushHelper helper = OPFPush.getHelper();
+        helper.register();
+
+        final InMemoryPushMetrics.ProviderMetrics firstMetrics = pushMetrics.getProviderMetrics(firstProvider.getName());
+        assertEquals(1, firstMetrics.getRegistrationStartsCount());
+        assertEquals(1, firstMetrics.getRegistrationSuccessesCount());
+        assertEquals(1, firstMetrics.getRegistrationLatency().getCount());
+        assertEquals(0, pushMetrics.getFailoversCount());
+
+        helper.getReceivedMessageHandler().onMessage(firstProvider.getName(), null);
+        assertEquals(1, firstMetrics.getMessagesCount());
+
+        helper.registerNextAvailableProvider(firstProvider.getName());
+        assertEquals(secondProvider.getName(), helper.getProviderName());
+        assertEquals(1, pushMetrics.getFailoversCount());
+        assertEquals(1, pushMetrics.getProviderMetrics(secondProvider.getName()).getRegistrationSuccessesCount());
+    }
+
+    @Test
+    public void testExhaustedRetriesFailOverToNextProvider() {
+        final MockPushProvider firstProvider = new MockPushProvider.Builder()
+                .setName("First")
+                .setAvailabilityResult(new AvailabilityResult(true))
+                .setRegError(new RecoverablePushError(SERVICE_NOT_AVAILABLE, "First", SERVICE_NOT_AVAILABLE.name()))
+                .build();
+        final PushProvider secondProvider = new MockPushProvider.Builder()
+                .setName("Second")
+                .setAvailabilityResult(new AvailabilityResult(true))
+                .build();
+        final Configuration configuration = new Configuration.Builder()
+                .addProviders(firstProvider, secondProvider)
+                .setEventListener(new TestEventListener())
+                .setBackoffManager(new FixedIntervalBackoffManager(0, 1))
+                .build();
+
+        try {
+            initOPFPush(configuration);
+        } catch (IllegalAccessException | InstantiationException | NoSuchFieldException
+                | InvocationTargetException | NoSuchMethodException | ClassNotFoundException e) {
+            Log.e(TAG, e.getMessage());
+        }
+        final OPFPushHelper helper = OPFPush.getHelper();
+        helper.register();
+        assertFalse(helper.isRegistered());
+
+        firstProvider.register();
+        assertTrue(helper.isRegistered());
+        assertEquals(secondProvider.getName(), helper.getProviderName());
+    }
+
     private void initOPFPush(Configuration configuration) throws ClassNotFoundException
             , IllegalAccessException, InvocationTargetException, InstantiationException
             , NoSuchMethodException, NoSuchFieldException {
@@ -109,11 +305,14 @@ public class OPFPushHelperTest extends Assert {
 
         private boolean isRegistered;
 
+        private String registrationId;
+
         @Override
         public void onRegistered(@NonNull Context context, @NonNull String providerName, @NonNull String registrationId) {
             super.onRegistered(context, providerName, registrationId);
 
             isRegistered = true;
+            this.registrationId = registrationId;
         }
 
         @Override
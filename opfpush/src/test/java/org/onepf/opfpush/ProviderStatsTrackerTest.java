@@ -0,0 +1,154 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush;
+
+import android.os.SystemClock;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onepf.opfpush.mock.MockNamePushProvider;
+import org.onepf.opfpush.pushprovider.PushProvider;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static android.os.Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+/**
+ * @since 18.10.2026
+ */
+@Config(sdk = JELLY_BEAN_MR2, manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class ProviderStatsTrackerTest extends Assert {
+
+    private static final long FAST_LATENCY_MILLIS = 100;
+    private static final long SLOW_LATENCY_MILLIS = 300;
+
+    @After
+    public void tearDown() throws Exception {
+        Settings.getInstance(RuntimeEnvironment.application).flush();
+        resetSettingsInstance();
+    }
+
+    @Test
+    public void sort_ranksByHistoryAndGivesUnknownProvidersMeanScore() {
+        final PushProvider slowProvider = new MockNamePushProvider("Slow");
+        final PushProvider fastProvider = new MockNamePushProvider("Fast");
+        final PushProvider failingProvider = new MockNamePushProvider("Failing");
+        final PushProvider firstUnknownProvider = new MockNamePushProvider("FirstUnknown");
+        final PushProvider secondUnknownProvider = new MockNamePushProvider("SecondUnknown");
+
+        final ProviderStatsTracker tracker = new ProviderStatsTracker(Settings.getInstance(RuntimeEnvironment.application));
+        register(tracker, slowProvider.getName(), SLOW_LATENCY_MILLIS);
+        register(tracker, fastProvider.getName(), FAST_LATENCY_MILLIS);
+        register(tracker, failingProvider.getName(), FAST_LATENCY_MILLIS);
+        for (int i = 0; i < 10; i++) {
+            tracker.onRegistrationStarted(failingProvider.getName());
+            tracker.onRegistrationError(failingProvider.getName());
+        }
+
+        final List<PushProvider> providers = new ArrayList<>(Arrays.asList(
+                firstUnknownProvider, slowProvider, secondUnknownProvider, failingProvider, fastProvider
+        ));
+        tracker.sort(providers);
+        assertEquals(Arrays.asList(
+                fastProvider, firstUnknownProvider, secondUnknownProvider, slowProvider, failingProvider
+        ), providers);
+    }
+
+    @Test
+    public void sort_followsRecentErrorsOfProviderWithLongHistory() {
+        final PushProvider steadyProvider = new MockNamePushProvider("Steady");
+        final PushProvider otherProvider = new MockNamePushProvider("Other");
+        final ProviderStatsTracker tracker = new ProviderStatsTracker(Settings.getInstance(RuntimeEnvironment.application));
+        for (int i = 0; i < ProviderStatsTracker.MAX_ATTEMPTS_COUNT * 3; i++) {
+            register(tracker, steadyProvider.getName(), FAST_LATENCY_MILLIS);
+        }
+        for (int i = 0; i < 5; i++) {
+            register(tracker, otherProvider.getName(), FAST_LATENCY_MILLIS + FAST_LATENCY_MILLIS / 2);
+        }
+
+        final List<PushProvider> providers = new ArrayList<>(Arrays.asList(steadyProvider, otherProvider));
+        tracker.sort(providers);
+        assertEquals(Arrays.asList(steadyProvider, otherProvider), providers);
+
+        for (int i = 0; i < 8; i++) {
+            tracker.onRegistrationStarted(steadyProvider.getName());
+            tracker.onRegistrationError(steadyProvider.getName());
+        }
+        tracker.sort(providers);
+        assertEquals(Arrays.asList(otherProvider, steadyProvider), providers);
+    }
+
+    @Test
+    public void sort_keepsOrderWithoutStats() {
+        final List<PushProvider> providers = new ArrayList<PushProvider>(Arrays.asList(
+                new MockNamePushProvider("First"), new MockNamePushProvider("Second")
+        ));
+        final List<PushProvider> expectedProviders = new ArrayList<>(providers);
+        new ProviderStatsTracker(Settings.getInstance(RuntimeEnvironment.application)).sort(providers);
+        assertEquals(expectedProviders, providers);
+    }
+
+    @Test
+    public void stats_surviveRestartAndSettingsClear() throws Exception {
+        final String providerName = "Courier";
+        final ProviderStatsTracker tracker = new ProviderStatsTracker(Settings.getInstance(RuntimeEnvironment.application));
+        register(tracker, providerName, FAST_LATENCY_MILLIS);
+        advance(FAST_LATENCY_MILLIS);
+        tracker.onMessage(providerName);
+        final double score = tracker.getScore(providerName);
+        assertFalse(Double.isNaN(score));
+
+        final Settings settings = Settings.getInstance(RuntimeEnvironment.application);
+        settings.clear();
+        settings.flush();
+        resetSettingsInstance();
+
+        final ProviderStatsTracker restoredTracker = new ProviderStatsTracker(
+                Settings.getInstance(RuntimeEnvironment.application)
+        );
+        assertEquals(score, restoredTracker.getScore(providerName));
+        assertTrue(Double.isNaN(restoredTracker.getScore("Unknown")));
+    }
+
+    private static void register(final ProviderStatsTracker tracker,
+                                 final String providerName,
+                                 final long latencyMillis) {
+        tracker.onRegistrationStarted(providerName);
+        advance(latencyMillis);
+        tracker.onRegistered(providerName);
+    }
+
+    private static void resetSettingsInstance() throws Exception {
+        final Field instanceField = Settings.class.getDeclaredField("instance");
+        instanceField.setAccessible(true);
+        instanceField.set(null, null);
+    }
+
+    private static void advance(final long millis) {
+        SystemClock.setCurrentTimeMillis(SystemClock.uptimeMillis() + millis);
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.onepf.opfpush;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onepf.opfpush.mock.MockNamePushProvider;
+import org.onepf.opfpush.model.AvailabilityResult;
+import org.onepf.opfpush.pushprovider.PushProvider;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static android.os.Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+/**
+ * @since 18.10.2026
+ */
+@Config(sdk = JELLY_BEAN_MR2, manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class ProvidersAvailabilityCheckerTest extends Assert {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    @Test
+    public void check_runsChecksInParallelAndTopPriorityWinsWhileOthersArePending() throws InterruptedException {
+        final CountDownLatch startedLatch = new CountDownLatch(3);
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        final BlockingPushProvider topProvider = new BlockingPushProvider("Top", true, startedLatch, null);
+        final BlockingPushProvider middleProvider = new BlockingPushProvider("Middle", true, startedLatch, releaseLatch);
+        final BlockingPushProvider lowProvider = new BlockingPushProvider("Low", true, startedLatch, releaseLatch);
+
+        final ProvidersAvailabilityChecker checker = new ProvidersAvailabilityChecker(new AvailabilityCache(0), true, 3);
+        final ProvidersAvailabilityChecker.Probe probe = checker.check(
+                Arrays.<PushProvider>asList(topProvider, middleProvider, lowProvider)
+        );
+        try {
+            // The top provider answers only when all checks have started, so they run at the same time.
+            assertTrue(probe.get(0).isAvailable());
+            assertTrue(topProvider.isAllStarted);
+            assertEquals(1, middleProvider.finishedLatch.getCount());
+            assertEquals(1, lowProvider.finishedLatch.getCount());
+        } finally {
+            releaseLatch.countDown();
+            probe.cancel();
+        }
+    }
+
+    @Test
+    public void get_returnsResultsInPriorityOrderWhenLowerPriorityFinishesFirst() throws InterruptedException {
+        final CountDownLatch startedLatch = new CountDownLatch(2);
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        final BlockingPushProvider topProvider = new BlockingPushProvider("Top", false, startedLatch, releaseLatch);
+        final BlockingPushProvider lowProvider = new BlockingPushProvider("Low", true, startedLatch, null);
+
+        final ProvidersAvailabilityChecker checker = new ProvidersAvailabilityChecker(new AvailabilityCache(0), true, 2);
+        final ProvidersAvailabilityChecker.Probe probe = checker.check(
+                Arrays.<PushProvider>asList(topProvider, lowProvider)
+        );
+        try {
+            assertTrue(lowProvider.finishedLatch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            assertEquals(1, topProvider.finishedLatch.getCount());
+
+            releaseLatch.countDown();
+            assertFalse(probe.get(0).isAvailable());
+            assertTrue(probe.get(1).isAvailable());
+        } finally {
+            releaseLatch.countDown();
+            probe.cancel();
+        }
+    }
+
+    /**
+     * Signals the start of the availability check and blocks it until the release latch is opened.
+     */
+    private static final class BlockingPushProvider extends MockNamePushProvider {
+
+        private final boolean isAvailable;
+
+        @NonNull
+        private final CountDownLatch startedLatch;
+
+        @Nullable
+        private final CountDownLatch releaseLatch;
+
+        @NonNull
+        private final CountDownLatch finishedLatch = new CountDownLatch(1);
+
+        private volatile boolean isAllStarted;
+
+        BlockingPushProvider(@NonNull final String name,
+                             final boolean isAvailable,
+                             @NonNull final CountDownLatch startedLatch,
+                             @Nullable final CountDownLatch releaseLatch) {
+            super(name);
+            this.isAvailable = isAvailable;
+            this.startedLatch = startedLatch;
+            this.releaseLatch = releaseLatch;
+        }
+
+        @NonNull
+        @Override
+        public AvailabilityResult getAvailabilityResult() {
+            startedLatch.countDown();
+            try {
+                isAllStarted = startedLatch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                if (releaseLatch != null) {
+                    releaseLatch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            finishedLatch.countDown();
+            return new AvailabilityResult(isAvailable);
+        }
+    }
+}
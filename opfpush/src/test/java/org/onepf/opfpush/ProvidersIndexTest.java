@@ -0,0 +1,68 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onepf.opfpush.mock.MockNamePushProvider;
+import org.onepf.opfpush.pushprovider.PushProvider;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+
+import static android.os.Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+/**
+ * @since 18.10.2026
+ */
+@Config(sdk = JELLY_BEAN_MR2, manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class ProvidersIndexTest extends Assert {
+
+    @Test
+    public void getProvider() {
+        final PushProvider gcmProvider = new MockNamePushProvider("GCM", "com.google.android.gms");
+        final PushProvider admProvider = new MockNamePushProvider("ADM", "com.amazon.device.messaging");
+        final ProvidersIndex index = new ProvidersIndex(Arrays.asList(gcmProvider, admProvider));
+
+        assertSame(gcmProvider, index.getProvider("GCM"));
+        assertSame(gcmProvider, index.getProvider("gcm"));
+        assertSame(admProvider, index.getProvider("Adm"));
+        assertNull(index.getProvider("Nokia"));
+    }
+
+    @Test
+    public void getProviderByHostApp() {
+        final PushProvider gcmProvider = new MockNamePushProvider("GCM", "com.google.android.gms");
+        final ProvidersIndex index = new ProvidersIndex(Arrays.<PushProvider>asList(gcmProvider));
+
+        assertSame(gcmProvider, index.getProviderByHostApp("com.google.android.gms"));
+        assertNull(index.getProviderByHostApp("org.onepf.store"));
+        assertNull(index.getProviderByHostApp(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void namesDifferOnlyInCase() {
+        new ProvidersIndex(Arrays.<PushProvider>asList(
+                new MockNamePushProvider("Courier"),
+                new MockNamePushProvider("courier")
+        ));
+    }
+}
@@ -24,13 +24,19 @@ import android.os.Build;
 
 import junit.framework.Assert;
 
+import org.junit.After;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.onepf.opfpush.backoff.InfinityExponentialBackoffManager;
+import org.onepf.opfpush.backoff.RetryManager;
+import org.onepf.opfpush.configuration.Configuration;
+import org.onepf.opfpush.mock.MockNamePushProvider;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
 import org.robolectric.shadows.ShadowAlarmManager;
 
+import java.lang.reflect.Field;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -48,6 +54,17 @@ public class RegisteringTimeoutControllerTest {
     private static final String TEST_PROVIDER = "TEST_PROVIDER";
     private static final long TIMEOUT_MINUTES = 5;
     private static final long TIME_DELTA_MILLISECONDS = 100;
+    private static final String OTHER_PROVIDER = "OTHER_PROVIDER";
+    private static final long LATENCY_MILLIS = 3000;
+    private static final double ADAPTIVE_FACTOR = 2.5;
+    private static final long MIN_TIMEOUT_MILLIS = 10000;
+
+    @After
+    public void eraseRetryManagerInstance() throws Exception {
+        final Field instanceField = RetryManager.class.getDeclaredField("instance");
+        instanceField.setAccessible(true);
+        instanceField.set(null, null);
+    }
 
     @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
     @Test
@@ -55,9 +72,11 @@ public class RegisteringTimeoutControllerTest {
         final Context ctx = RuntimeEnvironment.application.getApplicationContext();
         final AlarmManager alarmManager = (AlarmManager) RuntimeEnvironment.application.getSystemService(Context.ALARM_SERVICE);
         final ShadowAlarmManager shadowAlarmManager = shadowOf(alarmManager);
+        final RetryManager retryManager = RetryManager.init(ctx, InfinityExponentialBackoffManager.getInstance());
 
         final long whenExpected = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(TIMEOUT_MINUTES);
-        RegisteringTimeoutController.setTimeout(ctx, TEST_PROVIDER);
+        new RegisteringTimeoutController(ctx, createConfiguration().build(), retryManager.getAlarmScheduler())
+                .setTimeout(TEST_PROVIDER);
 
         final List<ShadowAlarmManager.ScheduledAlarm> alarms = shadowAlarmManager.getScheduledAlarms();
         for (ShadowAlarmManager.ScheduledAlarm alarm : alarms) {
@@ -70,4 +89,81 @@ public class RegisteringTimeoutControllerTest {
         }
         Assert.fail();
     }
+
+    @Test
+    public void testCancelTimeoutOnRegistered() {
+        final Context ctx = RuntimeEnvironment.application;
+        final RetryManager retryManager = RetryManager.init(ctx, InfinityExponentialBackoffManager.getInstance());
+        final RegisteringTimeoutController controller = new RegisteringTimeoutController(
+                ctx, createConfiguration().build(), retryManager.getAlarmScheduler()
+        );
+
+        controller.setTimeout(TEST_PROVIDER);
+        Assert.assertTrue(retryManager.getAlarmScheduler()
+                .isScheduled(OPFConstants.ACTION_CHECK_REGISTERING_TIMEOUT, TEST_PROVIDER));
+        controller.onRegistered(TEST_PROVIDER, LATENCY_MILLIS);
+        Assert.assertFalse(retryManager.getAlarmScheduler()
+                .isScheduled(OPFConstants.ACTION_CHECK_REGISTERING_TIMEOUT, TEST_PROVIDER));
+    }
+
+    @Test
+    public void testAdaptiveTimeout() {
+        final Context ctx = RuntimeEnvironment.application;
+        final RetryManager retryManager = RetryManager.init(ctx, InfinityExponentialBackoffManager.getInstance());
+        final Configuration configuration = createConfiguration()
+                .setRegistrationTimeout(OTHER_PROVIDER, TimeUnit.MINUTES.toMillis(1))
+                .setAdaptiveRegistrationTimeout(ADAPTIVE_FACTOR, MIN_TIMEOUT_MILLIS)
+                .build();
+        final RegisteringTimeoutController controller =
+                new RegisteringTimeoutController(ctx, configuration, retryManager.getAlarmScheduler());
+
+        Assert.assertEquals(TimeUnit.MINUTES.toMillis(TIMEOUT_MINUTES), controller.getTimeoutMillis(TEST_PROVIDER));
+        Assert.assertEquals(TimeUnit.MINUTES.toMillis(1), controller.getTimeoutMillis(OTHER_PROVIDER));
+
+        for (int i = 0; i < RegisteringTimeoutController.MIN_SAMPLES_COUNT - 1; i++) {
+            controller.onRegistered(TEST_PROVIDER, LATENCY_MILLIS);
+        }
+        Assert.assertEquals(TimeUnit.MINUTES.toMillis(TIMEOUT_MINUTES), controller.getTimeoutMillis(TEST_PROVIDER));
+
+        controller.onRegistered(TEST_PROVIDER, LATENCY_MILLIS * 2);
+        Assert.assertEquals(Math.round(LATENCY_MILLIS * 2 * ADAPTIVE_FACTOR), controller.getTimeoutMillis(TEST_PROVIDER));
+
+        for (int i = 0; i < RegisteringTimeoutController.MAX_SAMPLES_COUNT; i++) {
+            controller.onRegistered(TEST_PROVIDER, 1);
+        }
+        Assert.assertEquals(MIN_TIMEOUT_MILLIS, controller.getTimeoutMillis(TEST_PROVIDER));
+
+        final RegisteringTimeoutController restoredController =
+                new RegisteringTimeoutController(ctx, configuration, retryManager.getAlarmScheduler());
+        Assert.assertEquals(MIN_TIMEOUT_MILLIS, restoredController.getTimeoutMillis(TEST_PROVIDER));
+    }
+
+    @Test
+    public void testAdaptiveTimeoutGrowsAfterTimeouts() {
+        final Context ctx = RuntimeEnvironment.application;
+        final RetryManager retryManager = RetryManager.init(ctx, InfinityExponentialBackoffManager.getInstance());
+        final RegisteringTimeoutController controller = new RegisteringTimeoutController(
+                ctx,
+                createConfiguration().setAdaptiveRegistrationTimeout(ADAPTIVE_FACTOR, MIN_TIMEOUT_MILLIS).build(),
+                retryManager.getAlarmScheduler()
+        );
+        for (int i = 0; i < RegisteringTimeoutController.MAX_SAMPLES_COUNT; i++) {
+            controller.onRegistered(TEST_PROVIDER, 1);
+        }
+        Assert.assertEquals(MIN_TIMEOUT_MILLIS, controller.getTimeoutMillis(TEST_PROVIDER));
+
+        long timeoutMillis = MIN_TIMEOUT_MILLIS;
+        for (int i = 0; i < RegisteringTimeoutController.MAX_SAMPLES_COUNT; i++) {
+            controller.onTimeout(TEST_PROVIDER);
+            final long nextTimeoutMillis = controller.getTimeoutMillis(TEST_PROVIDER);
+            Assert.assertTrue(nextTimeoutMillis >= timeoutMillis);
+            timeoutMillis = nextTimeoutMillis;
+        }
+        Assert.assertEquals(TimeUnit.MINUTES.toMillis(TIMEOUT_MINUTES), timeoutMillis);
+    }
+
+    private static Configuration.Builder createConfiguration() {
+        return new Configuration.Builder()
+                .addProviders(new MockNamePushProvider(TEST_PROVIDER), new MockNamePushProvider(OTHER_PROVIDER));
+    }
 }
@@ -98,6 +98,11 @@ public class SettingsTest extends Assert {
         }
     }
 
+    private void reloadSettings() {
+        eraseSettingsInstance();
+        settings = Settings.getInstance(RuntimeEnvironment.application.getApplicationContext());
+    }
+
     @Test
     public void getState_commonSituation() {
         // first is always UNREGISTERED
@@ -106,6 +111,7 @@ public class SettingsTest extends Assert {
         // check all states get correctly
         for (State state : State.values()) {
             sharedPreferences.edit().putInt(KEY_STATE, state.getValue()).apply();
+            reloadSettings();
             assertEquals(state, settings.getState());
         }
     }
@@ -113,7 +119,82 @@ public class SettingsTest extends Assert {
     @Test
     public void getState_nullIsTreatedAsUnregistered() {
         sharedPreferences.edit().putInt(KEY_STATE, -1).apply();
+        reloadSettings();
+        assertEquals(State.UNREGISTERED, settings.getState());
+    }
+
+    @Test
+    public void getState_isServedFromSnapshot() {
+        settings.saveState(State.REGISTERED);
+        settings.flush();
+
+        sharedPreferences.edit().putInt(KEY_STATE, State.REGISTERING.getValue()).commit();
+        assertEquals(State.REGISTERED, settings.getState());
+
+        reloadSettings();
+        assertEquals(State.REGISTERING, settings.getState());
+    }
+
+    @Test
+    public void saveState_skipsUnchangedValue() {
+        settings.saveState(State.REGISTERED);
+        final long writes = settings.getWritesCount();
+        final long skippedWrites = settings.getSkippedWritesCount();
+
+        for (int i = 0; i < NUM_TESTS; ++i) {
+            settings.saveState(State.REGISTERED);
+        }
+        assertEquals(writes, settings.getWritesCount());
+        assertEquals(skippedWrites + NUM_TESTS, settings.getSkippedWritesCount());
+
+        settings.saveState(State.UNREGISTERED);
+        assertEquals(writes + 1, settings.getWritesCount());
+    }
+
+    @Test
+    public void edit_skipsCommitOfUnchangedValues() {
+        final PushProvider provider = pushProviders[RND.nextInt(NUM_PROVIDERS)];
+        settings.edit().saveState(State.REGISTERING).saveRegisteringProvider(provider.getName()).commit();
+        final long writes = settings.getWritesCount();
+        final long skippedWrites = settings.getSkippedWritesCount();
+
+        settings.edit()
+                .saveState(State.REGISTERING)
+                .saveRegisteringProvider(provider.getName())
+                .removePendingRegistrationProvider()
+                .commit();
+        assertEquals(writes, settings.getWritesCount());
+        assertEquals(skippedWrites + 3, settings.getSkippedWritesCount());
+    }
+
+    @Test
+    public void edit_appliesAllChangesOnCommit() {
+        final PushProvider provider = pushProviders[RND.nextInt(NUM_PROVIDERS)];
+        settings.savePendingRegistrationProvider(provider.getName());
+
+        final Settings.Editor editor = settings.edit()
+                .saveState(State.REGISTERING)
+                .removePendingRegistrationProvider()
+                .saveRegisteringProvider(provider.getName())
+                .saveLastProvider(provider);
         assertEquals(State.UNREGISTERED, settings.getState());
+        assertEquals(provider.getName(), settings.getPendingRegistrationProvider());
+        assertFalse(settings.isProviderRegistrationPerforming(provider.getName()));
+
+        editor.commit();
+        assertEquals(State.REGISTERING, settings.getState());
+        assertNull(settings.getPendingRegistrationProvider());
+        assertTrue(settings.isProviderRegistrationPerforming(provider.getName()));
+        assertEquals(provider.getName(), settings.getLastProviderName());
+
+        settings.flush();
+        assertEquals(State.REGISTERING.getValue(), sharedPreferences.getInt(KEY_STATE, -1));
+        assertFalse(sharedPreferences.contains(KEY_PENDING_REGISTRATION_PROVIDER));
+        assertTrue(sharedPreferences.getBoolean(
+                KEY_REGISTERING_PROVIDER_PREFIX + provider.getName().toLowerCase(Locale.US),
+                false
+        ));
+        assertEquals(provider.getName(), sharedPreferences.getString(KEY_LAST_PROVIDER_NAME, null));
     }
 
     @Test
@@ -125,6 +206,7 @@ public class SettingsTest extends Assert {
         for (int i = 0; i < NUM_TESTS; ++i) {
             expectedState = State.values()[RND.nextInt(numStates)];
             settings.saveState(expectedState);
+            settings.flush();
             assertTrue(sharedPreferences.contains(KEY_STATE));
             actualState = State.fromValue(sharedPreferences.getInt(KEY_STATE, numStates));
             assertEquals(expectedState, actualState);
@@ -146,6 +228,7 @@ public class SettingsTest extends Assert {
         for (int i = 0; i < NUM_TESTS; ++i) {
             expected = pushProviders[RND.nextInt(NUM_PROVIDERS)];
             settings.saveLastProvider(expected);
+            settings.flush();
             assertEquals(expected.getName(), sharedPreferences.getString(KEY_LAST_PROVIDER_NAME, null));
         }
     }
@@ -154,6 +237,7 @@ public class SettingsTest extends Assert {
     public void saveLastProviderNameNullCase() {
         settings.saveLastProvider(pushProviders[RND.nextInt(NUM_PROVIDERS)]);
         settings.saveLastProvider(null);
+        settings.flush();
         assertFalse(sharedPreferences.contains(KEY_LAST_PROVIDER_NAME));
     }
 
@@ -163,6 +247,7 @@ public class SettingsTest extends Assert {
         for (int i = 0; i < NUM_TESTS; ++i) {
             expected = pushProviders[RND.nextInt(NUM_PROVIDERS)].getName();
             sharedPreferences.edit().putString(KEY_LAST_PROVIDER_NAME, expected).apply();
+            reloadSettings();
             assertEquals(expected, settings.getLastProviderName());
         }
     }
@@ -182,6 +267,7 @@ public class SettingsTest extends Assert {
         String[] randomStrings = getRandomStrings(NUM_TESTS, RANDOM_STRING_LENGTH);
         for (int i = 0; i < NUM_TESTS; ++i) {
             settings.saveLastAndroidId(randomStrings[i]);
+            settings.flush();
             assertEquals(randomStrings[i], sharedPreferences.getString(KEY_LAST_ANDROID_ID, null));
         }
     }
@@ -190,7 +276,9 @@ public class SettingsTest extends Assert {
     public void saveLastAndroidId_passingNullClearsPreferences() {
         // test null case
         sharedPreferences.edit().putString(KEY_LAST_ANDROID_ID, "notNull").apply();
+        reloadSettings();
         settings.saveLastAndroidId(null);
+        settings.flush();
         assertFalse(sharedPreferences.contains(KEY_LAST_ANDROID_ID));
     }
 
@@ -199,6 +287,7 @@ public class SettingsTest extends Assert {
         String[] randomStrings = getRandomStrings(NUM_TESTS, RANDOM_STRING_LENGTH);
         for (int i = 0; i < NUM_TESTS; ++i) {
             sharedPreferences.edit().putString(KEY_LAST_ANDROID_ID, randomStrings[i]).apply();
+            reloadSettings();
             assertEquals(randomStrings[i], settings.getLastAndroidId());
         }
     }
@@ -230,6 +319,7 @@ public class SettingsTest extends Assert {
             ).apply();
         }
 
+        reloadSettings();
         final List<String> mixedRandomStrings = shuffleStringArray(randomStrings);
         for (int i = 0; i < NUM_TESTS; ++i) {
             assertTrue(settings.isProviderUnregistrationPerforming(mixedRandomStrings.get(i)));
@@ -245,6 +335,7 @@ public class SettingsTest extends Assert {
 
         final List<String> mixedRandomStrings = shuffleStringArray(randomStrings);
         for (int i = 0; i < NUM_TESTS; ++i) {
+            settings.flush();
             assertTrue(sharedPreferences.getBoolean(
                     KEY_UNREGISTERING_PROVIDER_PREFIX + mixedRandomStrings.get(i).toLowerCase(Locale.US),
                     false
@@ -262,11 +353,13 @@ public class SettingsTest extends Assert {
             ).apply();
         }
 
+        reloadSettings();
         for (int i = 0; i < NUM_TESTS; ++i) {
             settings.removeUnregisteringProvider(randomStrings[i]);
         }
 
         for (int i = 0; i < NUM_TESTS; ++i) {
+            settings.flush();
             assertFalse(sharedPreferences.contains(
                     KEY_UNREGISTERING_PROVIDER_PREFIX + randomStrings[i].toLowerCase(Locale.US)
             ));
@@ -291,6 +384,7 @@ public class SettingsTest extends Assert {
             ).apply();
         }
 
+        reloadSettings();
         final List<String> mixedRandomStrings = shuffleStringArray(randomStrings);
         for (int i = 0; i < NUM_TESTS; ++i) {
             assertTrue(settings.isProviderRegistrationPerforming(mixedRandomStrings.get(i)));
@@ -306,6 +400,7 @@ public class SettingsTest extends Assert {
 
         final List<String> mixedRandomStrings = shuffleStringArray(randomStrings);
         for (int i = 0; i < NUM_TESTS; ++i) {
+            settings.flush();
             assertTrue(sharedPreferences.getBoolean(
                     KEY_REGISTERING_PROVIDER_PREFIX + mixedRandomStrings.get(i).toLowerCase(Locale.US),
                     false
@@ -323,11 +418,13 @@ public class SettingsTest extends Assert {
             ).apply();
         }
 
+        reloadSettings();
         for (int i = 0; i < NUM_TESTS; ++i) {
             settings.removeRegisteringProvider(randomStrings[i]);
         }
 
         for (int i = 0; i < NUM_TESTS; ++i) {
+            settings.flush();
             assertFalse(sharedPreferences.contains(
                     KEY_REGISTERING_PROVIDER_PREFIX + randomStrings[i].toLowerCase(Locale.US)
             ));
@@ -342,8 +439,11 @@ public class SettingsTest extends Assert {
                 .putString(KEY_LAST_ANDROID_ID, "string")
                 .apply();
         settings.clear();
+        settings.flush();
         assertFalse(sharedPreferences.contains(KEY_LAST_PROVIDER_NAME));
+        settings.flush();
         assertFalse(sharedPreferences.contains(KEY_STATE));
+        settings.flush();
         assertFalse(sharedPreferences.contains(KEY_LAST_ANDROID_ID));
     }
 
@@ -352,6 +452,7 @@ public class SettingsTest extends Assert {
         String[] randomStrings = getRandomStrings(NUM_TESTS, RANDOM_STRING_LENGTH);
         for (int i = 0; i < NUM_TESTS; ++i) {
             settings.savePendingRegistrationProvider(randomStrings[i]);
+            settings.flush();
             assertEquals(randomStrings[i], sharedPreferences.getString(KEY_PENDING_REGISTRATION_PROVIDER, ""));
         }
     }
@@ -361,8 +462,10 @@ public class SettingsTest extends Assert {
         String[] randomStrings = getRandomStrings(NUM_TESTS, RANDOM_STRING_LENGTH);
         for (int i = 0; i < NUM_TESTS; ++i) {
             settings.savePendingRegistrationProvider(randomStrings[i]);
+            settings.flush();
             assertTrue(sharedPreferences.contains(KEY_PENDING_REGISTRATION_PROVIDER));
             settings.removePendingRegistrationProvider();
+            settings.flush();
             assertFalse(sharedPreferences.contains(KEY_PENDING_REGISTRATION_PROVIDER));
         }
     }
@@ -372,6 +475,7 @@ public class SettingsTest extends Assert {
         String[] randomStrings = getRandomStrings(NUM_TESTS, RANDOM_STRING_LENGTH);
         for (int i = 0; i < NUM_TESTS; ++i) {
             settings.savePendingRegistrationProvider(randomStrings[i]);
+            settings.flush();
             assertTrue(sharedPreferences.contains(KEY_PENDING_REGISTRATION_PROVIDER));
             assertEquals(randomStrings[i], settings.getPendingRegistrationProvider());
 
@@ -383,6 +487,7 @@ public class SettingsTest extends Assert {
         String[] randomStrings = getRandomStrings(NUM_TESTS, RANDOM_STRING_LENGTH);
         for (int i = 0; i < NUM_TESTS; ++i) {
             settings.savePendingUnregistrationProvider(randomStrings[i]);
+            settings.flush();
             assertEquals(randomStrings[i], sharedPreferences.getString(KEY_PENDING_UNREGISTRATION_PROVIDER, ""));
         }
     }
@@ -392,8 +497,10 @@ public class SettingsTest extends Assert {
         String[] randomStrings = getRandomStrings(NUM_TESTS, RANDOM_STRING_LENGTH);
         for (int i = 0; i < NUM_TESTS; ++i) {
             settings.savePendingUnregistrationProvider(randomStrings[i]);
+            settings.flush();
             assertTrue(sharedPreferences.contains(KEY_PENDING_UNREGISTRATION_PROVIDER));
             settings.removePendingUnregistrationProvider();
+            settings.flush();
             assertFalse(sharedPreferences.contains(KEY_PENDING_UNREGISTRATION_PROVIDER));
         }
     }
@@ -403,6 +510,7 @@ public class SettingsTest extends Assert {
         String[] randomStrings = getRandomStrings(NUM_TESTS, RANDOM_STRING_LENGTH);
         for (int i = 0; i < NUM_TESTS; ++i) {
             settings.savePendingUnregistrationProvider(randomStrings[i]);
+            settings.flush();
             assertTrue(sharedPreferences.contains(KEY_PENDING_UNREGISTRATION_PROVIDER));
             assertEquals(randomStrings[i], settings.getPendingUnregistrationProvider());
 
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush.backoff;
+
+import android.app.AlarmManager;
+import android.content.Context;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowAlarmManager;
+
+import java.util.List;
+
+import static android.os.Build.VERSION_CODES.JELLY_BEAN_MR2;
+import static org.onepf.opfpush.OPFConstants.ACTION_RETRY_REGISTER;
+import static org.onepf.opfpush.OPFConstants.ACTION_RETRY_UNREGISTER;
+import static org.onepf.opfpush.OPFConstants.ACTION_RUN_SCHEDULED_TASKS;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * @since 18.10.2026
+ */
+@Config(sdk = JELLY_BEAN_MR2, manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class AlarmSchedulerTest extends Assert {
+
+    private static final String PROVIDER_A = "PROVIDER_A";
+    private static final String PROVIDER_B = "PROVIDER_B";
+    private static final long LATER_MILLIS = 60000;
+
+    @Test
+    public void schedule_armsSingleAlarmForEarliestTask() {
+        final AlarmScheduler scheduler = new AlarmScheduler(RuntimeEnvironment.application);
+        final long now = System.currentTimeMillis();
+        scheduler.schedule(ACTION_RETRY_REGISTER, PROVIDER_A, now + LATER_MILLIS);
+        scheduler.schedule(ACTION_RETRY_UNREGISTER, PROVIDER_A, now + LATER_MILLIS / 2);
+        scheduler.schedule(ACTION_RETRY_REGISTER, PROVIDER_B, now + LATER_MILLIS * 2);
+
+        final List<ShadowAlarmManager.ScheduledAlarm> alarms = getScheduledAlarms();
+        assertEquals(1, alarms.size());
+        assertEquals(now + LATER_MILLIS / 2, alarms.get(0).triggerAtTime);
+        assertEquals(ACTION_RUN_SCHEDULED_TASKS, shadowOf(alarms.get(0).operation).getSavedIntent().getAction());
+
+        scheduler.cancel(ACTION_RETRY_UNREGISTER, PROVIDER_A);
+        assertEquals(now + LATER_MILLIS, getScheduledAlarms().get(0).triggerAtTime);
+        assertTrue(scheduler.isScheduled(ACTION_RETRY_REGISTER, PROVIDER_A));
+        assertFalse(scheduler.isScheduled(ACTION_RETRY_UNREGISTER, PROVIDER_A));
+
+        scheduler.cancel(ACTION_RETRY_REGISTER, PROVIDER_A);
+        scheduler.cancel(ACTION_RETRY_REGISTER, PROVIDER_B);
+        assertTrue(getScheduledAlarms().isEmpty());
+    }
+
+    @Test
+    public void pollDueTasks_batchesByDelayingAndNeverRunsTasksEarly() {
+        final AlarmScheduler scheduler = new AlarmScheduler(RuntimeEnvironment.application);
+        final long now = System.currentTimeMillis();
+        final long halfTolerance = AlarmScheduler.TOLERANCE_MILLIS / 2;
+        scheduler.schedule(ACTION_RETRY_REGISTER, PROVIDER_B, now - 1);
+        scheduler.schedule(ACTION_RETRY_REGISTER, PROVIDER_A, now + halfTolerance);
+        scheduler.schedule(ACTION_RETRY_UNREGISTER, PROVIDER_B, now + LATER_MILLIS);
+        scheduler.schedule(ACTION_RETRY_UNREGISTER, PROVIDER_A, now + LATER_MILLIS + halfTolerance);
+        assertEquals(now + halfTolerance, getScheduledAlarms().get(0).triggerAtTime);
+
+        final List<AlarmScheduler.Task> dueTasks = scheduler.pollDueTasks();
+        assertEquals(1, dueTasks.size());
+        assertEquals(PROVIDER_B, dueTasks.get(0).getProviderName());
+        assertTrue(scheduler.isScheduled(ACTION_RETRY_REGISTER, PROVIDER_A));
+        assertEquals(now + halfTolerance, getScheduledAlarms().get(0).triggerAtTime);
+
+        scheduler.cancel(ACTION_RETRY_REGISTER, PROVIDER_A);
+        assertEquals(now + LATER_MILLIS + halfTolerance, getScheduledAlarms().get(0).triggerAtTime);
+        assertTrue(scheduler.pollDueTasks().isEmpty());
+    }
+
+    @Test
+    public void tasks_surviveRestart() {
+        final long when = System.currentTimeMillis() + LATER_MILLIS;
+        new AlarmScheduler(RuntimeEnvironment.application).schedule(ACTION_RETRY_REGISTER, PROVIDER_A, when);
+        new AlarmScheduler(RuntimeEnvironment.application).schedule(ACTION_RETRY_REGISTER, PROVIDER_A, when + 1);
+
+        final AlarmScheduler restoredScheduler = new AlarmScheduler(RuntimeEnvironment.application);
+        assertTrue(restoredScheduler.isScheduled(ACTION_RETRY_REGISTER, PROVIDER_A));
+        assertEquals(when + 1, getScheduledAlarms().get(0).triggerAtTime);
+        assertTrue(restoredScheduler.pollDueTasks().isEmpty());
+    }
+
+    private static List<ShadowAlarmManager.ScheduledAlarm> getScheduledAlarms() {
+        final AlarmManager alarmManager = (AlarmManager) RuntimeEnvironment.application
+                .getSystemService(Context.ALARM_SERVICE);
+        return shadowOf(alarmManager).getScheduledAlarms();
+    }
+}
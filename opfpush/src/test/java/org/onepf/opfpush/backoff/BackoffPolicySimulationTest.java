@@ -0,0 +1,178 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush.backoff;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onepf.opfpush.model.Operation;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static android.os.Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+/**
+ * Simulates {@link #DEVICES_COUNT} devices which fail to register at the same moment and retry
+ * with the built-in policies. Prints the percentiles of the retry times per attempt and the peak number
+ * of retries in a {@link #WINDOW_MILLIS} window, which shows how well the policy spreads the retries of the fleet.
+ *
+ * @since 18.10.2026
+ */
+@Config(sdk = JELLY_BEAN_MR2, manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class BackoffPolicySimulationTest extends Assert {
+
+    private static final int DEVICES_COUNT = 1000;
+    private static final int ATTEMPTS_COUNT = 8;
+    private static final long BASE_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(2);
+    private static final long MAX_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final long SEED = 42;
+
+    /**
+     * The width of the time window in which the simultaneous retries are counted.
+     */
+    private static final long WINDOW_MILLIS = 100;
+
+    @Test
+    public void cappedExponential() {
+        final long[][] retryTimes = simulate(
+                new CappedExponentialBackoffManager(BASE_DELAY_MILLIS, MAX_DELAY_MILLIS, new Random(SEED)));
+        print("Capped exponential", retryTimes);
+
+        for (long[] deviceTimes : retryTimes) {
+            for (int attempt = 1; attempt < deviceTimes.length; attempt++) {
+                final long delay = deviceTimes[attempt] - deviceTimes[attempt - 1];
+                final long ceiling = Math.min(MAX_DELAY_MILLIS, BASE_DELAY_MILLIS << attempt);
+                assertTrue(delay >= ceiling / 2 && delay <= ceiling);
+            }
+        }
+        assertTrue(getPeakRetries(retryTimes) < DEVICES_COUNT / 4);
+    }
+
+    @Test
+    public void decorrelatedJitter() {
+        final long[][] retryTimes = simulate(
+                new DecorrelatedJitterBackoffManager(BASE_DELAY_MILLIS, MAX_DELAY_MILLIS, new Random(SEED)));
+        print("Decorrelated jitter", retryTimes);
+
+        for (long[] deviceTimes : retryTimes) {
+            long previousTime = 0;
+            for (long time : deviceTimes) {
+                assertTrue(time - previousTime >= BASE_DELAY_MILLIS && time - previousTime <= MAX_DELAY_MILLIS);
+                previousTime = time;
+            }
+        }
+        assertTrue(getPeakRetries(retryTimes) < DEVICES_COUNT / 4);
+    }
+
+    @Test
+    public void fixedInterval() {
+        final int maxAttempts = 5;
+        final long[][] retryTimes = simulate(new FixedIntervalBackoffManager(BASE_DELAY_MILLIS, maxAttempts));
+        print("Fixed interval", retryTimes);
+
+        for (long[] deviceTimes : retryTimes) {
+            assertEquals(maxAttempts, deviceTimes.length);
+            assertEquals(BASE_DELAY_MILLIS * maxAttempts, deviceTimes[maxAttempts - 1]);
+        }
+        assertEquals(DEVICES_COUNT, getPeakRetries(retryTimes));
+    }
+
+    @Test
+    public void infinityExponential() {
+        final long[][] retryTimes = simulate(InfinityExponentialBackoffManager.getInstance());
+        print("Infinity exponential", retryTimes);
+        assertTrue(getPeakRetries(retryTimes) < DEVICES_COUNT / 4);
+    }
+
+    /**
+     * Returns the retry times in milliseconds since the first failure for every device.
+     * Every device is a separate provider of the same manager, so they share only the random generator.
+     */
+    private static long[][] simulate(final BackoffManager backoffManager) {
+        final long[][] retryTimes = new long[DEVICES_COUNT][];
+        for (int device = 0; device < DEVICES_COUNT; device++) {
+            final String providerName = "device" + device;
+            final long[] deviceTimes = new long[ATTEMPTS_COUNT];
+            int attempts = 0;
+            long time = 0;
+            while (attempts < ATTEMPTS_COUNT && backoffManager.hasTries(providerName, Operation.REGISTER)) {
+                time += backoffManager.getTryDelay(providerName, Operation.REGISTER);
+                deviceTimes[attempts++] = time;
+            }
+            backoffManager.reset(providerName, Operation.REGISTER);
+            retryTimes[device] = Arrays.copyOf(deviceTimes, attempts);
+        }
+        return retryTimes;
+    }
+
+    private static void print(final String policyName, final long[][] retryTimes) {
+        final StringBuilder report = new StringBuilder(policyName)
+                .append(" retry times in seconds (p10 / p50 / p90 / max) for ")
+                .append(DEVICES_COUNT)
+                .append(" devices:");
+        for (int attempt = 0; attempt < ATTEMPTS_COUNT; attempt++) {
+            final long[] attemptTimes = new long[DEVICES_COUNT];
+            int count = 0;
+            for (long[] deviceTimes : retryTimes) {
+                if (attempt < deviceTimes.length) {
+                    attemptTimes[count++] = deviceTimes[attempt];
+                }
+            }
+            if (count == 0) {
+                break;
+            }
+
+            final long[] sortedTimes = Arrays.copyOf(attemptTimes, count);
+            Arrays.sort(sortedTimes);
+            report.append(String.format(Locale.US, "%n  #%d: %.1f / %.1f / %.1f / %.1f", attempt + 1,
+                    toSeconds(sortedTimes[count / 10]),
+                    toSeconds(sortedTimes[count / 2]),
+                    toSeconds(sortedTimes[count * 9 / 10]),
+                    toSeconds(sortedTimes[count - 1])));
+        }
+        report.append(String.format(Locale.US, "%n  peak retries per %d ms: %d", WINDOW_MILLIS, getPeakRetries(retryTimes)));
+        System.out.println(report);
+    }
+
+    private static int getPeakRetries(final long[][] retryTimes) {
+        final Map<Long, Integer> retriesPerWindow = new HashMap<>();
+        int peak = 0;
+        for (long[] deviceTimes : retryTimes) {
+            for (long time : deviceTimes) {
+                final long window = time / WINDOW_MILLIS;
+                final Integer retries = retriesPerWindow.get(window);
+                final int newRetries = retries == null ? 1 : retries + 1;
+                retriesPerWindow.put(window, newRetries);
+                peak = Math.max(peak, newRetries);
+            }
+        }
+        return peak;
+    }
+
+    private static double toSeconds(final long millis) {
+        return millis / 1000.0;
+    }
+}
@@ -16,6 +16,7 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
 import java.lang.reflect.Field;
+import java.util.Random;
 
 import static android.os.Build.VERSION_CODES.JELLY_BEAN_MR2;
 
@@ -73,72 +74,14 @@ public class InfinityExponentialBackoffManagerTest extends Assert {
         }
     }
 
-    private void getTryDelayRegister() {
-        long prevDelay = manager.getTryDelay(PROVIDER_A, Operation.REGISTER);
-        boolean isConstant = false;
-        for (int i = 0; i < Util.NUM_TESTS; ++i) {
-            final long delayA = manager.getTryDelay(PROVIDER_A, Operation.REGISTER);
-            if (isConstant) {
-                Assert.assertEquals(delayA, prevDelay);
-            } else if (delayA != 2L * prevDelay) {
-                isConstant = true;
-                Assert.assertEquals(delayA, prevDelay);
-            } else {
-                Assert.assertEquals(delayA, 2L * prevDelay);
-            }
-            prevDelay = delayA;
-            final long delayB = manager.getTryDelay(PROVIDER_B, Operation.REGISTER);
-            if (isConstant) {
-                Assert.assertEquals(delayB, prevDelay);
-            } else if (delayB != 2L * prevDelay) {
-                isConstant = true;
-                Assert.assertEquals(delayB, prevDelay);
-            } else {
-                Assert.assertEquals(delayB, 2L * prevDelay);
-            }
-            prevDelay = delayB;
-        }
-    }
-
-    private void getTryDelayUnregister() {
-        long prevDelayA = manager.getTryDelay(PROVIDER_A, Operation.UNREGISTER);
-        long prevDelayB = manager.getTryDelay(PROVIDER_B, Operation.UNREGISTER);
-        boolean isConstantA = false;
-        boolean isConstantB = false;
-        for (int i = 0; i < Util.NUM_TESTS; ++i) {
-            final long delayA = manager.getTryDelay(PROVIDER_A, Operation.UNREGISTER);
-            final long delayB = manager.getTryDelay(PROVIDER_B, Operation.UNREGISTER);
-            if (isConstantA) {
-                Assert.assertEquals(delayA, prevDelayA);
-            } else if (delayA != 2L * prevDelayA) {
-                isConstantA = true;
-                Assert.assertEquals(delayA, prevDelayA);
-            } else {
-                Assert.assertEquals(delayA, 2L * prevDelayA);
-            }
-            if (isConstantB) {
-                Assert.assertEquals(delayB, prevDelayB);
-            } else if (delayA != 2L * prevDelayB) {
-                isConstantB = true;
-                Assert.assertEquals(delayB, prevDelayB);
-            } else {
-                Assert.assertEquals(delayB, 2L * prevDelayB);
-            }
-            prevDelayA = delayA;
-            prevDelayB = delayB;
-        }
-    }
-
     @Test
     public void testGetTryDelay() {
         for (final Operation operation : Operation.values()) {
-            switch (operation) {
-                case REGISTER:
-                    getTryDelayRegister();
-                    break;
-                case UNREGISTER:
-                    getTryDelayUnregister();
-                    break;
+            for (int i = 0; i < Util.NUM_TESTS; ++i) {
+                final long delayA = manager.getTryDelay(PROVIDER_A, operation);
+                final long delayB = manager.getTryDelay(PROVIDER_B, operation);
+                assertTrue(delayA >= 0 && delayA <= InfinityExponentialBackoff.getMaxTryDelay(i));
+                assertTrue(delayB >= 0 && delayB <= InfinityExponentialBackoff.getMaxTryDelay(i));
             }
         }
     }
@@ -151,7 +94,48 @@ public class InfinityExponentialBackoffManagerTest extends Assert {
                 manager.getTryDelay(PROVIDER_B, operation);
             }
             manager.reset(PROVIDER_A, operation);
-            assertTrue(manager.getTryDelay(PROVIDER_A, operation) != manager.getTryDelay(PROVIDER_B, operation));
+            assertTrue(manager.getTryDelay(PROVIDER_A, operation) <= InfinityExponentialBackoff.getMaxTryDelay(0));
+        }
+    }
+
+    @Test
+    public void testProvidersAreIsolated() {
+        for (int i = 0; i < InfinityExponentialBackoff.MAX_TRY_COUNT; ++i) {
+            manager.getTryDelay(PROVIDER_A, Operation.REGISTER);
+        }
+
+        for (int i = 0; i < NUM_OF_TRIES; ++i) {
+            assertTrue(manager.getTryDelay(PROVIDER_B, Operation.REGISTER)
+                    <= InfinityExponentialBackoff.getMaxTryDelay(i));
+        }
+    }
+
+    @Test
+    public void testOperationsAreIsolated() {
+        for (int i = 0; i < InfinityExponentialBackoff.MAX_TRY_COUNT; ++i) {
+            manager.getTryDelay(PROVIDER_A, Operation.REGISTER);
+        }
+
+        assertTrue(manager.getTryDelay(PROVIDER_A, Operation.UNREGISTER) <= InfinityExponentialBackoff.getMaxTryDelay(0));
+    }
+
+    @Test
+    public void testFullJitter() {
+        final InfinityExponentialBackoff backoff = new InfinityExponentialBackoff(new Random(42));
+        for (int i = 0; i < InfinityExponentialBackoff.MAX_TRY_COUNT; ++i) {
+            backoff.getTryDelay();
+        }
+
+        final long maxDelay = InfinityExponentialBackoff.getMaxTryDelay(InfinityExponentialBackoff.MAX_TRY_COUNT);
+        long minDelay = Long.MAX_VALUE;
+        long sumDelay = 0;
+        for (int i = 0; i < Util.NUM_TESTS; ++i) {
+            final long delay = backoff.getTryDelay();
+            assertTrue(delay >= 0 && delay <= maxDelay);
+            minDelay = Math.min(minDelay, delay);
+            sumDelay += delay;
         }
+        assertTrue(minDelay < maxDelay / 10);
+        assertEquals(maxDelay / 2, sumDelay / Util.NUM_TESTS, maxDelay / 10);
     }
 }
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush.backoff;
+
+import android.app.AlarmManager;
+import android.content.Context;
+import android.util.Pair;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onepf.opfpush.metrics.SimplePushMetrics;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowAlarmManager;
+import org.robolectric.shadows.ShadowPendingIntent;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import static android.os.Build.VERSION_CODES.JELLY_BEAN_MR2;
+import static org.onepf.opfpush.OPFConstants.ACTION_RETRY_REGISTER;
+import static org.onepf.opfpush.OPFConstants.ACTION_RUN_SCHEDULED_TASKS;
+import static org.onepf.opfpush.model.Operation.REGISTER;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * @since 18.10.2026
+ */
+@Config(sdk = JELLY_BEAN_MR2, manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class RetryManagerTest extends Assert {
+
+    private static final String PROVIDER_NAME = "Courier";
+    private static final long INTERVAL_MILLIS = 60000;
+    private static final int MAX_ATTEMPTS = 3;
+
+    @After
+    public void eraseRetryManagerInstance() throws Exception {
+        final Field instanceField = RetryManager.class.getDeclaredField("instance");
+        instanceField.setAccessible(true);
+        instanceField.set(null, null);
+    }
+
+    @Test
+    public void init_restoresBackoffAndKeepsPendingAlarm() throws Exception {
+        final RetryManager retryManager = initRetryManager();
+        retryManager.postRetryRegister(PROVIDER_NAME);
+        retryManager.postRetryRegister(PROVIDER_NAME);
+        final int alarmsCount = getScheduledAlarms().size();
+
+        eraseRetryManagerInstance();
+        final RetryManager restoredRetryManager = initRetryManager();
+        assertTrue(restoredRetryManager.getRetryProvidersActions()
+                .contains(new Pair<>(PROVIDER_NAME, ACTION_RETRY_REGISTER)));
+        assertTrue(restoredRetryManager.hasTries(PROVIDER_NAME, REGISTER));
+        restoredRetryManager.getTryDelay(PROVIDER_NAME, REGISTER);
+        assertFalse(restoredRetryManager.hasTries(PROVIDER_NAME, REGISTER));
+        assertEquals(alarmsCount, getScheduledAlarms().size());
+    }
+
+    @Test
+    public void init_reschedulesLostAlarm() throws Exception {
+        initRetryManager().postRetryRegister(PROVIDER_NAME);
+        final List<ShadowAlarmManager.ScheduledAlarm> alarms = getScheduledAlarms();
+        assertEquals(1, alarms.size());
+        final long triggerAtTime = alarms.get(0).triggerAtTime;
+
+        eraseRetryManagerInstance();
+        simulateReboot();
+        initRetryManager();
+        final List<ShadowAlarmManager.ScheduledAlarm> restoredAlarms = getScheduledAlarms();
+        assertEquals(1, restoredAlarms.size());
+        assertEquals(triggerAtTime, restoredAlarms.get(0).triggerAtTime);
+        assertEquals(ACTION_RUN_SCHEDULED_TASKS,
+                shadowOf(restoredAlarms.get(0).operation).getSavedIntent().getAction());
+        assertTrue(RetryManager.getInstance().getAlarmScheduler().isScheduled(ACTION_RETRY_REGISTER, PROVIDER_NAME));
+    }
+
+    @Test
+    public void cancelRetry_removesPersistedState() throws Exception {
+        final RetryManager retryManager = initRetryManager();
+        retryManager.postRetryRegister(PROVIDER_NAME);
+        retryManager.cancelRetryRegister(PROVIDER_NAME);
+
+        eraseRetryManagerInstance();
+        simulateReboot();
+        final RetryManager restoredRetryManager = initRetryManager();
+        assertTrue(restoredRetryManager.getRetryProvidersActions().isEmpty());
+        assertTrue(getScheduledAlarms().isEmpty());
+    }
+
+    private static RetryManager initRetryManager() {
+        return RetryManager.init(
+                RuntimeEnvironment.application,
+                new FixedIntervalBackoffManager(INTERVAL_MILLIS, MAX_ATTEMPTS),
+                new SimplePushMetrics()
+        );
+    }
+
+    private static List<ShadowAlarmManager.ScheduledAlarm> getScheduledAlarms() {
+        return shadowOf(getAlarmManager()).getScheduledAlarms();
+    }
+
+    private static void simulateReboot() {
+        final AlarmManager alarmManager = getAlarmManager();
+        for (ShadowAlarmManager.ScheduledAlarm alarm : new ArrayList<>(getScheduledAlarms())) {
+            alarmManager.cancel(alarm.operation);
+        }
+        ShadowPendingIntent.reset();
+    }
+
+    private static AlarmManager getAlarmManager() {
+        return (AlarmManager) RuntimeEnvironment.application.getSystemService(Context.ALARM_SERVICE);
+    }
+}
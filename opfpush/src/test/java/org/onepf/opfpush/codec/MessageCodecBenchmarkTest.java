@@ -0,0 +1,155 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush.codec;
+
+import android.os.Bundle;
+import android.os.Parcel;
+
+import junit.framework.Assert;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.Locale;
+
+import static android.os.Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+/**
+ * Compares the size and the encoding throughput of {@link MessageCodec} with {@link Parcel} and JSON
+ * for a typical push message. The JSON round trip restores all values as strings, like a push provider does.
+ * The Parcel numbers come from the Robolectric implementation,
+ * so only the sizes are comparable with a device. The Parcel numbers come from the Robolectric implementation,
+ * so only the sizes are comparable with a device.
+ *
+ * @since 18.10.2026
+ */
+@Config(sdk = JELLY_BEAN_MR2, manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class MessageCodecBenchmarkTest extends Assert {
+
+    private static final int ITERATIONS = 10000;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Test
+    public void sizeAndThroughput() throws JSONException {
+        final Bundle extras = createTypicalExtras();
+        final int codecSize = MessageCodec.encode(extras).length;
+        final int parcelSize = marshall(extras).length;
+        final int jsonSize = toJson(extras).getBytes(UTF_8).length;
+
+        measureCodec(extras);
+        measureParcel(extras);
+        measureJson(extras);
+        final long codecNanos = measureCodec(extras);
+        final long parcelNanos = measureParcel(extras);
+        final long jsonNanos = measureJson(extras);
+
+        System.out.println(String.format(Locale.US,
+                "Encoded size in bytes: codec %d, parcel %d, json %d. Round trips per ms: codec %d, parcel %d, json %d.",
+                codecSize, parcelSize, jsonSize,
+                perMillisecond(codecNanos), perMillisecond(parcelNanos), perMillisecond(jsonNanos)));
+
+        assertTrue(codecSize < jsonSize);
+        assertTrue(codecSize < parcelSize);
+    }
+
+    private static long measureCodec(final Bundle extras) {
+        final long startNanos = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            MessageCodec.decodeBundle(MessageCodec.encode(extras));
+        }
+        return System.nanoTime() - startNanos;
+    }
+
+    private static long measureParcel(final Bundle extras) {
+        final long startNanos = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            unmarshall(marshall(extras));
+        }
+        return System.nanoTime() - startNanos;
+    }
+
+    private static long measureJson(final Bundle extras) throws JSONException {
+        final long startNanos = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            fromJson(toJson(extras));
+        }
+        return System.nanoTime() - startNanos;
+    }
+
+    private static Bundle createTypicalExtras() {
+        final Bundle extras = new Bundle();
+        extras.putString("from", "123456789012");
+        extras.putString("collapse_key", "do_not_collapse");
+        extras.putString("message_id", "0:1445000000000000%a1b2c3d4e5f6");
+        extras.putString("title", "New message");
+        extras.putString("body", "You have a new message from Alice. Tap to read it.");
+        extras.putLong("sent_time", 1445000000000L);
+        extras.putInt("badge", 3);
+        return extras;
+    }
+
+    private static byte[] marshall(final Bundle extras) {
+        final Parcel parcel = Parcel.obtain();
+        try {
+            parcel.writeBundle(extras);
+            return parcel.marshall();
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static Bundle unmarshall(final byte[] data) {
+        final Parcel parcel = Parcel.obtain();
+        try {
+            parcel.unmarshall(data, 0, data.length);
+            parcel.setDataPosition(0);
+            return parcel.readBundle();
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static String toJson(final Bundle extras) throws JSONException {
+        final JSONObject json = new JSONObject();
+        for (String key : extras.keySet()) {
+            json.put(key, extras.get(key));
+        }
+        return json.toString();
+    }
+
+    private static Bundle fromJson(final String data) throws JSONException {
+        final JSONObject json = new JSONObject(data);
+        final Bundle extras = new Bundle();
+        final Iterator<String> keys = json.keys();
+        while (keys.hasNext()) {
+            final String key = keys.next();
+            extras.putString(key, json.getString(key));
+        }
+        return extras;
+    }
+
+    private static long perMillisecond(final long nanos) {
+        return ITERATIONS * 1000000L / Math.max(nanos, 1);
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush.codec;
+
+import android.os.Bundle;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onepf.opfpush.model.Message;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+
+import static android.os.Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+/**
+ * @since 18.10.2026
+ */
+@Config(sdk = JELLY_BEAN_MR2, manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class MessageCodecTest extends Assert {
+
+    @Test
+    public void bundle_roundTripsAllSupportedTypes() {
+        final Bundle bundle = new Bundle();
+        bundle.putString("string", "\u041f\u0440\u0438\u0432\u0435\u0442, \u4e16\u754c \ud83d\ude00");
+        bundle.putString("empty", "");
+        bundle.putString("null", null);
+        bundle.putInt("int", Integer.MIN_VALUE);
+        bundle.putInt("negative", -1);
+        bundle.putLong("long", Long.MAX_VALUE);
+        bundle.putBoolean("boolean", true);
+        bundle.putDouble("double", Math.PI);
+        bundle.putFloat("float", -Float.MIN_VALUE);
+        bundle.putShort("short", Short.MIN_VALUE);
+        bundle.putByte("byte", (byte) -128);
+        bundle.putChar("char", '\uffff');
+        bundle.putStringArray("stringArray", new String[]{"a", null, ""});
+        bundle.putByteArray("byteArray", new byte[]{0, -1, 127});
+        bundle.putIntArray("intArray", new int[]{Integer.MAX_VALUE, 0, -5});
+        bundle.putLongArray("longArray", new long[]{Long.MIN_VALUE, 300});
+        bundle.putStringArrayList("stringList", new ArrayList<>(Arrays.asList("x", null)));
+        final Bundle nested = new Bundle();
+        nested.putString("string", "nested");
+        bundle.putBundle("bundle", nested);
+
+        final Bundle decoded = MessageCodec.decodeBundle(MessageCodec.encode(bundle));
+        assertEquals(bundle.keySet(), decoded.keySet());
+        for (String key : bundle.keySet()) {
+            final Object expected = bundle.get(key);
+            final Object actual = decoded.get(key);
+            if (expected instanceof Bundle) {
+                assertEquals("nested", ((Bundle) actual).getString("string"));
+            } else if (expected instanceof Object[]) {
+                assertTrue(key, Arrays.equals((Object[]) expected, (Object[]) actual));
+            } else if (expected instanceof byte[]) {
+                assertTrue(key, Arrays.equals((byte[]) expected, (byte[]) actual));
+            } else if (expected instanceof int[]) {
+                assertTrue(key, Arrays.equals((int[]) expected, (int[]) actual));
+            } else if (expected instanceof long[]) {
+                assertTrue(key, Arrays.equals((long[]) expected, (long[]) actual));
+            } else {
+                assertEquals(key, expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void unpairedSurrogate_isReplacedLikeStringGetBytes() {
+        final String string = "a\ud800b\udc00";
+        final Bundle bundle = new Bundle();
+        bundle.putString("string", string);
+
+        final String decoded = MessageCodec.decodeBundle(MessageCodec.encode(bundle)).getString("string");
+        assertEquals(new String(string.getBytes(Charset.forName("UTF-8")), Charset.forName("UTF-8")), decoded);
+    }
+
+    @Test
+    public void message_roundTrips() {
+        final Bundle data = new Bundle();
+        data.putString("text", "Hello");
+        final Message message = new Message("id-42", data, 3600);
+
+        final Message decoded = MessageCodec.decodeMessage(MessageCodec.encode(message));
+        assertEquals("id-42", decoded.getId());
+        assertEquals(3600, decoded.getTimeToLeave());
+        assertEquals("Hello", decoded.getData().getString("text"));
+    }
+
+    @Test
+    public void emptyBundle_isFourBytes() {
+        final byte[] encoded = MessageCodec.encode(new Bundle());
+        assertEquals(4, encoded.length);
+        assertTrue(MessageCodec.decodeBundle(encoded).isEmpty());
+    }
+
+    @Test
+    public void repeatedKeys_areWrittenOnce() {
+        final String key = "a_rather_long_key_name";
+        final Bundle bundle = new Bundle();
+        for (int i = 0; i < 10; i++) {
+            final Bundle item = new Bundle();
+            item.putInt(key, i);
+            bundle.putBundle("item" + i, item);
+        }
+
+        final byte[] encoded = MessageCodec.encode(bundle);
+        final String encodedString = new String(encoded);
+        assertEquals(encodedString.indexOf(key), encodedString.lastIndexOf(key));
+        assertEquals(9, MessageCodec.decodeBundle(encoded).getBundle("item9").getInt(key));
+    }
+
+    @Test
+    public void repeatedKeyLateInNestedBundle_roundTrips() {
+        final Bundle first = new Bundle();
+        for (int i = 1; i <= 9; i++) {
+            first.putInt("k" + i, i);
+        }
+        final Bundle last = new Bundle();
+        last.putBoolean("k9", true);
+        final Bundle bundle = new Bundle();
+        bundle.putBundle("a", first);
+        bundle.putBundle("z", last);
+
+        final Bundle decoded = MessageCodec.decodeBundle(MessageCodec.encode(bundle));
+        assertEquals(9, decoded.getBundle("a").getInt("k9"));
+        assertTrue(decoded.getBundle("z").getBoolean("k9"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void encode_unsupportedType_throwsException() {
+        final Bundle bundle = new Bundle();
+        bundle.putSerializable("date", new Date());
+        MessageCodec.encode(bundle);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_unknownVersion_throwsException() {
+        final byte[] encoded = MessageCodec.encode(new Bundle());
+        encoded[1] = MessageCodec.VERSION + 1;
+        MessageCodec.decodeBundle(encoded);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_wrongKind_throwsException() {
+        MessageCodec.decodeMessage(MessageCodec.encode(new Bundle()));
+    }
+
+    @Test
+    public void decode_truncatedData_throwsException() {
+        final Bundle bundle = new Bundle();
+        bundle.putString("key", "value");
+        bundle.putLong("number", 1L << 40);
+        final byte[] encoded = MessageCodec.encode(bundle);
+        for (int length = 0; length < encoded.length; length++) {
+            try {
+                MessageCodec.decodeBundle(Arrays.copyOf(encoded, length));
+                fail("Truncated to " + length);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush.codec;
+
+import android.os.Bundle;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onepf.opfpush.model.Message;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Random;
+
+import static android.os.Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+/**
+ * @since 18.10.2026
+ */
+@Config(sdk = JELLY_BEAN_MR2, manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class PayloadCompressorTest extends Assert {
+
+    private final PayloadCompressor compressor = new PayloadCompressor();
+
+    @Test
+    public void compress_movesLargeValuesAndRestoresThem() {
+        final Bundle data = new Bundle();
+        data.putString("type", "feed");
+        data.putString("items", createJsonArray(100));
+        data.putString("meta", createJsonArray(20));
+
+        final Bundle compressedData = compressor.compress(data);
+        assertTrue(PayloadCompressor.isCompressed(compressedData));
+        assertEquals("feed", compressedData.getString("type"));
+        assertFalse(compressedData.containsKey("items"));
+        assertTrue(compressedData.getString(PayloadCompressor.COMPRESSED_DATA_KEY).length()
+                < data.getString("items").length() / 4);
+
+        final Bundle decompressedData = compressor.decompress(compressedData);
+        assertFalse(PayloadCompressor.isCompressed(decompressedData));
+        assertEquals(data.keySet(), decompressedData.keySet());
+        for (String key : data.keySet()) {
+            assertEquals(data.getString(key), decompressedData.getString(key));
+        }
+    }
+
+    @Test
+    public void compress_message_keepsIdAndTimeToLeave() {
+        final Bundle data = new Bundle();
+        data.putString("items", createJsonArray(50));
+        final Message message = new Message("id", data, 60);
+
+        final Message compressedMessage = compressor.compress(message);
+        assertEquals("id", compressedMessage.getId());
+        assertEquals(60, compressedMessage.getTimeToLeave());
+        assertTrue(PayloadCompressor.isCompressed(compressedMessage.getData()));
+    }
+
+    @Test
+    public void compress_smallOrIncompressibleValues_returnsSameData() {
+        final Bundle smallData = new Bundle();
+        smallData.putString("text", "Hello");
+        assertSame(smallData, compressor.compress(smallData));
+
+        final byte[] randomBytes = new byte[1024];
+        new Random(42).nextBytes(randomBytes);
+        final StringBuilder randomString = new StringBuilder();
+        for (byte randomByte : randomBytes) {
+            randomString.append((char) ('!' + (randomByte & 0x3F)));
+        }
+        final Bundle randomData = new Bundle();
+        randomData.putString("random", randomString.toString());
+        assertSame(randomData, compressor.compress(randomData));
+    }
+
+    @Test
+    public void decompress_uncompressedOrBrokenExtras_returnsSameExtras() {
+        assertNull(compressor.decompress(null));
+
+        final Bundle extras = new Bundle();
+        extras.putString("text", "Hello");
+        assertSame(extras, compressor.decompress(extras));
+
+        extras.putString(PayloadCompressor.COMPRESSED_DATA_KEY, "bm90IGRlZmxhdGVk");
+        assertSame(extras, compressor.decompress(extras));
+    }
+
+    private static String createJsonArray(final int size) {
+        final StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            json.append(i == 0 ? "" : ",")
+                    .append("{\"id\":").append(i)
+                    .append(",\"title\":\"Item number ").append(i)
+                    .append("\",\"read\":false}");
+        }
+        return json.append(']').toString();
+    }
+}
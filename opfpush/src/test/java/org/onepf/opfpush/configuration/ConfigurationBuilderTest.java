@@ -102,4 +102,14 @@ public class ConfigurationBuilderTest extends Assert {
         configuration = builder.build();
         assertFalse(configuration.isSelectSystemPreferred());
     }
+
+    @Test
+    public void testSetParallelAvailabilityCheck() {
+        final PushProvider[] providers = Util.getRandomPushProviders();
+        final Set<PushProvider> uniqueProviders = new HashSet<>(Arrays.asList(providers));
+        builder.addProviders(uniqueProviders.toArray(new PushProvider[uniqueProviders.size()]));
+        assertFalse(builder.build().isParallelAvailabilityCheck());
+        builder.setParallelAvailabilityCheck(true);
+        assertTrue(builder.build().isParallelAvailabilityCheck());
+    }
 }
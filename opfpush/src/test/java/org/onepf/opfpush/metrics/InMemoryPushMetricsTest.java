@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush.metrics;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onepf.opfpush.model.Operation;
+import org.onepf.opfpush.model.RecoverablePushError;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static android.os.Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+/**
+ * @since 18.10.2026
+ */
+@Config(sdk = JELLY_BEAN_MR2, manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class InMemoryPushMetricsTest extends Assert {
+
+    private static final String FIRST_PROVIDER_NAME = "Courier";
+    private static final String SECOND_PROVIDER_NAME = "Pigeon";
+
+    @Test
+    public void onFailover_countsOnlySwitchesBetweenProviders() {
+        final InMemoryPushMetrics pushMetrics = new InMemoryPushMetrics();
+        pushMetrics.onFailover(FIRST_PROVIDER_NAME, SECOND_PROVIDER_NAME);
+        pushMetrics.onNoAvailableProvider();
+        pushMetrics.onNoAvailableProvider();
+
+        assertEquals(1, pushMetrics.getFailoversCount());
+        assertEquals(2, pushMetrics.getNoAvailableProviderCount());
+        assertTrue(pushMetrics.getProviderNames().isEmpty());
+    }
+
+    @Test
+    public void providerMetrics_areKeptPerProviderAndReset() {
+        final InMemoryPushMetrics pushMetrics = new InMemoryPushMetrics();
+        pushMetrics.onRegistrationStarted(FIRST_PROVIDER_NAME);
+        pushMetrics.onRegistrationFailed(FIRST_PROVIDER_NAME, new RecoverablePushError(
+                RecoverablePushError.Type.SERVICE_NOT_AVAILABLE, FIRST_PROVIDER_NAME, "SERVICE_NOT_AVAILABLE"
+        ), 100);
+        pushMetrics.onRetryScheduled(FIRST_PROVIDER_NAME, Operation.REGISTER, 1000);
+        pushMetrics.onRegistrationStarted(FIRST_PROVIDER_NAME);
+        pushMetrics.onRegistrationSucceeded(FIRST_PROVIDER_NAME, 200);
+        pushMetrics.onMessageReceived(FIRST_PROVIDER_NAME);
+        pushMetrics.onRegistrationTimeout(SECOND_PROVIDER_NAME);
+
+        final InMemoryPushMetrics.ProviderMetrics firstMetrics = pushMetrics.getProviderMetrics(FIRST_PROVIDER_NAME);
+        assertEquals(2, firstMetrics.getRegistrationStartsCount());
+        assertEquals(1, firstMetrics.getRegistrationFailuresCount());
+        assertEquals(1, firstMetrics.getRegistrationSuccessesCount());
+        assertEquals(1, firstMetrics.getRetriesCount(Operation.REGISTER));
+        assertEquals(0, firstMetrics.getRetriesCount(Operation.UNREGISTER));
+        assertEquals(1, firstMetrics.getMessagesCount());
+        assertEquals(1, firstMetrics.getRegistrationLatency().getCount());
+        assertEquals(1, pushMetrics.getProviderMetrics(SECOND_PROVIDER_NAME).getRegistrationTimeoutsCount());
+        assertEquals(2, pushMetrics.getProviderNames().size());
+
+        pushMetrics.reset();
+        assertTrue(pushMetrics.getProviderNames().isEmpty());
+        assertEquals(0, pushMetrics.getFailoversCount());
+    }
+}
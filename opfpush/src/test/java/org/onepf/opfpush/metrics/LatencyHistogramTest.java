@@ -0,0 +1,68 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush.metrics;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static android.os.Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+/**
+ * @since 18.10.2026
+ */
+@Config(sdk = JELLY_BEAN_MR2, manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class LatencyHistogramTest extends Assert {
+
+    @Test
+    public void record_putsDurationsIntoBuckets() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-1);
+        histogram.record(0);
+        histogram.record(100);
+        histogram.record(101);
+        histogram.record(Long.MAX_VALUE / 2);
+
+        final long[] bucketCounts = histogram.getBucketCounts();
+        assertEquals(LatencyHistogram.getBucketBoundsMillis().length + 1, bucketCounts.length);
+        assertEquals(2, bucketCounts[0]);
+        assertEquals(1, bucketCounts[1]);
+        assertEquals(1, bucketCounts[bucketCounts.length - 1]);
+        assertEquals(4, histogram.getCount());
+        assertEquals(Long.MAX_VALUE / 2, histogram.getMaxMillis());
+    }
+
+    @Test
+    public void getPercentileMillis_returnsBucketBound() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileMillis(50));
+
+        for (int i = 0; i < 90; i++) {
+            histogram.record(50);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(4000);
+        }
+        assertEquals(100, histogram.getPercentileMillis(50));
+        assertEquals(100, histogram.getPercentileMillis(90));
+        assertEquals(4000, histogram.getPercentileMillis(95));
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onepf.opfpush.utils;
+
+import android.content.ComponentName;
+import android.content.Intent;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onepf.opfpush.listener.CheckManifestHandler;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static android.os.Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+/**
+ * @since 18.10.2026
+ */
+@Config(sdk = JELLY_BEAN_MR2, manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class ManifestSnapshotTest extends Assert {
+
+    private static final String ACTION = "org.onepf.opfpush.test.ACTION";
+
+    @Test
+    public void getInstance_returnsSameSnapshot() {
+        assertSame(
+                ManifestSnapshot.getInstance(RuntimeEnvironment.application),
+                ManifestSnapshot.getInstance(RuntimeEnvironment.application)
+        );
+    }
+
+    @Test
+    public void queryBroadcastReceivers_isMemoizedPerIntentFilter() {
+        final ManifestSnapshot snapshot = ManifestSnapshot.getInstance(RuntimeEnvironment.application);
+        final Intent intent = new Intent(ACTION);
+
+        assertSame(snapshot.queryBroadcastReceivers(intent), snapshot.queryBroadcastReceivers(new Intent(ACTION)));
+        assertFalse(snapshot.hasReceiver(null, intent, null));
+    }
+
+    @Test
+    public void undeclaredComponents() {
+        final ManifestSnapshot snapshot = ManifestSnapshot.getInstance(RuntimeEnvironment.application);
+
+        assertFalse(snapshot.hasPermission("org.onepf.opfpush.test.PERMISSION"));
+        assertFalse(snapshot.hasService(new ComponentName(RuntimeEnvironment.application, "NotDeclaredService")));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void checkReceiver_throwsWithoutHandler() {
+        CheckUtils.checkReceiver(RuntimeEnvironment.application, new Intent(ACTION), (CheckManifestHandler) null);
+    }
+}
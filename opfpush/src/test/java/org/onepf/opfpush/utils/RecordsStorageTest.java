@@ -0,0 +1,71 @@
+/*
+ * Copyright 2012-2015 One Platform Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.onepf.opfpush.utils;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static android.os.Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+/**
+ * @since 18.10.2026
+ */
+@Config(sdk = JELLY_BEAN_MR2, manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class RecordsStorageTest extends Assert {
+
+    private static final String KEY = "records";
+
+    @Test
+    public void save_roundTripsRecordsAndSkipsInvalidOnes() {
+        final RecordsStorage storage = new RecordsStorage(RuntimeEnvironment.application);
+        storage.save(KEY, 1, Arrays.asList(
+                new String[]{"1", "Courier"},
+                new String[]{"2", "Pigeon, the second"},
+                new String[]{"3", "Line\nbreak"},
+                new String[]{"4,5", "Comma"}
+        ));
+
+        final List<String[]> records = new RecordsStorage(RuntimeEnvironment.application).load(KEY, 1, 2);
+        assertEquals(2, records.size());
+        assertEquals("Courier", records.get(0)[1]);
+        assertEquals("2", records.get(1)[0]);
+        assertEquals("Pigeon, the second", records.get(1)[1]);
+        assertTrue(storage.load("other", 1, 2).isEmpty());
+    }
+
+    @Test
+    public void load_dropsRecordsOfOtherVersion() {
+        final RecordsStorage storage = new RecordsStorage(RuntimeEnvironment.application);
+        storage.save(KEY, 1, Arrays.<String[]>asList(new String[]{"1"}));
+        assertTrue(storage.load(KEY, 2, 1).isEmpty());
+        assertTrue(storage.load(KEY, 1, 2).isEmpty());
+        assertEquals(1, storage.load(KEY, 1, 1).size());
+
+        storage.save(KEY, 1, Arrays.<String[]>asList());
+        assertTrue(storage.load(KEY, 1, 1).isEmpty());
+    }
+}